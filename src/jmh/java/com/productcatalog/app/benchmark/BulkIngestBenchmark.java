@@ -0,0 +1,76 @@
+package com.productcatalog.app.benchmark;
+
+import java.util.Iterator;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.productcatalog.app.model.Product;
+import com.productcatalog.app.model.Status;
+import com.productcatalog.app.response.ProductCatalogConstants;
+
+/**
+ * Bulk create throughput in products per minute, the figure the ingest target
+ * is stated in. Each invocation loads BATCH products through
+ * ProductService.bulkCreateProducts, the path behind POST /products/bulk,
+ * into the seeded catalog: validation, approval routing, the chunked batched
+ * inserts and the index updates after each commit. queuedPercent of the
+ * products are priced for approval and go to the approval queue instead.
+ *
+ * The catalog grows by every batch loaded, the catalog size is the size at
+ * the start of the trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class BulkIngestBenchmark {
+
+	private static final int BATCH = 10000;
+
+	@Param({ "0", "10" })
+	public int queuedPercent;
+
+	private final SplittableRandom random = new SplittableRandom(7);
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public Object bulkCreate(CatalogState catalog) {
+		return catalog.productService.bulkCreateProducts(batch());
+	}
+
+	/** generated as the load reads it, like an NDJSON upload */
+	private Iterator<Product> batch() {
+		return new Iterator<>() {
+			private int created;
+
+			@Override
+			public boolean hasNext() {
+				return created < BATCH;
+			}
+
+			@Override
+			public Product next() {
+				created++;
+				double price = random.nextInt(100) < queuedPercent
+						? ProductCatalogConstants.MIN_APPROVAL_PRICE + random.nextInt(1, 5000)
+						: random.nextInt(1, 5000);
+				return new Product("ingested-" + random.nextInt(CatalogState.DISTINCT_NAMES), price, Status.ACTIVE,
+						CatalogState.NOW.minusMinutes(random.nextInt(365 * 24 * 60)));
+			}
+		};
+	}
+}
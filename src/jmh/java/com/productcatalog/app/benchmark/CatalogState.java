@@ -0,0 +1,75 @@
+package com.productcatalog.app.benchmark;
+
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.SplittableRandom;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.productcatalog.app.ProductCatalogApplication;
+import com.productcatalog.app.model.Product;
+import com.productcatalog.app.model.Status;
+import com.productcatalog.app.service.ProductService;
+
+/**
+ * Boots the application without the web layer against the embedded database
+ * from application-benchmark.properties and seeds catalogSize active products.
+ * The seed is fixed so runs are comparable: names repeat every
+ * DISTINCT_NAMES products, prices are spread below the approval threshold and
+ * posted dates over the last year.
+ */
+@State(Scope.Benchmark)
+public class CatalogState {
+
+	static final int DISTINCT_NAMES = 1000;
+
+	static final LocalDateTime NOW = LocalDateTime.of(2023, 8, 1, 12, 0);
+
+	@Param({ "10000", "100000" })
+	public int catalogSize;
+
+	ConfigurableApplicationContext context;
+
+	ProductService productService;
+
+	@Setup(Level.Trial)
+	public void start() {
+		context = new SpringApplicationBuilder(ProductCatalogApplication.class).web(WebApplicationType.NONE)
+				.profiles("benchmark").run();
+		productService = context.getBean(ProductService.class);
+		productService.bulkCreateProducts(seedProducts(catalogSize));
+	}
+
+	@TearDown(Level.Trial)
+	public void stop() {
+		context.close();
+	}
+
+	/** the seeded catalog, also used by benchmarks that need a size of their own */
+	static Iterator<Product> seedProducts(int catalogSize) {
+		SplittableRandom random = new SplittableRandom(42);
+		return new Iterator<>() {
+			private int created;
+
+			@Override
+			public boolean hasNext() {
+				return created < catalogSize;
+			}
+
+			@Override
+			public Product next() {
+				int i = created++;
+				return new Product("product-" + (i % DISTINCT_NAMES), (double) random.nextInt(1, 5000), Status.ACTIVE,
+						NOW.minusMinutes(random.nextInt(365 * 24 * 60)));
+			}
+		};
+	}
+}
@@ -0,0 +1,79 @@
+package com.productcatalog.app.benchmark;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import com.productcatalog.app.ProductCatalogApplication;
+
+/**
+ * Requests per second through the whole MVC stack, exception resolution
+ * included, when invalidPercent of the requests are rejected with a 400.
+ * Both kinds hit the name search, which is answered from memory, so the
+ * difference is the cost of the error path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 15, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ErrorPathBenchmark {
+
+	@Param({ "0", "50", "100" })
+	public int invalidPercent;
+
+	private ConfigurableApplicationContext context;
+
+	private MockMvc mvc;
+
+	private final RequestBuilder valid = get("/api/v1/products/search/name").param("query", "product 42");
+
+	private final RequestBuilder invalid = get("/api/v1/products/search/name").param("query", "product 42")
+			.param("limit", "0");
+
+	@Setup(Level.Trial)
+	public void start() {
+		context = new SpringApplicationBuilder(ProductCatalogApplication.class).web(WebApplicationType.SERVLET)
+				.profiles("benchmark").properties("server.port=0").run();
+		mvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+	}
+
+	@TearDown(Level.Trial)
+	public void stop() {
+		context.close();
+	}
+
+	@State(Scope.Thread)
+	public static class Mix {
+
+		int request;
+	}
+
+	@Benchmark
+	public int search(Mix mix) throws Exception {
+		boolean rejected = mix.request++ % 100 < invalidPercent;
+		return mvc.perform(rejected ? invalid : valid).andReturn().getResponse().getStatus();
+	}
+}
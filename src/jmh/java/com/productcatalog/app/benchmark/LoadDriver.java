@@ -0,0 +1,92 @@
+package com.productcatalog.app.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed loop HTTP load against a running instance: every client sends its
+ * next request as soon as the previous one completes. Used to compare the
+ * platform and virtual thread request modes, start the application once with
+ * productcatalog.threads.virtual.enabled=false and once with true and run
+ *
+ * ./gradlew loadTest -PloadTestArgs="http://localhost:8080/api/v1/products?limit=20 2000 60"
+ *
+ * Arguments are the URL, the number of concurrent clients and the duration in
+ * seconds. Prints throughput, latency percentiles and the number of failed
+ * requests (non 2xx or I/O errors).
+ */
+public class LoadDriver {
+
+	public static void main(String[] args) throws Exception {
+		URI uri = URI.create(args.length > 0 ? args[0] : "http://localhost:8080/api/v1/products?limit=20");
+		int clients = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+		Duration duration = Duration.ofSeconds(args.length > 2 ? Long.parseLong(args[2]) : 60);
+		Duration warmup = Duration.ofSeconds(Math.max(5, duration.toSeconds() / 6));
+
+		HttpClient httpClient = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor())
+				.connectTimeout(Duration.ofSeconds(10)).build();
+		HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(30)).GET().build();
+
+		long measureFrom = System.nanoTime() + warmup.toNanos();
+		long stopAt = measureFrom + duration.toNanos();
+		AtomicLong failures = new AtomicLong();
+		List<long[]> latencies = new ArrayList<>(clients);
+		int[] counts = new int[clients];
+
+		try (ExecutorService clientThreads = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (int c = 0; c < clients; c++) {
+				int client = c;
+				long[] samples = new long[1 << 12];
+				latencies.add(samples);
+				clientThreads.submit(() -> {
+					while (System.nanoTime() < stopAt) {
+						long start = System.nanoTime();
+						boolean ok;
+						try {
+							HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+							ok = response.statusCode() / 100 == 2;
+						} catch (Exception e) {
+							ok = false;
+						}
+						if (start < measureFrom) {
+							continue;
+						}
+						if (!ok) {
+							failures.incrementAndGet();
+						} else if (counts[client] < samples.length) {
+							samples[counts[client]++] = System.nanoTime() - start;
+						}
+					}
+				});
+			}
+		}
+
+		int total = Arrays.stream(counts).sum();
+		long[] all = new long[total];
+		int offset = 0;
+		for (int c = 0; c < clients; c++) {
+			System.arraycopy(latencies.get(c), 0, all, offset, counts[c]);
+			offset += counts[c];
+		}
+		Arrays.sort(all);
+		System.out.printf("clients=%d duration=%ds requests=%d failures=%d throughput=%.1f req/s%n", clients,
+				duration.toSeconds(), total, failures.get(), total / (double) duration.toSeconds());
+		if (total > 0) {
+			System.out.printf("latency ms p50=%.1f p90=%.1f p99=%.1f max=%.1f%n", percentile(all, 0.50),
+					percentile(all, 0.90), percentile(all, 0.99), all[total - 1] / 1e6);
+		}
+	}
+
+	private static double percentile(long[] sorted, double percentile) {
+		return sorted[(int) Math.min(sorted.length - 1, Math.floor(percentile * sorted.length))] / 1e6;
+	}
+}
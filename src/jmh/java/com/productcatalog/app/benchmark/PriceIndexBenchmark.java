@@ -0,0 +1,67 @@
+package com.productcatalog.app.benchmark;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.productcatalog.app.search.ProductPriceIndex;
+
+/**
+ * The price index on its own, without Spring or a database: range lookups of
+ * about 0.1% and 1% of the products, and repricing a random product, which
+ * includes its share of the periodic merges. Prices are spread like the
+ * CatalogState seed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx1g")
+public class PriceIndexBenchmark {
+
+	@Param({ "100000", "1000000" })
+	public int products;
+
+	private ProductPriceIndex index;
+
+	private SplittableRandom random;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		index = new ProductPriceIndex(null, null);
+		random = new SplittableRandom(42);
+		for (long id = 1; id <= products; id++) {
+			index.put(id, (double) random.nextInt(1, 5000));
+		}
+	}
+
+	@Benchmark
+	public long[] narrowRange() {
+		double min = random.nextInt(1, 4995);
+		return index.idsInRange(min, min + 5);
+	}
+
+	@Benchmark
+	public long[] wideRange() {
+		double min = random.nextInt(1, 4950);
+		return index.idsInRange(min, min + 50);
+	}
+
+	@Benchmark
+	public void reprice() {
+		index.put(random.nextLong(1, products + 1), (double) random.nextInt(1, 5000));
+	}
+}
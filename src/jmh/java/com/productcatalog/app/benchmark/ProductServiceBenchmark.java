@@ -0,0 +1,71 @@
+package com.productcatalog.app.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.productcatalog.app.model.Product;
+import com.productcatalog.app.model.Status;
+
+/**
+ * Service level hot paths against a seeded catalog, including the
+ * persistence round trips. The create benchmarks add rows to the catalog as
+ * they run, the catalog size is the size at the start of the trial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductServiceBenchmark {
+
+	@Benchmark
+	public Object createProduct(CatalogState catalog) {
+		return catalog.productService.createProductwithApprovalCheck(
+				new Product("benchmark product", 250.0, Status.ACTIVE, CatalogState.NOW));
+	}
+
+	@Benchmark
+	public Object createProductQueuedForApproval(CatalogState catalog) {
+		return catalog.productService.createProductwithApprovalCheck(
+				new Product("benchmark product", 7500.0, Status.ACTIVE, CatalogState.NOW));
+	}
+
+	@Benchmark
+	public Object searchByName(CatalogState catalog) throws Exception {
+		return catalog.productService.searchProductsBasedOnSearchCriteria("PRODUCT-42", null, null, null, null, null);
+	}
+
+	@Benchmark
+	public Object searchByPriceRange(CatalogState catalog) throws Exception {
+		return catalog.productService.searchProductsBasedOnSearchCriteria(null, 1000.0, 1010.0, null, null, null);
+	}
+
+	@Benchmark
+	public Object searchByPostedDateRange(CatalogState catalog) throws Exception {
+		return catalog.productService.searchProductsBasedOnSearchCriteria(null, null, null,
+				CatalogState.NOW.minusDays(2), CatalogState.NOW.minusDays(1), null);
+	}
+
+	@Benchmark
+	public Object searchByAllCriteria(CatalogState catalog) throws Exception {
+		return catalog.productService.searchProductsBasedOnSearchCriteria("product-42", 100.0, 4900.0,
+				CatalogState.NOW.minusDays(300), CatalogState.NOW, null);
+	}
+
+	@Benchmark
+	public Object searchByNameIndex(CatalogState catalog) {
+		return catalog.productService.searchProductsByName("product 42", null, null);
+	}
+
+	@Benchmark
+	public Object searchByNameIndexWithTypo(CatalogState catalog) {
+		return catalog.productService.searchProductsByName("prodcut 42", null, null);
+	}
+}
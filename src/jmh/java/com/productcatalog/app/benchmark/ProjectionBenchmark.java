@@ -0,0 +1,75 @@
+package com.productcatalog.app.benchmark;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.productcatalog.app.model.Product;
+import com.productcatalog.app.model.Status;
+import com.productcatalog.app.repository.ProductRepository;
+import com.productcatalog.app.repository.ProductSpecifications;
+import com.productcatalog.app.response.ProductView;
+
+/**
+ * Reading a listing page as managed entities, the way it was done before,
+ * against reading it as {@link ProductView} rows with all or only some
+ * columns. Run with -prof gc to compare the allocation per page as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProjectionBenchmark {
+
+	private static final Sort ORDER = Sort.by(Sort.Order.desc("postedDate"), Sort.Order.desc("id"));
+
+	private static final Specification<Product> ACTIVE = ProductSpecifications.hasStatus(Status.ACTIVE);
+
+	@Param({ "100", "10000" })
+	public int rows;
+
+	private ProductRepository productRepository;
+
+	private TransactionTemplate readOnly;
+
+	@Setup
+	public void setUp(CatalogState catalog) {
+		productRepository = catalog.context.getBean(ProductRepository.class);
+		readOnly = new TransactionTemplate(catalog.context.getBean(PlatformTransactionManager.class));
+		readOnly.setReadOnly(true);
+	}
+
+	@Benchmark
+	public List<Product> entities() {
+		return readOnly.execute(status -> productRepository.findAll(ACTIVE, PageRequest.of(0, rows, ORDER)).getContent());
+	}
+
+	@Benchmark
+	public List<ProductView> views() {
+		return readOnly.execute(status -> productRepository.findViews(ACTIVE, null, ORDER, rows));
+	}
+
+	@Benchmark
+	public List<ProductView> viewsIdAndName() {
+		return readOnly.execute(status -> productRepository.findViews(ACTIVE, Set.of("id", "name"), ORDER, rows));
+	}
+}
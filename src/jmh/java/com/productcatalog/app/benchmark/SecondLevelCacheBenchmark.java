@@ -0,0 +1,106 @@
+package com.productcatalog.app.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.productcatalog.app.ProductCatalogApplication;
+import com.productcatalog.app.model.Product;
+import com.productcatalog.app.model.Status;
+import com.productcatalog.app.repository.ProductRepository;
+import com.productcatalog.app.response.CursorPage;
+import com.productcatalog.app.response.ProductView;
+import com.productcatalog.app.service.ProductService;
+
+/**
+ * The reads the write and approval paths start with, a product by id inside a
+ * read-write transaction, and a listing page after the first, with the
+ * Hibernate second-level and query cache on and off. The embedded database
+ * runs in process, so this shows what a cache hit costs rather than what it
+ * saves: against MySQL every miss is also a network round trip. Compare
+ * the hibernate.statements metric or the SQL log to count the trips saved.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SecondLevelCacheBenchmark {
+
+	private static final int PRODUCTS = 10000;
+
+	private static final int HOT_PRODUCTS = 100;
+
+	@Param({ "true", "false" })
+	public boolean secondLevelCache;
+
+	private ConfigurableApplicationContext context;
+
+	private ProductService productService;
+
+	private ProductRepository productRepository;
+
+	private TransactionTemplate transaction;
+
+	private final List<Long> hotIds = new ArrayList<>();
+
+	private String secondPage;
+
+	private int next;
+
+	@Setup(Level.Trial)
+	public void start() {
+		context = new SpringApplicationBuilder(ProductCatalogApplication.class).web(WebApplicationType.NONE)
+				.profiles("benchmark")
+				.run("--spring.jpa.properties.hibernate.cache.use_second_level_cache=" + secondLevelCache,
+						"--spring.jpa.properties.hibernate.cache.use_query_cache=" + secondLevelCache);
+		productService = context.getBean(ProductService.class);
+		productRepository = context.getBean(ProductRepository.class);
+		transaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+		List<Product> products = new ArrayList<>(PRODUCTS);
+		for (int i = 0; i < PRODUCTS; i++) {
+			products.add(new Product("product-" + i, (double) (1 + i % 4999), Status.ACTIVE,
+					CatalogState.NOW.minusMinutes(i)));
+		}
+		productService.bulkCreateProducts(products.iterator());
+		CursorPage<ProductView> first = productService.listActiveProducts(HOT_PRODUCTS, null, null);
+		first.getItems().forEach(product -> hotIds.add(product.id()));
+		secondPage = first.getNextPageToken();
+	}
+
+	@TearDown(Level.Trial)
+	public void stop() {
+		context.close();
+	}
+
+	@Benchmark
+	public Object findById() {
+		Long productId = hotIds.get(next++ % HOT_PRODUCTS);
+		return transaction.execute(status -> productRepository.findById(productId));
+	}
+
+	@Benchmark
+	public Object listingSecondPage() {
+		return productService.listActiveProducts(50, secondPage, null);
+	}
+}
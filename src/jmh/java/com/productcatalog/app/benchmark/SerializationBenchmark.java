@@ -0,0 +1,70 @@
+package com.productcatalog.app.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.productcatalog.app.model.Product;
+import com.productcatalog.app.model.Status;
+import com.productcatalog.app.response.CursorPage;
+
+/**
+ * Jackson serialization of product lists as the controllers write them. The
+ * mapper is configured like the one Spring Boot builds for the web layer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+	@Param({ "50", "500" })
+	public int listSize;
+
+	private ObjectMapper objectMapper;
+
+	private List<Product> products;
+
+	private CursorPage<Product> page;
+
+	@Setup
+	public void setUp() {
+		objectMapper = Jackson2ObjectMapperBuilder.json().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+				.build();
+		products = new ArrayList<>(listSize);
+		for (int i = 0; i < listSize; i++) {
+			Product product = new Product("product-" + i, 10.0 + i, Status.ACTIVE, CatalogState.NOW.minusMinutes(i));
+			product.setId((long) i + 1);
+			products.add(product);
+		}
+		page = new CursorPage<>(products, "MjAyMy0wOC0wMVQxMjowMHwx");
+	}
+
+	@Benchmark
+	public byte[] serializeProductList() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(products);
+	}
+
+	@Benchmark
+	public byte[] serializeCursorPage() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(page);
+	}
+}
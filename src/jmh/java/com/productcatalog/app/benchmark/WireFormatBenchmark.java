@@ -0,0 +1,99 @@
+package com.productcatalog.app.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.productcatalog.app.model.Product;
+import com.productcatalog.app.model.Status;
+
+/**
+ * Bytes on the wire and time to produce them for a list of products in each
+ * response format, with and without gzip as server.compression applies it.
+ * The mappers are built like the ones in WireFormatConfig. The size of every
+ * combination is printed once at setup, the benchmark measures the time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WireFormatBenchmark {
+
+	@Param({ "10000" })
+	public int listSize;
+
+	@Param({ "json", "smile", "cbor" })
+	public String format;
+
+	@Param({ "false", "true" })
+	public boolean gzip;
+
+	private ObjectMapper objectMapper;
+
+	private List<Product> products;
+
+	@Setup
+	public void setUp() throws IOException {
+		objectMapper = mapper(format);
+		products = new ArrayList<>(listSize);
+		for (int i = 0; i < listSize; i++) {
+			Product product = new Product("product-" + (i % CatalogState.DISTINCT_NAMES), 10.0 + (i % 5000) * 0.37,
+					Status.ACTIVE, CatalogState.NOW.minusMinutes(i));
+			product.setId((long) i + 1);
+			products.add(product);
+		}
+		System.out.printf("%n%s%s, %d products: %d bytes%n", format, gzip ? " + gzip" : "", listSize,
+				serialize().length);
+	}
+
+	@Benchmark
+	public byte[] serialize() throws IOException {
+		if (!gzip) {
+			return objectMapper.writeValueAsBytes(products);
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (GZIPOutputStream compressed = new GZIPOutputStream(out)) {
+			objectMapper.writeValue(compressed, products);
+		}
+		return out.toByteArray();
+	}
+
+	private static ObjectMapper mapper(String format) {
+		Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json()
+				.featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+		switch (format) {
+		case "smile":
+			builder.factory(SmileFactory.builder().enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES).build());
+			break;
+		case "cbor":
+			builder.factory(new CBORFactory());
+			break;
+		default:
+			break;
+		}
+		return builder.build();
+	}
+}
@@ -2,15 +2,21 @@ package com.productcatalog.app;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 
 @SpringBootApplication(scanBasePackages = { "com.productcatalog.app" })
 @EnableJpaRepositories
 public class ProductCatalogApplication {
 
+	/** startup steps recorded for StartupReport and /actuator/startup */
+	private static final int STARTUP_STEPS = 10000;
+
 	public static void main(String[] args) {
 
-		SpringApplication.run(ProductCatalogApplication.class, args);
+		SpringApplication application = new SpringApplication(ProductCatalogApplication.class);
+		application.setApplicationStartup(new BufferingApplicationStartup(STARTUP_STEPS));
+		application.run(args);
 
 	}
 
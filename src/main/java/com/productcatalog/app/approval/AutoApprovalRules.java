@@ -0,0 +1,49 @@
+package com.productcatalog.app.approval;
+
+import com.productcatalog.app.model.ApprovalQueue;
+import com.productcatalog.app.model.Product;
+import com.productcatalog.app.model.Status;
+import com.productcatalog.app.response.ProductCatalogConstants;
+
+/**
+ * Decides which approval requests can be approved without a human. A request
+ * passes if it keeps the product active and
+ * <ul>
+ * <li>creates a product priced at most maxNewPrice, or</li>
+ * <li>changes an existing product to a price at most maxIncreasePercent above
+ * its current one.</li>
+ * </ul>
+ * A null limit turns its rule off. Everything else, deletions included, is
+ * left for a human.
+ */
+public class AutoApprovalRules {
+
+	private final Double maxNewPrice;
+
+	private final Double maxIncreasePercent;
+
+	public AutoApprovalRules(Double maxNewPrice, Double maxIncreasePercent) {
+		this.maxNewPrice = maxNewPrice;
+		this.maxIncreasePercent = maxIncreasePercent;
+	}
+
+	/**
+	 * @param request - the pending approval request
+	 * @param current - the product the request changes, null for a new product
+	 *                or one that no longer exists
+	 */
+	public boolean allows(ApprovalQueue request, Product current) {
+		Double price = request.getPrice();
+		if (price == null || price <= 0 || price > ProductCatalogConstants.MAX_PRICE
+				|| request.getStatus() != Status.ACTIVE) {
+			return false;
+		}
+		if (request.getProductId() == null) {
+			return maxNewPrice != null && price <= maxNewPrice;
+		}
+		if (current == null || current.getPrice() == null || maxIncreasePercent == null) {
+			return false;
+		}
+		return price <= current.getPrice() * (1 + maxIncreasePercent / 100);
+	}
+}
@@ -0,0 +1,165 @@
+package com.productcatalog.app.approval;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.productcatalog.app.metrics.ProductCatalogMetrics;
+import com.productcatalog.app.model.ApprovalQueue;
+import com.productcatalog.app.model.Product;
+import com.productcatalog.app.repository.ApprovalQueueRepository;
+import com.productcatalog.app.repository.ProductRepository;
+import com.productcatalog.app.response.ProductCatalogConstants;
+import com.productcatalog.app.service.ProductService;
+
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Opt-in background approval, enabled with
+ * productcatalog.approval.auto.enabled=true.
+ *
+ * Every poll-ms each of the workers threads drains the approval queue in
+ * batches of batch-size. A batch is claimed with SELECT ... FOR UPDATE SKIP
+ * LOCKED, so threads and instances sharing the database never process the
+ * same request. The requests that pass {@link AutoApprovalRules} are approved
+ * through {@link ProductService#approveProducts}, in the transaction that
+ * holds the locks; the rest are marked as reviewed and wait for a human.
+ *
+ * A batch that fails, for example because a product was changed
+ * concurrently, is rolled back as a whole and claimed again on the next poll.
+ */
+@Log4j2
+@Component
+@ConditionalOnProperty(name = "productcatalog.approval.auto.enabled", havingValue = "true")
+public class AutoApprovalWorker implements SmartLifecycle {
+
+	private final ApprovalQueueRepository approvalQueueRepository;
+
+	private final ProductRepository productRepository;
+
+	private final ProductService productService;
+
+	private final ProductCatalogMetrics metrics;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final AutoApprovalRules rules;
+
+	private final int workers;
+
+	private final int batchSize;
+
+	private final long pollMs;
+
+	private volatile boolean running;
+
+	private ScheduledExecutorService executor;
+
+	public AutoApprovalWorker(ApprovalQueueRepository approvalQueueRepository, ProductRepository productRepository,
+			ProductService productService, ProductCatalogMetrics metrics, PlatformTransactionManager transactionManager,
+			@Value("${productcatalog.approval.auto.max-new-price:#{null}}") Double maxNewPrice,
+			@Value("${productcatalog.approval.auto.max-increase-percent:#{null}}") Double maxIncreasePercent,
+			@Value("${productcatalog.approval.auto.workers:2}") int workers,
+			@Value("${productcatalog.approval.auto.batch-size:100}") int batchSize,
+			@Value("${productcatalog.approval.auto.poll-ms:5000}") long pollMs) {
+		this.approvalQueueRepository = approvalQueueRepository;
+		this.productRepository = productRepository;
+		this.productService = productService;
+		this.metrics = metrics;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.rules = new AutoApprovalRules(maxNewPrice, maxIncreasePercent);
+		this.workers = Math.max(1, workers);
+		this.batchSize = Math.max(1, Math.min(batchSize, ProductCatalogConstants.MAX_APPROVAL_BATCH_SIZE));
+		this.pollMs = pollMs;
+	}
+
+	@Override
+	public void start() {
+		AtomicInteger threads = new AtomicInteger();
+		executor = Executors.newScheduledThreadPool(workers, task -> {
+			Thread thread = new Thread(task, "auto-approval-" + threads.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		for (int i = 0; i < workers; i++) {
+			executor.scheduleWithFixedDelay(this::drain, pollMs, pollMs, TimeUnit.MILLISECONDS);
+		}
+		running = true;
+		log.info("Auto-approving queued requests with {} worker(s), {} per batch", workers, batchSize);
+	}
+
+	@Override
+	public void stop() {
+		running = false;
+		executor.shutdown();
+		try {
+			executor.awaitTermination(30, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Override
+	public boolean isRunning() {
+		return running;
+	}
+
+	/** reviews batches until the queue has no unclaimed work left */
+	private void drain() {
+		try {
+			while (reviewBatch() == batchSize && running) {
+				// a full batch means there may be more
+			}
+		} catch (RuntimeException e) {
+			log.warn("Auto-approval batch rolled back, retrying on the next poll - {}", e.getMessage());
+		}
+	}
+
+	/**
+	 * Claims, reviews and settles one batch in one transaction.
+	 *
+	 * @return the number of requests claimed
+	 */
+	public int reviewBatch() {
+		return transactionTemplate.execute(status -> {
+			List<ApprovalQueue> claimed = approvalQueueRepository.claimForAutoReview(batchSize);
+			if (claimed.isEmpty()) {
+				return 0;
+			}
+			Map<Long, Product> products = productRepository
+					.findAllById(claimed.stream().map(ApprovalQueue::getProductId).filter(Objects::nonNull)
+							.collect(Collectors.toSet()))
+					.stream().collect(Collectors.toMap(Product::getId, Function.identity()));
+			List<Long> approved = new ArrayList<>();
+			List<Long> leftForReview = new ArrayList<>();
+			for (ApprovalQueue request : claimed) {
+				Product current = request.getProductId() == null ? null : products.get(request.getProductId());
+				(rules.allows(request, current) ? approved : leftForReview).add(request.getId());
+			}
+			if (!approved.isEmpty()) {
+				productService.approveProducts(approved);
+			}
+			if (!leftForReview.isEmpty()) {
+				approvalQueueRepository.markAutoReviewed(leftForReview, LocalDateTime.now());
+			}
+			metrics.autoApprovalsApplied(approved.size(), leftForReview.size());
+			log.info("Auto-approved {} of {} claimed approval requests", approved.size(), claimed.size());
+			return claimed.size();
+		});
+	}
+}
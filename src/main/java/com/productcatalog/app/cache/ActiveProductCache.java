@@ -0,0 +1,119 @@
+package com.productcatalog.app.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.productcatalog.app.event.ProductChangedEvent;
+import com.productcatalog.app.model.Product;
+import com.productcatalog.app.model.Status;
+import com.productcatalog.app.response.CursorPage;
+
+/**
+ * Read-through cache of active products and of the default "all active"
+ * listings. The listings are bounded by the number of products they hold
+ * (productcatalog.cache.product-lists.max-products), not by their count, so a
+ * large catalog is not kept in memory as a whole.
+ * 
+ * Loads go through Caffeine's atomic get-or-compute, so an invalidation that
+ * races with a load removes the loaded value instead of being overwritten by
+ * it. Entries are only invalidated by {@link ProductChangedEvent}, which the
+ * service publishes from its write paths.
+ */
+@Component
+public class ActiveProductCache {
+
+	public static final String PRODUCTS = "activeProducts";
+
+	public static final String PRODUCT_LISTS = "activeProductLists";
+
+	private final Cache<Object, Object> products;
+
+	private final Cache<Object, Object> productLists;
+
+	public ActiveProductCache(CacheManager cacheManager) {
+		this.products = ((CaffeineCache) cacheManager.getCache(PRODUCTS)).getNativeCache();
+		this.productLists = ((CaffeineCache) cacheManager.getCache(PRODUCT_LISTS)).getNativeCache();
+	}
+
+	/**
+	 * @param productId - product to look up
+	 * @param loader    - database lookup used on a miss
+	 * @return the product if it exists and is active
+	 */
+	public Optional<Product> getProduct(Long productId, Function<Long, Optional<Product>> loader) {
+		Object product = products.get(productId, key -> loader.apply(productId)
+				.filter(loaded -> loaded.getStatus() == Status.ACTIVE)
+				.orElse(null));
+		return Optional.ofNullable((Product) product);
+	}
+
+	/**
+	 * Looks up all products at once, the ones missing from the cache are loaded
+	 * in a single call.
+	 *
+	 * @param productIds - products to look up
+	 * @param loader     - database lookup of the products missing from the cache
+	 * @return the products that exist and are active, in no particular order
+	 */
+	public List<Product> getProducts(Collection<Long> productIds, Function<Set<Long>, List<Product>> loader) {
+		Map<Object, Object> found = products.getAll(productIds, missing -> {
+			Set<Long> ids = new HashSet<>(missing.size());
+			missing.forEach(id -> ids.add((Long) id));
+			Map<Object, Object> loaded = new HashMap<>();
+			for (Product product : loader.apply(ids)) {
+				if (product.getStatus() == Status.ACTIVE) {
+					loaded.put(product.getId(), product);
+				}
+			}
+			return loaded;
+		});
+		List<Product> active = new ArrayList<>(found.size());
+		found.values().forEach(product -> active.add((Product) product));
+		return active;
+	}
+
+	/** the most products the cache holds before it evicts */
+	public long capacity() {
+		return products.policy().eviction().map(eviction -> eviction.getMaximum()).orElse(Long.MAX_VALUE);
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T> T getList(String key, Supplier<T> loader) {
+		return (T) productLists.get(key, missing -> loader.get());
+	}
+
+	/** weight of a cached list, the number of products it holds */
+	public static int weigh(Object key, Object list) {
+		if (list instanceof Collection<?> items) {
+			return Math.max(1, items.size());
+		}
+		if (list instanceof CursorPage<?> page && page.getItems() != null) {
+			return Math.max(1, page.getItems().size());
+		}
+		return 1;
+	}
+
+	@Order(ProductChangedEvent.INVALIDATE_ORDER)
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onProductChanged(ProductChangedEvent event) {
+		if (event.getProductId() != null) {
+			products.invalidate(event.getProductId());
+		}
+		productLists.invalidateAll();
+	}
+}
@@ -0,0 +1,77 @@
+package com.productcatalog.app.cache;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.productcatalog.app.event.ProductChangedEvent;
+
+/**
+ * Version stamp of the catalog as a whole, served as ETag and Last-Modified of
+ * the product listings so that a client polling an unchanged catalog gets a
+ * 304 without the database being queried.
+ *
+ * The stamp is the position of the newest relayed change this instance has
+ * caught up with, see {@link com.productcatalog.app.outbox.ChangeStream}, and
+ * the time of that change. Every instance reaches the same position within
+ * productcatalog.outbox.relay-ms plus productcatalog.outbox.stream.poll-ms,
+ * so a client keeps its tag across instances and restarts.
+ *
+ * A change made on this instance is not relayed yet when it commits. Until
+ * the next position is reached the stamp carries this instance's id and the
+ * number of such changes, so a client reading its own write here gets the
+ * new listing right away. The same goes for the time before the first
+ * position is known.
+ *
+ * Read the stamp before running the query it describes: a change that commits
+ * in between then only makes the client fetch the listing once more.
+ */
+@Component
+public class CatalogVersion {
+
+	private final String instanceId = UUID.randomUUID().toString().substring(0, 8);
+
+	private final AtomicReference<Stamp> current = new AtomicReference<>(
+			new Stamp(-1, 0, "W/\"" + instanceId + "\"", Instant.now().truncatedTo(ChronoUnit.SECONDS)));
+
+	public Stamp current() {
+		return current.get();
+	}
+
+	/**
+	 * Moves the stamp to the position once the changes up to it have been
+	 * replayed here.
+	 *
+	 * @param changedAt - when the change at the position was made
+	 */
+	public void advance(long position, Instant changedAt) {
+		current.updateAndGet(stamp -> position > stamp.version()
+				? new Stamp(position, 0, "W/\"" + position + "\"", changedAt.truncatedTo(ChronoUnit.SECONDS))
+				: stamp);
+	}
+
+	/**
+	 * Runs after the INVALIDATE_ORDER listeners that drop cached and replicated
+	 * state, so a request that sees the new stamp also reads the new data.
+	 * Replayed changes are followed by {@link #advance}.
+	 */
+	@Order(ProductChangedEvent.PUBLISH_ORDER)
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onProductChanged(ProductChangedEvent event) {
+		if (event.isReplayed()) {
+			return;
+		}
+		current.updateAndGet(stamp -> new Stamp(stamp.version(), stamp.localChanges() + 1,
+				"W/\"" + stamp.version() + "-" + instanceId + "-" + (stamp.localChanges() + 1) + "\"",
+				Instant.now().truncatedTo(ChronoUnit.SECONDS)));
+	}
+
+	/** Last-Modified only has second precision, clients should prefer the ETag */
+	public record Stamp(long version, long localChanges, String eTag, Instant lastModified) {
+	}
+}
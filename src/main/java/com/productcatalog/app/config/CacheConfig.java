@@ -0,0 +1,38 @@
+package com.productcatalog.app.config;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.productcatalog.app.cache.ActiveProductCache;
+
+/**
+ * Size bounded in-memory caches. Statistics are recorded so that hit, miss and
+ * eviction counts are published through the actuator metrics endpoint
+ * (cache.gets, cache.evictions, cache.size).
+ */
+@Configuration
+public class CacheConfig {
+
+	@Bean
+	public CacheManager cacheManager(@Value("${productcatalog.cache.products.max-size:10000}") long productsMaxSize,
+			@Value("${productcatalog.cache.product-lists.max-products:10000}") long productListsMaxProducts) {
+		CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+		// only the caches registered below exist, unknown names are not created on demand
+		cacheManager.setCacheNames(List.of());
+		cacheManager.setAllowNullValues(false);
+		cacheManager.registerCustomCache(ActiveProductCache.PRODUCTS,
+				Caffeine.newBuilder().maximumSize(productsMaxSize).recordStats().build());
+		// bounded by the products the lists hold, a list larger than the bound is
+		// evicted right after it is loaded, on the loading thread
+		cacheManager.registerCustomCache(ActiveProductCache.PRODUCT_LISTS,
+				Caffeine.newBuilder().maximumWeight(productListsMaxProducts).weigher(ActiveProductCache::weigh)
+						.executor(Runnable::run).recordStats().build());
+		return cacheManager;
+	}
+}
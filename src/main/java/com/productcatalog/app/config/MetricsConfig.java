@@ -0,0 +1,23 @@
+package com.productcatalog.app.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Enables @Timed on beans, used for the per-method service timers
+ * (productcatalog.service, tagged with class and method), and the scheduler
+ * that refreshes the approval queue gauges.
+ */
+@Configuration
+@EnableScheduling
+public class MetricsConfig {
+
+	@Bean
+	public TimedAspect timedAspect(MeterRegistry registry) {
+		return new TimedAspect(registry);
+	}
+}
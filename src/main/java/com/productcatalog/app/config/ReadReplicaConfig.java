@@ -0,0 +1,85 @@
+package com.productcatalog.app.config;
+
+import java.time.Duration;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.productcatalog.app.datasource.ReplicaLagMonitor;
+import com.productcatalog.app.datasource.ReplicaRoutingDataSource;
+import com.productcatalog.app.datasource.ReplicaRoutingDataSource.Route;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Opt-in read/write split, enabled with
+ * productcatalog.datasource.replica.enabled=true.
+ *
+ * The primary pool is configured as before through spring.datasource.*, the
+ * replica through productcatalog.datasource.replica.url (username and password
+ * default to the primary's) and productcatalog.datasource.replica.hikari.*.
+ * Read-only transactions (@Transactional(readOnly = true) on the service read
+ * methods and the Spring Data finders) run on the replica while it is within
+ * max-lag-seconds of the primary, everything else on the primary.
+ */
+@Log4j2
+@Configuration
+@ConditionalOnProperty(name = "productcatalog.datasource.replica.enabled", havingValue = "true")
+public class ReadReplicaConfig {
+
+	@Bean
+	@ConfigurationProperties("spring.datasource.hikari")
+	public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+		HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+		dataSource.setPoolName("primary");
+		return dataSource;
+	}
+
+	@Bean
+	@ConfigurationProperties("productcatalog.datasource.replica.hikari")
+	public HikariDataSource replicaDataSource(DataSourceProperties primary,
+			@Value("${productcatalog.datasource.replica.url}") String url,
+			@Value("${productcatalog.datasource.replica.username:}") String username,
+			@Value("${productcatalog.datasource.replica.password:}") String password) {
+		HikariDataSource dataSource = DataSourceBuilder.create().type(HikariDataSource.class)
+				.driverClassName(primary.determineDriverClassName()).url(url)
+				.username(username.isEmpty() ? primary.determineUsername() : username)
+				.password(password.isEmpty() ? primary.determinePassword() : password).build();
+		dataSource.setPoolName("replica");
+		dataSource.setReadOnly(true);
+		return dataSource;
+	}
+
+	@Bean
+	public ReplicaLagMonitor replicaLagMonitor(@Qualifier("replicaDataSource") DataSource replicaDataSource,
+			@Value("${productcatalog.datasource.replica.max-lag-seconds:5}") long maxLagSeconds,
+			@Value("${productcatalog.datasource.replica.lag-check-enabled:true}") boolean lagCheckEnabled,
+			MeterRegistry registry) {
+		return new ReplicaLagMonitor(replicaDataSource, Duration.ofSeconds(maxLagSeconds), lagCheckEnabled, registry);
+	}
+
+	@Bean
+	@Primary
+	public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+			@Qualifier("replicaDataSource") DataSource replicaDataSource, ReplicaLagMonitor replicaLagMonitor) {
+		log.info("Read-only transactions go to the replica once it reports being in sync");
+		ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(replicaLagMonitor);
+		routing.setTargetDataSources(Map.of(Route.PRIMARY, primaryDataSource, Route.REPLICA, replicaDataSource));
+		routing.setDefaultTargetDataSource(primaryDataSource);
+		routing.afterPropertiesSet();
+		return new LazyConnectionDataSourceProxy(routing);
+	}
+}
@@ -0,0 +1,82 @@
+package com.productcatalog.app.config;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.productcatalog.app.repository.ApprovalQueueRepository;
+import com.productcatalog.app.repository.ProductRepository;
+import com.productcatalog.app.response.ProductCatalogConstants;
+
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Populates derived columns for rows written before those columns were added.
+ * Each statement only touches rows that still need it, so running it on every
+ * start is cheap once the data has been migrated.
+ *
+ * Runs once all singletons exist, which is before the web server starts
+ * accepting requests. The faststart profile turns it off with
+ * productcatalog.schema.backfill=false: it would make the deferred
+ * repositories ready before the web server starts, and instances started with
+ * it expect a migrated schema anyway.
+ */
+@Log4j2
+@Component
+@ConditionalOnProperty(name = "productcatalog.schema.backfill", havingValue = "true", matchIfMissing = true)
+public class SchemaBackfill implements SmartInitializingSingleton {
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private ApprovalQueueRepository approvalQueueRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Override
+	public void afterSingletonsInstantiated() {
+		realignIdSequence("product_seq", "product");
+		realignIdSequence("approval_queue_seq", "approval_queue");
+		int updated = productRepository.backfillNameLower();
+		if (updated > 0) {
+			log.info("Backfilled nameLower for {} products", updated);
+		}
+		updated = productRepository.backfillVersion();
+		if (updated > 0) {
+			log.info("Backfilled version for {} products", updated);
+		}
+		updated = approvalQueueRepository.backfillVersion();
+		if (updated > 0) {
+			log.info("Backfilled version for {} approval requests", updated);
+		}
+		updated = approvalQueueRepository.coalescePendingRequests();
+		if (updated > 0) {
+			log.warn("Merged {} duplicate pending approval requests, {} is created on the next start", updated,
+					ProductCatalogConstants.APPROVAL_QUEUE_PENDING_KEY);
+		}
+	}
+
+	/**
+	 * Ids used to come from an IDENTITY column. MySQL has no sequences, so
+	 * Hibernate keeps the next value in a one row table that starts at 1 when it
+	 * is created; move it past the ids already in use. Databases with native
+	 * sequences have no such table and are skipped.
+	 */
+	private void realignIdSequence(String sequenceTable, String entityTable) {
+		String maxId = "(SELECT COALESCE(MAX(id), 0) FROM " + entityTable + ")";
+		try {
+			int updated = jdbcTemplate.update("UPDATE " + sequenceTable + " SET next_val = " + maxId + " + ? WHERE next_val <= "
+					+ maxId, ProductCatalogConstants.ID_ALLOCATION_SIZE + 1);
+			if (updated > 0) {
+				log.info("Moved {} past the ids already used in {}", sequenceTable, entityTable);
+			}
+		} catch (DataAccessException e) {
+			log.debug("No id table {} to realign - {}", sequenceTable, e.getMessage());
+		}
+	}
+}
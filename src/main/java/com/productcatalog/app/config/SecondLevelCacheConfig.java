@@ -0,0 +1,79 @@
+package com.productcatalog.app.config;
+
+import java.net.URI;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import com.productcatalog.app.response.ProductCatalogConstants;
+
+/**
+ * Regions of the Hibernate second-level and query cache, held in a local
+ * Caffeine JCache manager.
+ *
+ * Product and ApprovalQueue rows are cached read-write, so the write and
+ * approval paths read them by id without a round trip and a committed change
+ * replaces the cached state. The query cache holds the results of the
+ * listing queries marked cacheable and is invalidated by any write to the
+ * tables they read. Every region is created here with its size and time to
+ * live, Hibernate fails on a region that is not.
+ *
+ * Statistics are on (hibernate.generate_statistics) and published by the
+ * actuator as hibernate.second.level.cache.* and hibernate.cache.query.*.
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+	/**
+	 * Each application context gets its own manager, so contexts that share a
+	 * JVM, like the test contexts, do not share regions.
+	 */
+	@Bean(destroyMethod = "close")
+	public CacheManager hibernateCacheManager(
+			@Value("${productcatalog.cache.entities.max-size:50000}") long entitiesMaxSize,
+			@Value("${productcatalog.cache.entities.ttl-seconds:600}") long entitiesTtlSeconds,
+			@Value("${productcatalog.cache.queries.max-size:1000}") long queriesMaxSize,
+			@Value("${productcatalog.cache.queries.ttl-seconds:60}") long queriesTtlSeconds) {
+		CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+		CacheManager cacheManager = provider.getCacheManager(URI.create("productcatalog-" + UUID.randomUUID()),
+				getClass().getClassLoader());
+		cacheManager.createCache(ProductCatalogConstants.PRODUCT_CACHE_REGION,
+				region(entitiesMaxSize, entitiesTtlSeconds));
+		cacheManager.createCache(ProductCatalogConstants.APPROVAL_QUEUE_CACHE_REGION,
+				region(entitiesMaxSize, entitiesTtlSeconds));
+		cacheManager.createCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME,
+				region(queriesMaxSize, queriesTtlSeconds));
+		// one entry per table, must outlive the query results it validates
+		cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME,
+				new CaffeineConfiguration<>());
+		return cacheManager;
+	}
+
+	@Bean
+	public HibernatePropertiesCustomizer secondLevelCache(CacheManager hibernateCacheManager) {
+		return properties -> {
+			properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+			properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+		};
+	}
+
+	private static CaffeineConfiguration<Object, Object> region(long maxSize, long ttlSeconds) {
+		CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+		configuration.setMaximumSize(OptionalLong.of(maxSize));
+		configuration.setExpireAfterWrite(OptionalLong.of(TimeUnit.SECONDS.toNanos(ttlSeconds)));
+		return configuration;
+	}
+}
@@ -0,0 +1,41 @@
+package com.productcatalog.app.config;
+
+import java.util.concurrent.Executors;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Opt-in virtual thread execution, enabled with
+ * productcatalog.threads.virtual.enabled=true.
+ *
+ * Tomcat hands every request to a new virtual thread instead of its bounded
+ * worker pool, so a request blocked on JDBC no longer holds a platform thread.
+ * The MVC async executor (used by the NDJSON stream) gets the same treatment.
+ * The database is still protected by the Hikari pool: at most
+ * maximum-pool-size requests talk to it at once and the rest wait for a
+ * connection, up to connection-timeout.
+ */
+@Log4j2
+@Configuration
+@ConditionalOnProperty(name = "productcatalog.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+	@Bean
+	public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+		log.info("Handling requests on virtual threads");
+		return protocolHandler -> protocolHandler.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+	}
+
+	@Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+	public AsyncTaskExecutor applicationTaskExecutor() {
+		return new TaskExecutorAdapter(Executors.newVirtualThreadPerTaskExecutor());
+	}
+}
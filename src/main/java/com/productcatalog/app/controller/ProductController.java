@@ -1,5 +1,14 @@
 package com.productcatalog.app.controller;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -8,7 +17,10 @@ import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -17,19 +29,41 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.productcatalog.app.cache.CatalogVersion;
+import com.productcatalog.app.exception.ConcurrentUpdateException;
+import com.productcatalog.app.exception.InvalidRequestException;
+import com.productcatalog.app.exception.PreconditionFailedException;
 import com.productcatalog.app.exception.ProductCatalogException;
 import com.productcatalog.app.exception.ResourceNotFoundException;
+import com.productcatalog.app.export.CatalogSnapshotExporter;
+import com.productcatalog.app.model.ApprovalBatchRequest;
 import com.productcatalog.app.model.ApprovalQueue;
+import com.productcatalog.app.model.ApprovalQueueCriteria;
 import com.productcatalog.app.model.Product;
-import com.productcatalog.app.model.Status;
-import com.productcatalog.app.repository.ApprovalQueueRepository;
-import com.productcatalog.app.repository.ProductRepository;
+import com.productcatalog.app.outbox.ChangeStream;
+import com.productcatalog.app.response.BatchReport;
+import com.productcatalog.app.response.CountResponse;
+import com.productcatalog.app.response.CursorPage;
+import com.productcatalog.app.response.FacetResponse;
+import com.productcatalog.app.response.ProductCatalogConstants;
+import com.productcatalog.app.response.ProductView;
+import com.productcatalog.app.response.ResponseHandler;
+import com.productcatalog.app.response.StatusMessage;
 import com.productcatalog.app.service.ProductService;
 
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.log4j.Log4j2;
 
 @Log4j2
@@ -38,36 +72,173 @@ import lombok.extern.log4j.Log4j2;
 @RequestMapping("/api/v1/products")
 public class ProductController {
 
+	/** the request attributes Tomcat's own DefaultServlet uses to hand a file to the connector */
+	private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+
+	private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+
+	private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+
+	private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+	@Autowired
+	private ProductService productService;
+
 	@Autowired
-	private ProductRepository productRepository;
+	private ObjectMapper objectMapper;
 
 	@Autowired
-	private ApprovalQueueRepository approvalQueueRepository;
+	private CatalogVersion catalogVersion;
 
 	@Autowired
-	private ProductService productService;
+	private ChangeStream changeStream;
+
+	/** only there when productcatalog.export.dir is set */
+	@Autowired(required = false)
+	private CatalogSnapshotExporter snapshotExporter;
 
 	/**
 	 * 
-	 * @returns a list of all active products
+	 * @returns a page of active products
 	 * 
-	 *          The controller provides an endpoint "/api/v1/products" to retrieve a
-	 *          list of active products.
+	 *          The controller provides an endpoint "/api/v1/products" to retrieve
+	 *          active products with the latest added record first.
 	 * 
-	 *          The method "listActiveProducts()" queries the database for products
-	 *          with the "ACTIVE" status and orders them with the latest added
-	 *          record first
+	 *          Results are keyset paginated on (postedDate, id). The optional
+	 *          "limit" param sets the page size and "pageToken" is the opaque
+	 *          nextPageToken returned with the previous page. The last page has
+	 *          no nextPageToken.
 	 * 
-	 *          and returns them as a list.
+	 *          The optional "fields" param, e.g. fields=id,name,price, limits
+	 *          the properties returned and the columns read for them.
+	 * 
+	 *          The response carries the catalog version as ETag and
+	 *          Last-Modified, polling with If-None-Match gets a 304 without a
+	 *          database query until a product changes.
 	 * 
 	 * 
 	 */
 	@GetMapping
-	public List<Product> listActiveProducts() {
+	public CursorPage<ProductView> listActiveProducts(@RequestParam(required = false) Integer limit,
+			@RequestParam(required = false) String pageToken, @RequestParam(required = false) String fields,
+			ServletWebRequest request) {
+		if (isCatalogUnchanged(request)) {
+			return null;
+		}
 		try {
-			return productRepository.findProductByStatusOrderByPostedDateDesc(Status.ACTIVE);
+			return productService.listActiveProducts(limit, pageToken, fields);
 		} catch (Exception e) {
-			throw new ProductCatalogException("Search Active Product Failed - " + e.getMessage());
+			throw failure("Search Active Product Failed", e);
+		}
+	}
+
+	/**
+	 * 
+	 * @returns all active products as newline delimited JSON
+	 * 
+	 *          Served for "Accept: application/x-ndjson" on "/api/v1/products".
+	 *          Every product is written out as soon as it is read from the
+	 *          database cursor, so memory use does not depend on the catalog size.
+	 * 
+	 * 
+	 */
+	@GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public ResponseEntity<StreamingResponseBody> streamActiveProducts() {
+		StreamingResponseBody body = out -> productService
+				.streamActiveProducts(product -> writeNdjsonLine(out, product));
+		return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).varyBy(HttpHeaders.ACCEPT).body(body);
+	}
+
+	/**
+	 * 
+	 * @returns the latest catalog snapshot
+	 * 
+	 *          The controller provides an endpoint "/api/v1/products/snapshot"
+	 *          serving the file written by the catalog export: every product in
+	 *          the columnar format read by CatalogSnapshot. Tomcat sends the file
+	 *          with sendfile (FileChannel.transferTo), the bytes go from the page
+	 *          cache to the socket without being copied through the JVM. The ETag
+	 *          names the snapshot, polling with If-None-Match gets a 304 until
+	 *          the next export.
+	 * 
+	 * 
+	 */
+	@GetMapping(value = "/snapshot", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+	public ResponseEntity<StreamingResponseBody> downloadCatalogSnapshot(HttpServletRequest request,
+			WebRequest webRequest) {
+		Path snapshot = snapshotExporter == null ? null : snapshotExporter.latest();
+		if (snapshot == null) {
+			throw new ResourceNotFoundException("No catalog snapshot has been exported");
+		}
+		if (webRequest.checkNotModified("\"" + snapshot.getFileName() + "\"")) {
+			return null;
+		}
+		long size;
+		try {
+			size = Files.size(snapshot);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(MediaType.APPLICATION_OCTET_STREAM)
+				.contentLength(size).header(HttpHeaders.CONTENT_DISPOSITION,
+						ContentDisposition.attachment().filename(snapshot.getFileName().toString()).build().toString());
+		if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+			request.setAttribute(SENDFILE_FILENAME, snapshot.toAbsolutePath().toString());
+			request.setAttribute(SENDFILE_START, 0L);
+			request.setAttribute(SENDFILE_END, size);
+			return response.build();
+		}
+		return response.body(out -> transferFile(snapshot, size, out));
+	}
+
+	/** without sendfile, e.g. behind a compressing connector or in MockMvc */
+	private static void transferFile(Path file, long size, OutputStream out) throws IOException {
+		try (FileChannel channel = FileChannel.open(file)) {
+			WritableByteChannel target = Channels.newChannel(out);
+			for (long sent = 0; sent < size;) {
+				sent += channel.transferTo(sent, size - sent, target);
+			}
+		}
+	}
+
+	/**
+	 * 
+	 * @returns product changes as Server-Sent Events
+	 * 
+	 *          The controller provides an endpoint "/api/v1/products/changes"
+	 *          that pushes every created, updated and deleted product as it is
+	 *          relayed from the outbox. A client resumes after the last change
+	 *          it has, on any instance, with the Last-Event-ID header (sent by
+	 *          EventSource on reconnect) or the "since" param. A "reset" event
+	 *          means changes were missed and the listing should be reloaded.
+	 * 
+	 * 
+	 */
+	@GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public SseEmitter streamChanges(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+			@RequestParam(required = false) String since) {
+		return changeStream.subscribe(lastEventId != null ? lastEventId : since);
+	}
+
+	/**
+	 * Sets ETag and Last-Modified from the catalog version, read before the
+	 * listing is queried, and turns the response into a 304 when the client
+	 * already has this version. JSON, Smile and CBOR are served under the same
+	 * URL and tag, so shared caches are told to key on Accept as well; Tomcat
+	 * adds Accept-Encoding when it compresses.
+	 */
+	private boolean isCatalogUnchanged(ServletWebRequest request) {
+		request.getResponse().addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+		CatalogVersion.Stamp stamp = catalogVersion.current();
+		return request.checkNotModified(stamp.eTag(), stamp.lastModified().toEpochMilli());
+	}
+
+	private void writeNdjsonLine(OutputStream out, Object value) {
+		try {
+			out.write(objectMapper.writeValueAsBytes(value));
+			out.write('\n');
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
 		}
 	}
 
@@ -90,26 +261,106 @@ public class ProductController {
 	 * 
 	 *          and returns them as a list.
 	 * 
+	 *          Like the listing, takes an optional "fields" param and answers
+	 *          If-None-Match with a 304 while the catalog version is unchanged.
 	 * 
 	 * 
 	 */
 	@GetMapping("/search")
-	public ResponseEntity<List<Product>> searchProducts(
+	public ResponseEntity<List<ProductView>> searchProducts(
 			@RequestParam(required = false) String productName, 
 			@RequestParam(required = false) Double minPrice,
 			@RequestParam(required = false) Double maxPrice,
 			@Valid @RequestParam  (required = false) LocalDateTime minPostedDate,
-			@Valid @RequestParam (required = false)  LocalDateTime maxPostedDate) {
+			@Valid @RequestParam (required = false)  LocalDateTime maxPostedDate,
+			@RequestParam(required = false) String fields, ServletWebRequest request) {
+		if (isCatalogUnchanged(request)) {
+			return null;
+		}
 		try {
-		return productService.searchProductsBasedOnSearchCriteria(productName,minPrice,maxPrice, minPostedDate, maxPostedDate);
-		} 
-		catch (IllegalArgumentException e ) {
-			throw new IllegalArgumentException(e.getMessage());
+		return productService.searchProductsBasedOnSearchCriteria(productName,minPrice,maxPrice, minPostedDate, maxPostedDate, fields);
+		} catch (Exception e) {
+			throw failure("Search Product based on criteria failed", e);
 		}
-		catch (Exception e) {
-			throw new ProductCatalogException("Search Product based on criteria failed - " + e.getMessage());
+
+	}
+
+	/**
+	 * 
+	 * @returns counts of active products by price bucket and posted day
+	 * 
+	 *          The controller provides an endpoint "/api/v1/products/facets"
+	 *          that takes the same optional params as "/api/v1/products/search"
+	 *          and counts the matching products per price bucket (500 wide, up
+	 *          to the maximum price) and per posted day. Counts are kept in
+	 *          memory and updated on every change, the database is not queried.
+	 *          Answers If-None-Match with a 304 while the catalog is unchanged.
+	 * 
+	 * 
+	 */
+	@GetMapping("/facets")
+	public FacetResponse getProductFacets(@RequestParam(required = false) String productName,
+			@RequestParam(required = false) Double minPrice,
+			@RequestParam(required = false) Double maxPrice,
+			@RequestParam(required = false) LocalDateTime minPostedDate,
+			@RequestParam(required = false) LocalDateTime maxPostedDate, ServletWebRequest request) {
+		if (isCatalogUnchanged(request)) {
+			return null;
+		}
+		try {
+			return productService.getProductFacets(productName, minPrice, maxPrice, minPostedDate, maxPostedDate);
+		} catch (Exception e) {
+			throw failure("Product facets failed", e);
+		}
+	}
+
+	/**
+	 * 
+	 * @returns active products whose name matches a free text query, best match first
+	 * 
+	 *          The controller provides an endpoint "/api/v1/products/search/name"
+	 *          for storefront search boxes. Every word of "query" has to match a
+	 *          word of the product name exactly, as its beginning ("sho" finds
+	 *          "Shoes") or with a typo ("blutooth" finds "Bluetooth"). Accents and
+	 *          case are ignored. The optional "limit" param caps the number of
+	 *          results, 20 by default, and "fields" works as on the listing.
+	 * 
+	 *          Served from an in-memory index of active product names, the
+	 *          database is only read for products missing from the product cache.
+	 * 
+	 * 
+	 */
+	@GetMapping("/search/name")
+	public List<ProductView> searchProductsByName(@RequestParam String query,
+			@RequestParam(required = false) Integer limit, @RequestParam(required = false) String fields) {
+		try {
+			return productService.searchProductsByName(query, limit, fields);
+		} catch (Exception e) {
+			throw failure("Search Product by name failed", e);
 		}
+	}
 
+	/**
+	 * 
+	 * @returns a single active product by its ID.
+	 * 
+	 *          The controller provides a GET endpoint
+	 *          "/api/v1/products/{productId}". Active products are served from
+	 *          an in-memory cache that is invalidated whenever the product is
+	 *          changed. Returns 404 if the product does not exist or is inactive.
+	 *          The ETag header carries the product version, send it back as
+	 *          If-Match on the PUT to make sure nobody changed it in between.
+	 * 
+	 * 
+	 */
+	@GetMapping("/{productId}")
+	public ResponseEntity<Product> getProduct(@PathVariable("productId") @Min(1) Long productId) {
+		try {
+			Product product = productService.getActiveProduct(productId);
+			return ResponseEntity.ok().eTag(String.valueOf(product.getVersion())).body(product);
+		} catch (Exception e) {
+			throw failure("Get Product Failed", e);
+		}
 	}
 
 	/**
@@ -127,15 +378,48 @@ public class ProductController {
 	 * 
 	 */
 	@PostMapping
-	public ResponseEntity<Object> createProduct(@RequestBody @Valid Product product) {
+	public ResponseEntity<StatusMessage> createProduct(@RequestBody @Valid Product product) {
 		try {
 			return productService.createProductwithApprovalCheck(product);
-		} catch (IllegalArgumentException e) {
-			throw new IllegalArgumentException(e.getMessage());
 		} catch (Exception e) {
-			throw new ProductCatalogException("Create Product Failed - " + e.getMessage());
+			throw failure("Create Product Failed", e);
+		}
+
+	}
+
+	/**
+	 * 
+	 * @creates many products in one request.
+	 * 
+	 *          The controller provides a POST endpoint "/api/v1/products/bulk"
+	 *          that accepts either a JSON array of products or, for large loads,
+	 *          newline delimited JSON (Content-Type application/x-ndjson) which
+	 *          is read item by item as it arrives. Each product goes through the
+	 *          same approval checks as a single create and the response reports
+	 *          the outcome of every item by its position in the request.
+	 * 
+	 * 
+	 */
+	@PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+	public BatchReport bulkCreateProducts(@RequestBody List<Product> products) {
+		if (products.size() > ProductCatalogConstants.MAX_BULK_JSON_ITEMS) {
+			throw new InvalidRequestException("A JSON bulk request can hold at most "
+					+ ProductCatalogConstants.MAX_BULK_JSON_ITEMS + " products, send larger loads as NDJSON");
+		}
+		try {
+			return productService.bulkCreateProducts(products.iterator());
+		} catch (Exception e) {
+			throw failure("Bulk Create Product Failed", e);
 		}
+	}
 
+	@PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+	public BatchReport bulkCreateProductsFromStream(InputStream body) {
+		try (MappingIterator<Product> products = objectMapper.readerFor(Product.class).readValues(body)) {
+			return productService.bulkCreateProducts(products);
+		} catch (Exception e) {
+			throw failure("Bulk Create Product Failed", e);
+		}
 	}
 
 	/**
@@ -150,18 +434,21 @@ public class ProductController {
 	 *         "productService.updateProductWithApprovalCheck()" method, which
 	 *         includes approval checks.
 	 * 
+	 *         An optional If-Match header with the ETag from the GET makes the
+	 *         update fail with 412 when the product changed since it was read.
+	 *         An update that races another one fails with 409.
+	 * 
 	 * 
 	 */
 	@PutMapping(value = "/{productId}")
-	ResponseEntity<Object> updateProduct(@PathVariable("productId") @Min(1) Long id,
-			@Valid @RequestBody Product product) {
+	ResponseEntity<StatusMessage> updateProduct(@PathVariable("productId") @Min(1) Long id,
+			@Valid @RequestBody Product product,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+		Long expectedVersion = versionFromIfMatch(ifMatch);
 		try {
-			return productService.updateProductWithApprovalCheck(id, product);
-		} 
-		catch (IllegalArgumentException e) {
-			throw new IllegalArgumentException(e.getMessage());
+			return productService.updateProductWithApprovalCheck(id, product, expectedVersion);
 		} catch (Exception e) {
-			throw new ProductCatalogException("Update Product Failed - " + e.getMessage());
+			throw failure("Update Product Failed", e);
 		}
 	}
 
@@ -179,43 +466,71 @@ public class ProductController {
 	 * 
 	 */
 	@DeleteMapping("/{productId}")
-	public ResponseEntity<Object> deleteProduct(@PathVariable("productId") @NotNull Long productId) {
+	public ResponseEntity<StatusMessage> deleteProduct(@PathVariable("productId") @NotNull Long productId) {
 
 		try {
 			if (productId == null) {
-				return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Product ID cannot be null");
+				return ResponseHandler.generateResponse("Product ID cannot be null", HttpStatus.BAD_REQUEST);
 			}
 			return productService.deleteProductWithApproval(productId);
 		} catch (Exception e) {
-			throw new ProductCatalogException("Delete Product Failed - " + e.getMessage());
+			throw failure("Delete Product Failed", e);
 		}
 
 	}
 
 	/**
 	 * 
-	 * @get all the records which are in pending approval status.
+	 * @get a page of the records in the approval queue, oldest request first.
 	 * 
-	 *      The controller provides a PUT endpoint
-	 *      "/api/v1/products/approval-queue/{approvalId}/approve" to approve a
-	 *      product in the approval queue by its approval ID. The method
-	 *      "approveProduct()" accepts the approval ID as a path variable. It
-	 *      ensures that the approvalId is not null and then calls the
-	 *      "productService.approveProduct()" method to handle the approval process.
+	 *      The controller provides a GET endpoint "/api/v1/products/approval-queue"
+	 *      that lists approval requests with optional filters on approvalAction
+	 *      (PENDING unless given), productId and the request date range
+	 *      minRequestDate/maxRequestDate. Results are keyset paginated on
+	 *      (approvalRequestDate, id) with "limit" and "pageToken" the same way as
+	 *      the product listing.
 	 * 
 	 * 
 	 */
 	@GetMapping("/approval-queue")
-	public List<ApprovalQueue> getAllProductsInApprovalQueue() {
+	public CursorPage<ApprovalQueue> getAllProductsInApprovalQueue(
+			@RequestParam(defaultValue = "PENDING") String approvalAction,
+			@RequestParam(required = false) Long productId,
+			@RequestParam(required = false) LocalDateTime minRequestDate,
+			@RequestParam(required = false) LocalDateTime maxRequestDate,
+			@RequestParam(required = false) Integer limit,
+			@RequestParam(required = false) String pageToken) {
 
 		try {
-			return approvalQueueRepository.findAllByOrderByApprovalRequestDateAsc();
+			return productService.listApprovalQueue(
+					new ApprovalQueueCriteria(approvalAction, productId, minRequestDate, maxRequestDate), limit, pageToken);
 		} catch (Exception e) {
-			throw new ProductCatalogException("Error while retriving records in Approval Queue" + e.getMessage());
+			throw failure("Error while retriving records in Approval Queue", e);
 		}
 
 	}
 
+	/**
+	 * 
+	 * @get the number of records in the approval queue matching the same
+	 *      filters as the listing. Only a count is run, no rows are read.
+	 * 
+	 * 
+	 */
+	@GetMapping("/approval-queue/count")
+	public CountResponse countProductsInApprovalQueue(
+			@RequestParam(defaultValue = "PENDING") String approvalAction,
+			@RequestParam(required = false) Long productId,
+			@RequestParam(required = false) LocalDateTime minRequestDate,
+			@RequestParam(required = false) LocalDateTime maxRequestDate) {
+		try {
+			return new CountResponse(productService.countApprovalQueue(
+					new ApprovalQueueCriteria(approvalAction, productId, minRequestDate, maxRequestDate)));
+		} catch (Exception e) {
+			throw failure("Error while counting records in Approval Queue", e);
+		}
+	}
+
 	/**
 	 * 
 	 * @put this endpoint is used to approve the records.
@@ -230,30 +545,94 @@ public class ProductController {
 	 * 
 	 */
 	@PutMapping("/approval-queue/{approvalId}/approve")
-	public ResponseEntity<Object> approveProduct(@PathVariable Long approvalId) { //
+	public ResponseEntity<StatusMessage> approveProduct(@PathVariable Long approvalId,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) { //
+		Long expectedVersion = versionFromIfMatch(ifMatch);
 		try {
 			
-			return productService.approveProduct(approvalId);
-		} 
-		
-		catch (ResourceNotFoundException e) {
-			throw new ResourceNotFoundException(e.getMessage());
-		} 
-		catch (Exception e) {
-			throw new ProductCatalogException("Error while processing records in Approval Queue"  + e.getMessage());
+			return productService.approveProduct(approvalId, expectedVersion);
+		} catch (Exception e) {
+			throw failure("Error while processing records in Approval Queue", e);
 		}
 	}
 
 	@PutMapping("/approval-queue/{approvalId}/reject")
-	public ResponseEntity<Object> rejectProduct(@PathVariable Long approvalId) { //
+	public ResponseEntity<StatusMessage> rejectProduct(@PathVariable Long approvalId,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) { //
+		Long expectedVersion = versionFromIfMatch(ifMatch);
+		try {
+						return productService.rejectProduct(approvalId, expectedVersion);
+		} catch (Exception e) {
+			throw failure("Error while processing records in Approval Queue", e);
+		}
+	}
+
+	/**
+	 * 
+	 * @put approves or rejects many approval queue records in one request.
+	 * 
+	 *      The controller provides PUT endpoints
+	 *      "/api/v1/products/approval-queue/approve" and
+	 *      "/api/v1/products/approval-queue/reject" that accept a JSON body
+	 *      {"approvalIds": [...]}. All records are processed in one transaction
+	 *      and the response holds the outcome for each approval ID in the order
+	 *      they were sent.
+	 * 
+	 * 
+	 */
+	@PutMapping("/approval-queue/approve")
+	public BatchReport approveProducts(@RequestBody ApprovalBatchRequest request) {
 		try {
-						return productService.rejectProduct(approvalId);
-		} 
-		catch (ResourceNotFoundException e) {
-			throw new ResourceNotFoundException(e.getLocalizedMessage());
+			return productService.approveProducts(request.getApprovalIds());
 		} catch (Exception e) {
-			throw new ProductCatalogException("Error while processing records in Approval Queue " + e.getMessage());
+			throw failure("Error while processing records in Approval Queue", e);
+		}
+	}
+
+	@PutMapping("/approval-queue/reject")
+	public BatchReport rejectProducts(@RequestBody ApprovalBatchRequest request) {
+		try {
+			return productService.rejectProducts(request.getApprovalIds());
+		} catch (Exception e) {
+			throw failure("Error while processing records in Approval Queue", e);
+		}
+	}
+
+	/**
+	 * The version carried by an If-Match header, null when the header is absent
+	 * or "*". Weak and strong ETags are both accepted.
+	 */
+	private Long versionFromIfMatch(String ifMatch) {
+		if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+			return null;
+		}
+		String tag = ifMatch.trim();
+		if (tag.startsWith("W/")) {
+			tag = tag.substring(2);
+		}
+		try {
+			return Long.valueOf(tag.replace("\"", ""));
+		} catch (NumberFormatException e) {
+			throw new InvalidRequestException("If-Match should hold an ETag returned by this service");
+		}
+	}
+
+	/**
+	 * Client errors from the service reach the exception handlers as thrown and
+	 * a body that cannot be parsed is a 400, anything else is reported as a
+	 * failure of the operation with its cause.
+	 */
+	private static RuntimeException failure(String operation, Exception e) {
+		if (e instanceof IllegalArgumentException || e instanceof ResourceNotFoundException
+				|| e instanceof PreconditionFailedException || e instanceof ConcurrentUpdateException
+				|| e instanceof ProductCatalogException) {
+			return (RuntimeException) e;
+		}
+		if (e instanceof JsonProcessingException json) {
+			return ProductCatalogException.clientError(HttpStatus.BAD_REQUEST.value(),
+					operation + " - " + json.getOriginalMessage(), e);
 		}
+		return new ProductCatalogException(operation + " - " + e.getMessage(), e);
 	}
 
 }
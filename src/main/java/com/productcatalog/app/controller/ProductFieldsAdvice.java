@@ -0,0 +1,47 @@
+package com.productcatalog.app.controller;
+
+import java.util.Set;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.AbstractMappingJacksonResponseBodyAdvice;
+
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.productcatalog.app.response.ProductView;
+
+/**
+ * Writes only the {@link ProductView} properties named in the "fields"
+ * request param. The service has already read only those columns, this drops
+ * the nulls left for the others from the response.
+ */
+@ControllerAdvice(assignableTypes = ProductController.class)
+public class ProductFieldsAdvice extends AbstractMappingJacksonResponseBodyAdvice {
+
+	private static final FilterProvider ALL_FIELDS = new SimpleFilterProvider()
+			.addFilter(ProductView.FIELDS_FILTER, SimpleBeanPropertyFilter.serializeAll());
+
+	@Override
+	protected void beforeBodyWriteInternal(MappingJacksonValue bodyContainer, MediaType contentType,
+			MethodParameter returnType, ServerHttpRequest request, ServerHttpResponse response) {
+		String fields = request instanceof ServletServerHttpRequest servletRequest
+				? servletRequest.getServletRequest().getParameter("fields")
+				: null;
+		Set<String> selected;
+		try {
+			selected = ProductView.parseFields(fields);
+		} catch (IllegalArgumentException e) {
+			// already answered with a 400, nothing to filter
+			selected = null;
+		}
+		bodyContainer.setFilters(selected == null ? ALL_FIELDS
+				: new SimpleFilterProvider().addFilter(ProductView.FIELDS_FILTER,
+						SimpleBeanPropertyFilter.filterOutAllExcept(selected)));
+	}
+}
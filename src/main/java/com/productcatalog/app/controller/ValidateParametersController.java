@@ -2,6 +2,7 @@ package com.productcatalog.app.controller;
 
 import javax.validation.ConstraintViolationException;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -15,9 +16,12 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
+import com.productcatalog.app.exception.ConcurrentUpdateException;
+import com.productcatalog.app.exception.PreconditionFailedException;
 import com.productcatalog.app.exception.ProductCatalogException;
 import com.productcatalog.app.exception.ResourceNotFoundException;
 import com.productcatalog.app.exception.ViolationError;
+import com.productcatalog.app.metrics.ProductCatalogMetrics;
 import com.productcatalog.app.response.ValidationErrorResponse;
  
 
@@ -28,27 +32,33 @@ class ValidateParametersController {
 
 	// request mapping method omitted
 
+	@Autowired
+	private ProductCatalogMetrics metrics;
+
 	@ExceptionHandler(ConstraintViolationException.class)
 	@ResponseStatus(HttpStatus.BAD_REQUEST)
 	ResponseEntity<String> handleConstraintViolationException(ConstraintViolationException e) {
+		metrics.exceptionHandled("handleConstraintViolationException", e);
 		return new ResponseEntity<>("not valid due to validation error: " + e.getMessage(), HttpStatus.BAD_REQUEST);
 	}
 
+	/** answered with the status the exception carries, 500 if it has none */
 	@ExceptionHandler(ProductCatalogException.class)
-	@ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
-	@ResponseBody
-	ValidationErrorResponse handleProductCatalogException(ProductCatalogException e) {
+	ResponseEntity<ValidationErrorResponse> handleProductCatalogException(ProductCatalogException e) {
+		metrics.exceptionHandled("handleProductCatalogException", e);
 		ValidationErrorResponse error = new ValidationErrorResponse();
 
 		error.getViolations().add(new ViolationError(e.getMessage(), e.getLocalizedMessage(), e.getCode()));
 
-		return error;
+		return ResponseEntity.status(e.getStatus() > 0 ? e.getStatus() : HttpStatus.INTERNAL_SERVER_ERROR.value())
+				.body(error);
 	}
 
 	@ExceptionHandler(MethodArgumentNotValidException.class)
 	@ResponseStatus(HttpStatus.BAD_REQUEST)
 	@ResponseBody
 	ValidationErrorResponse onMethodArgumentNotValidException(MethodArgumentNotValidException e) {
+		metrics.exceptionHandled("onMethodArgumentNotValidException", e);
 		ValidationErrorResponse error = new ValidationErrorResponse();
 		for (FieldError fieldError : e.getBindingResult().getFieldErrors()) {
 			error.getViolations().add(
@@ -61,6 +71,7 @@ class ValidateParametersController {
 	@ResponseStatus(HttpStatus.BAD_REQUEST)
 	@ResponseBody
 	ValidationErrorResponse onMethodArgumentTypeMismatchException(MethodArgumentTypeMismatchException e) {
+		metrics.exceptionHandled("onMethodArgumentTypeMismatchException", e);
 		ValidationErrorResponse error = new ValidationErrorResponse();
 		if (e.getPropertyName().equalsIgnoreCase("minPostedDate")
 				|| e.getPropertyName().equalsIgnoreCase("maxPostedDate")) {
@@ -76,6 +87,7 @@ class ValidateParametersController {
 	@ResponseStatus(HttpStatus.BAD_REQUEST)
 	@ResponseBody
 	ValidationErrorResponse onIllegalArgumentException(IllegalArgumentException e) {
+		metrics.exceptionHandled("onIllegalArgumentException", e);
 		ValidationErrorResponse error = new ValidationErrorResponse();
 		error.getViolations().add(new ViolationError(null, e.getMessage(), e.getLocalizedMessage()));
 		return error;
@@ -85,16 +97,38 @@ class ValidateParametersController {
 	@ResponseStatus(HttpStatus.NOT_FOUND)
 	@ResponseBody
 	ValidationErrorResponse onResourceNotFoundException(ResourceNotFoundException e) {
+		metrics.exceptionHandled("onResourceNotFoundException", e);
 		ValidationErrorResponse error = new ValidationErrorResponse();
 		error.getViolations().add(new ViolationError(null, e.getMessage(), e.getLocalizedMessage()));
 		return error;
 	}
 	
 	
+	@ExceptionHandler(PreconditionFailedException.class)
+	@ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+	@ResponseBody
+	ValidationErrorResponse onPreconditionFailedException(PreconditionFailedException e) {
+		metrics.exceptionHandled("onPreconditionFailedException", e);
+		ValidationErrorResponse error = new ValidationErrorResponse();
+		error.getViolations().add(new ViolationError(null, e.getMessage(), e.getLocalizedMessage()));
+		return error;
+	}
+
+	@ExceptionHandler(ConcurrentUpdateException.class)
+	@ResponseStatus(HttpStatus.CONFLICT)
+	@ResponseBody
+	ValidationErrorResponse onConcurrentUpdateException(ConcurrentUpdateException e) {
+		metrics.exceptionHandled("onConcurrentUpdateException", e);
+		ValidationErrorResponse error = new ValidationErrorResponse();
+		error.getViolations().add(new ViolationError(null, e.getMessage(), e.getLocalizedMessage()));
+		return error;
+	}
+
 	@ExceptionHandler(HttpMessageNotReadableException.class)
 	@ResponseStatus(HttpStatus.BAD_REQUEST)
 	@ResponseBody
 	ValidationErrorResponse onHttpMessageNotReadableException(HttpMessageNotReadableException e) {
+		metrics.exceptionHandled("onHttpMessageNotReadableException", e);
 		ValidationErrorResponse error = new ValidationErrorResponse();
 		error.getViolations().add(new ViolationError(null, e.getMessage(), e.getLocalizedMessage()));
 		return error;
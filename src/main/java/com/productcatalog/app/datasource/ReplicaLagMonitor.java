@@ -0,0 +1,110 @@
+package com.productcatalog.app.datasource;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.productcatalog.app.event.ProductChangedEvent;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Decides whether reads may go to the replica. Every
+ * productcatalog.datasource.replica.lag-check-ms the replica is asked how far
+ * it is behind the primary (SHOW REPLICA STATUS, MySQL 8.0.22 and later) and
+ * it is only used while that is at most max-lag. A replica that cannot be
+ * reached, is not replicating or has not been checked yet is not used, so
+ * reads fall back to the primary.
+ *
+ * After a product change reads also stay on the primary until a check that
+ * started after the change reports a lag that does not reach back to it, so
+ * a reader never sees an older catalog than the CatalogVersion it was given.
+ *
+ * With lag-check-enabled=false only reachability is checked, for running
+ * against two local databases that are not set up for replication.
+ */
+@Log4j2
+public class ReplicaLagMonitor {
+
+	private final JdbcTemplate replica;
+
+	private final Duration maxLag;
+
+	private final boolean lagCheckEnabled;
+
+	private volatile boolean replicaUsable;
+
+	/** last lag reported by the replica in seconds, -1 when unknown */
+	private volatile long lagSeconds = -1;
+
+	/** System.nanoTime() when the last lag check started */
+	private volatile long checkedAt;
+
+	/** System.nanoTime() when the last product change was committed */
+	private volatile long lastChangeAt = System.nanoTime();
+
+	public ReplicaLagMonitor(DataSource replicaDataSource, Duration maxLag, boolean lagCheckEnabled,
+			MeterRegistry registry) {
+		this.replica = new JdbcTemplate(replicaDataSource);
+		this.maxLag = maxLag;
+		this.lagCheckEnabled = lagCheckEnabled;
+		Gauge.builder("productcatalog.datasource.replica.lag", this, monitor -> monitor.lagSeconds)
+				.description("Replication lag reported by the replica, -1 when unknown").baseUnit("seconds")
+				.register(registry);
+		Gauge.builder("productcatalog.datasource.replica.usable", this, monitor -> monitor.replicaUsable ? 1 : 0)
+				.description("1 while read-only transactions are routed to the replica").register(registry);
+	}
+
+	public boolean isReplicaUsable() {
+		return replicaUsable && (!lagCheckEnabled || hasLastChange());
+	}
+
+	/** Seconds_Behind_Source is rounded down to whole seconds, hence the extra second */
+	private boolean hasLastChange() {
+		return checkedAt - TimeUnit.SECONDS.toNanos(lagSeconds + 1) > lastChangeAt;
+	}
+
+	@Order(ProductChangedEvent.INVALIDATE_ORDER)
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onProductChanged(ProductChangedEvent event) {
+		lastChangeAt = System.nanoTime();
+	}
+
+	@Scheduled(fixedDelayString = "${productcatalog.datasource.replica.lag-check-ms:1000}")
+	public void check() {
+		boolean usable;
+		long startedAt = System.nanoTime();
+		try {
+			if (lagCheckEnabled) {
+				Long lag = replica.query("SHOW REPLICA STATUS",
+						rs -> rs.next() ? rs.getObject("Seconds_Behind_Source", Long.class) : null);
+				lagSeconds = lag == null ? -1 : lag;
+				usable = lag != null && lag <= maxLag.toSeconds();
+			} else {
+				replica.execute("SELECT 1");
+				usable = true;
+			}
+		} catch (DataAccessException e) {
+			log.debug("Replica check failed - {}", e.getMessage());
+			lagSeconds = -1;
+			usable = false;
+		}
+		if (usable && !replicaUsable) {
+			log.info("Routing read-only transactions to the replica");
+		} else if (!usable && replicaUsable) {
+			log.warn("Replica unreachable or more than {}s behind (lag {}s), reading from the primary",
+					maxLag.toSeconds(), lagSeconds);
+		}
+		checkedAt = startedAt;
+		replicaUsable = usable;
+	}
+}
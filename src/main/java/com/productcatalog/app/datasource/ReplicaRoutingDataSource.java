@@ -0,0 +1,65 @@
+package com.productcatalog.app.datasource;
+
+import java.util.function.Supplier;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends connections for read-only transactions to the replica and everything
+ * else to the primary. The replica is skipped while {@link ReplicaLagMonitor}
+ * reports it too far behind or unreachable.
+ *
+ * The read-only flag is only known once the transaction has started, so this
+ * data source has to sit behind a LazyConnectionDataSourceProxy that fetches
+ * the real connection on the first statement.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+	public enum Route {
+		PRIMARY, REPLICA
+	}
+
+	private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = new ThreadLocal<>();
+
+	private final ReplicaLagMonitor lagMonitor;
+
+	public ReplicaRoutingDataSource(ReplicaLagMonitor lagMonitor) {
+		this.lagMonitor = lagMonitor;
+	}
+
+	/**
+	 * Runs work on the primary even inside a read-only transaction, for reads
+	 * that must see the latest committed write, such as loading a cache entry
+	 * right after a change invalidated it. Only effective if the transaction
+	 * has not used a connection yet.
+	 */
+	public static <T> T onPrimary(Supplier<T> work) {
+		boolean outermost = PRIMARY_REQUIRED.get() == null;
+		PRIMARY_REQUIRED.set(Boolean.TRUE);
+		try {
+			return work.get();
+		} finally {
+			if (outermost) {
+				PRIMARY_REQUIRED.remove();
+			}
+		}
+	}
+
+	/**
+	 * Whether a connection fetched now would come from the replica, for reads
+	 * whose results are cached and so must not come from a replica that is
+	 * behind.
+	 *
+	 * @param lagMonitor - null when there is no replica
+	 */
+	public static boolean routesToReplica(ReplicaLagMonitor lagMonitor) {
+		return lagMonitor != null && TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+				&& PRIMARY_REQUIRED.get() == null && lagMonitor.isReplicaUsable();
+	}
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		return routesToReplica(lagMonitor) ? Route.REPLICA : Route.PRIMARY;
+	}
+}
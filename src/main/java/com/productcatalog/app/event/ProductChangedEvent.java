@@ -0,0 +1,52 @@
+package com.productcatalog.app.event;
+
+import org.springframework.core.Ordered;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+/**
+ * Published by the service whenever a write changes a product in the catalog.
+ * Listeners that keep derived state (caches, indexes) should react after the
+ * surrounding transaction commits.
+ *
+ * Listeners are ordered with the constants below, the ones that drop cached or
+ * replicated state run before the ones that tell clients about the change.
+ *
+ * Changes made on other instances reach the listeners as replayed events, read
+ * back from the outbox after they are relayed. They carry the current state of
+ * the product and are published outside any transaction.
+ */
+@Value
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class ProductChangedEvent {
+
+	/** order of the listeners that drop or update state derived from the product */
+	public static final int INVALIDATE_ORDER = 0;
+
+	/**
+	 * order of the listeners that announce the change, a client reacting to it
+	 * then reads the new data
+	 */
+	public static final int PUBLISH_ORDER = Ordered.LOWEST_PRECEDENCE;
+
+	Long productId;
+
+	/** state before the change, null when the product was just created or the event is replayed */
+	ProductState before;
+
+	/** state after the change, null when a replayed product no longer exists */
+	ProductState after;
+
+	/** read back from the outbox, possibly a change made on another instance */
+	boolean replayed;
+
+	public ProductChangedEvent(Long productId, ProductState before, ProductState after) {
+		this(productId, before, after, false);
+	}
+
+	public static ProductChangedEvent replayed(Long productId, ProductState current) {
+		return new ProductChangedEvent(productId, null, current, true);
+	}
+}
@@ -0,0 +1,32 @@
+package com.productcatalog.app.event;
+
+import java.time.LocalDateTime;
+
+import com.productcatalog.app.model.Product;
+import com.productcatalog.app.model.Status;
+
+import lombok.Value;
+
+/**
+ * Immutable copy of the catalog relevant fields of a product at one point in
+ * time.
+ */
+@Value
+public class ProductState {
+
+	String name;
+
+	Double price;
+
+	Status status;
+
+	LocalDateTime postedDate;
+
+	public static ProductState of(Product product) {
+		return new ProductState(product.getName(), product.getPrice(), product.getStatus(), product.getPostedDate());
+	}
+
+	public boolean isActive() {
+		return status == Status.ACTIVE;
+	}
+}
@@ -0,0 +1,14 @@
+package com.productcatalog.app.exception;
+
+/**
+ * A change lost the race against a concurrent change to the same row and was
+ * rolled back. Created without a stack trace, like the other 4xx exceptions.
+ */
+public class ConcurrentUpdateException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public ConcurrentUpdateException(String message) {
+		super(message, null, false, false);
+	}
+}
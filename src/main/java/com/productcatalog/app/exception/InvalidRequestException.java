@@ -0,0 +1,20 @@
+package com.productcatalog.app.exception;
+
+/**
+ * A request the service refuses, answered with a 400. Validation failures are
+ * frequent and fully described by the message, so no stack trace is filled
+ * in, which is most of the cost of throwing.
+ */
+public class InvalidRequestException extends IllegalArgumentException {
+
+	private static final long serialVersionUID = 1L;
+
+	public InvalidRequestException(String message) {
+		super(message);
+	}
+
+	@Override
+	public synchronized Throwable fillInStackTrace() {
+		return this;
+	}
+}
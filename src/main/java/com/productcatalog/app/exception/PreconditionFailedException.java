@@ -0,0 +1,15 @@
+package com.productcatalog.app.exception;
+
+/**
+ * The version sent in If-Match no longer matches the stored one, the client
+ * has to reload the resource before changing it. Created without a stack
+ * trace, like the other 4xx exceptions.
+ */
+public class PreconditionFailedException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public PreconditionFailedException(String message) {
+		super(message, null, false, false);
+	}
+}
@@ -62,6 +62,39 @@ public class ProductCatalogException extends RuntimeException {
 	public ProductCatalogException(String message, Throwable cause) {
 		super(message, cause);
 	}
+
+	/**
+	 * ProductCatalogException with message and root cause, optionally without
+	 * a stack trace
+	 * 
+	 * @param message            - message to set
+	 * @param cause              - root cause
+	 * @param writableStackTrace - false for errors expected in normal operation,
+	 *                           filling in the stack trace is most of the cost
+	 *                           of throwing
+	 */
+	public ProductCatalogException(String message, Throwable cause, boolean writableStackTrace) {
+		super(message, cause, true, writableStackTrace);
+	}
+
+	/**
+	 * ProductCatalogException for a request the client has to correct, created
+	 * without a stack trace
+	 * 
+	 * @param status  - 4xx HTTP status code to answer with
+	 * @param message - message to set
+	 * @param cause   - root cause
+	 * @return the exception, not thrown yet
+	 */
+	public static ProductCatalogException clientError(int status, String message, Throwable cause) {
+		if (status < 400 || status > 499) {
+			throw new IllegalArgumentException("Not a client error status: " + status);
+		}
+		ProductCatalogException e = new ProductCatalogException(message, cause, false);
+		e.status = status;
+		e.severity = Severity.RETRIABLE;
+		return e;
+	}
 	
 
 
@@ -1,5 +1,9 @@
 package com.productcatalog.app.exception;
 
+/**
+ * The requested product or approval request does not exist, answered with a
+ * 404. Expected in normal operation, so created without a stack trace.
+ */
 public class ResourceNotFoundException extends RuntimeException {
 
 	private static final long serialVersionUID = 1L;
@@ -42,6 +46,7 @@ public class ResourceNotFoundException extends RuntimeException {
 	}
 
 	public ResourceNotFoundException(String message) {
+		super(message, null, false, false);
 		this.message = message;
 	}
 	
@@ -52,7 +57,7 @@ public class ResourceNotFoundException extends RuntimeException {
 	 * @param message  - error message describing the detail about the error
 	 */
 	public ResourceNotFoundException(String message, String code) {
-		super(message);
+		super(message, null, false, false);
 		this.message = message;
 		this.systemErrorCode = code;
 	}
@@ -0,0 +1,220 @@
+package com.productcatalog.app.export;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import com.productcatalog.app.model.Status;
+
+/**
+ * Read-only view of a catalog snapshot file, memory-mapped so that opening it
+ * costs nothing and rows are paged in as they are read.
+ *
+ * The file is columnar and little endian, with one row per product in
+ * ascending id order:
+ *
+ * <pre>
+ * header, HEADER_SIZE bytes
+ *   int   magic "PCS1"
+ *   int   format version
+ *   long  rows
+ *   long  exported at, epoch milliseconds
+ *   int   names in the name dictionary
+ *   int   statuses in the status dictionary
+ *   long  offset of each section below, in this order
+ * ids             long per row
+ * prices          double per row, NaN when there is no price
+ * posted dates    long per row, microseconds since 1970-01-01T00:00 without a zone, Long.MIN_VALUE when unset
+ * name codes      int per row, index into the name dictionary, -1 when there is no name
+ * status codes    byte per row, index into the status dictionary, -1 when unset
+ * name offsets    int per name plus one, name i is bytes [offset i, offset i+1) of the name bytes
+ * name bytes      UTF-8
+ * statuses        int offsets per status plus one, followed by the ASCII names
+ * </pre>
+ *
+ * Every section starts on an 8 byte boundary, so it can be read as an array of
+ * its type. Reads only use absolute indexes, one instance can be shared by
+ * threads.
+ */
+public final class CatalogSnapshot {
+
+	static final int MAGIC = 0x31534350;
+
+	static final int FORMAT_VERSION = 1;
+
+	static final int HEADER_SIZE = 128;
+
+	/** sections in file order, the header holds their offsets in the same order */
+	static final int IDS = 0, PRICES = 1, POSTED_DATES = 2, NAME_CODES = 3, STATUS_CODES = 4, NAME_OFFSETS = 5,
+			NAME_BYTES = 6, STATUS_DICTIONARY = 7, SECTIONS = 8;
+
+	static final long NO_DATE = Long.MIN_VALUE;
+
+	private final long exportedAt;
+
+	private final LongBuffer ids;
+
+	private final DoubleBuffer prices;
+
+	private final LongBuffer postedDates;
+
+	private final IntBuffer nameCodes;
+
+	private final ByteBuffer statusCodes;
+
+	private final IntBuffer nameOffsets;
+
+	private final ByteBuffer nameBytes;
+
+	private final Status[] statuses;
+
+	private CatalogSnapshot(long exportedAt, LongBuffer ids, DoubleBuffer prices, LongBuffer postedDates,
+			IntBuffer nameCodes, ByteBuffer statusCodes, IntBuffer nameOffsets, ByteBuffer nameBytes,
+			Status[] statuses) {
+		this.exportedAt = exportedAt;
+		this.ids = ids;
+		this.prices = prices;
+		this.postedDates = postedDates;
+		this.nameCodes = nameCodes;
+		this.statusCodes = statusCodes;
+		this.nameOffsets = nameOffsets;
+		this.nameBytes = nameBytes;
+		this.statuses = statuses;
+	}
+
+	/**
+	 * Maps the snapshot. The mapping stays valid after the file is closed,
+	 * deleted or replaced by a newer snapshot.
+	 */
+	public static CatalogSnapshot open(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			if (channel.size() < HEADER_SIZE) {
+				throw new IOException(file + " is not a catalog snapshot");
+			}
+			ByteBuffer header = map(channel, 0, HEADER_SIZE);
+			if (header.getInt() != MAGIC) {
+				throw new IOException(file + " is not a catalog snapshot");
+			}
+			int version = header.getInt();
+			if (version != FORMAT_VERSION) {
+				throw new IOException(file + " is in snapshot format " + version + ", expected " + FORMAT_VERSION);
+			}
+			long rows = header.getLong();
+			if (rows > Integer.MAX_VALUE / Long.BYTES) {
+				throw new IOException(file + " holds " + rows + " products, more than can be mapped");
+			}
+			int size = (int) rows;
+			long exportedAt = header.getLong();
+			int names = header.getInt();
+			int statusCount = header.getInt();
+			long[] offsets = new long[SECTIONS];
+			for (int i = 0; i < SECTIONS; i++) {
+				offsets[i] = header.getLong();
+			}
+			IntBuffer nameOffsets = map(channel, offsets[NAME_OFFSETS], 4L * (names + 1)).asIntBuffer();
+			ByteBuffer statusDictionary = map(channel, offsets[STATUS_DICTIONARY],
+					channel.size() - offsets[STATUS_DICTIONARY]);
+			int statusBytesStart = 4 * (statusCount + 1);
+			Status[] statuses = new Status[statusCount];
+			for (int i = 0; i < statusCount; i++) {
+				int from = statusDictionary.getInt(4 * i);
+				byte[] statusName = new byte[statusDictionary.getInt(4 * (i + 1)) - from];
+				statusDictionary.get(statusBytesStart + from, statusName);
+				statuses[i] = Status.valueOf(new String(statusName, StandardCharsets.US_ASCII));
+			}
+			return new CatalogSnapshot(exportedAt, map(channel, offsets[IDS], 8L * size).asLongBuffer(),
+					map(channel, offsets[PRICES], 8L * size).asDoubleBuffer(),
+					map(channel, offsets[POSTED_DATES], 8L * size).asLongBuffer(),
+					map(channel, offsets[NAME_CODES], 4L * size).asIntBuffer(),
+					map(channel, offsets[STATUS_CODES], size), nameOffsets,
+					map(channel, offsets[NAME_BYTES], nameOffsets.get(names)), statuses);
+		}
+	}
+
+	private static ByteBuffer map(FileChannel channel, long offset, long length) throws IOException {
+		return channel.map(FileChannel.MapMode.READ_ONLY, offset, length).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	public int size() {
+		return ids.capacity();
+	}
+
+	/** epoch milliseconds at which the export started */
+	public long exportedAt() {
+		return exportedAt;
+	}
+
+	/** number of distinct names */
+	public int nameCount() {
+		return nameOffsets.capacity() - 1;
+	}
+
+	public long id(int row) {
+		return ids.get(row);
+	}
+
+	public Double price(int row) {
+		double price = prices.get(row);
+		return Double.isNaN(price) ? null : price;
+	}
+
+	public LocalDateTime postedDate(int row) {
+		long micros = postedDates.get(row);
+		return micros == NO_DATE ? null : fromEpochMicros(micros);
+	}
+
+	public String name(int row) {
+		int code = nameCodes.get(row);
+		if (code < 0) {
+			return null;
+		}
+		int from = nameOffsets.get(code);
+		byte[] name = new byte[nameOffsets.get(code + 1) - from];
+		nameBytes.get(from, name);
+		return new String(name, StandardCharsets.UTF_8);
+	}
+
+	public Status status(int row) {
+		byte code = statusCodes.get(row);
+		return code < 0 ? null : statuses[code];
+	}
+
+	/**
+	 * @return the row of the product, or a negative number when the snapshot
+	 *         does not have it
+	 */
+	public int rowOf(long id) {
+		int low = 0;
+		int high = size() - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			long midId = ids.get(mid);
+			if (midId < id) {
+				low = mid + 1;
+			} else if (midId > id) {
+				high = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -(low + 1);
+	}
+
+	static long toEpochMicros(LocalDateTime value) {
+		return value.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + value.getNano() / 1_000;
+	}
+
+	static LocalDateTime fromEpochMicros(long micros) {
+		return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000),
+				Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC);
+	}
+}
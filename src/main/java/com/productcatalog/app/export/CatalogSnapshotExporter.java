@@ -0,0 +1,266 @@
+package com.productcatalog.app.export;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.productcatalog.app.model.JobLock;
+import com.productcatalog.app.repository.JobLockRepository;
+import com.productcatalog.app.repository.ProductRepository;
+import com.productcatalog.app.repository.ProductRepository.ProductSnapshotRow;
+
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Opt-in export of the whole catalog to a {@link CatalogSnapshot} file,
+ * enabled by setting productcatalog.export.dir.
+ *
+ * On productcatalog.export.cron every product is read in id order from a
+ * server side cursor, in one read-only transaction that goes to the read
+ * replica when there is one, and written column by column. Consumers that need
+ * the full catalog download the file from /api/v1/products/snapshot instead of
+ * paging through the listing, so the database sees one sequential scan a night
+ * however many of them there are.
+ *
+ * Every export is written to a new file and the newest productcatalog.export.keep
+ * are kept, a download that started before the export finished still has its
+ * file. The export runs on its own thread and never holds up the scheduled
+ * tasks sharing Spring's scheduler.
+ *
+ * Instances sharing the database take turns: on each cron time only the one
+ * that claims the catalog export {@link JobLock} first exports, holding the
+ * row (and a primary connection) until it is done, the others find the lock
+ * held or the run already recorded. The directory is meant to be shared
+ * storage, every instance serves the newest file in it.
+ */
+@Log4j2
+@Component
+@ConditionalOnProperty(name = "productcatalog.export.dir")
+public class CatalogSnapshotExporter implements SmartLifecycle {
+
+	private static final String FILE_PREFIX = "catalog-";
+
+	private static final String FILE_SUFFIX = ".snapshot";
+
+	private final ProductRepository productRepository;
+
+	private final JobLockRepository jobLockRepository;
+
+	private final TransactionTemplate lockTransaction;
+
+	private final TransactionTemplate readOnlyTransaction;
+
+	private final Path dir;
+
+	private final CronExpression cron;
+
+	private final int keep;
+
+	private volatile boolean lockCreated;
+
+	private volatile boolean running;
+
+	private ScheduledExecutorService executor;
+
+	public CatalogSnapshotExporter(ProductRepository productRepository, JobLockRepository jobLockRepository,
+			PlatformTransactionManager transactionManager, @Value("${productcatalog.export.dir}") Path dir,
+			@Value("${productcatalog.export.cron:0 30 1 * * *}") String cron,
+			@Value("${productcatalog.export.keep:2}") int keep) {
+		this.productRepository = productRepository;
+		this.jobLockRepository = jobLockRepository;
+		this.lockTransaction = new TransactionTemplate(transactionManager);
+		// not part of the transaction holding the lock, so that it can go to the replica
+		this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+		this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		this.readOnlyTransaction.setReadOnly(true);
+		this.dir = dir;
+		this.cron = CronExpression.parse(cron);
+		this.keep = Math.max(1, keep);
+	}
+
+	@Override
+	public void start() {
+		try {
+			Files.createDirectories(dir);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not open the catalog export directory " + dir, e);
+		}
+		executor = Executors.newSingleThreadScheduledExecutor(task -> {
+			Thread thread = new Thread(task, "catalog-export");
+			thread.setDaemon(true);
+			return thread;
+		});
+		running = true;
+		scheduleNext();
+		log.info("Exporting catalog snapshots to {} on {}", dir, cron);
+	}
+
+	@Override
+	public void stop() {
+		running = false;
+		executor.shutdownNow();
+	}
+
+	@Override
+	public boolean isRunning() {
+		return running;
+	}
+
+	/** the newest snapshot, exported by any instance, or null before the first export */
+	public Path latest() {
+		try {
+			List<Path> snapshots = snapshots();
+			return snapshots.isEmpty() ? null : snapshots.get(snapshots.size() - 1);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not list the catalog snapshots in " + dir, e);
+		}
+	}
+
+	/**
+	 * Exports for the cron time unless another instance is exporting or has
+	 * already exported for it.
+	 *
+	 * @param scheduledFor - the cron time the export is run for
+	 * @return the snapshot file, null when the export was left to another
+	 *         instance
+	 */
+	public Path exportIfDue(LocalDateTime scheduledFor) throws IOException {
+		if (!lockCreated) {
+			jobLockRepository.createIfMissing(JobLock.CATALOG_EXPORT);
+			lockCreated = true;
+		}
+		try {
+			return lockTransaction.execute(status -> {
+				Optional<JobLock> lock = jobLockRepository.claim(JobLock.CATALOG_EXPORT);
+				if (lock.isEmpty()) {
+					log.info("Catalog export for {} is being run by another instance", scheduledFor);
+					return null;
+				}
+				LocalDateTime lastRunAt = lock.get().getLastRunAt();
+				if (lastRunAt != null && !lastRunAt.isBefore(scheduledFor)) {
+					log.info("Catalog export for {} was already run by another instance", scheduledFor);
+					return null;
+				}
+				try {
+					// nobody else is exporting, whatever work is left is abandoned
+					removeAbandonedWork();
+					Path file = export();
+					lock.get().setLastRunAt(scheduledFor);
+					return file;
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * Writes a snapshot of the catalog as it is now and makes it the one
+	 * served, whether or not another instance is exporting.
+	 *
+	 * @return the snapshot file
+	 */
+	public synchronized Path export() throws IOException {
+		long startedAt = System.currentTimeMillis();
+		Path file = dir.resolve(FILE_PREFIX + startedAt + FILE_SUFFIX);
+		long rows;
+		try (CatalogSnapshotWriter writer = new CatalogSnapshotWriter(file)) {
+			readOnlyTransaction.executeWithoutResult(status -> {
+				try (Stream<ProductSnapshotRow> products = productRepository.streamSnapshotRows()) {
+					products.forEach(product -> append(writer, product));
+				}
+			});
+			rows = writer.finish(startedAt);
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+		log.info("Exported {} products to {} ({} bytes) in {}ms", rows, file, Files.size(file),
+				System.currentTimeMillis() - startedAt);
+		removeOldSnapshots();
+		return file;
+	}
+
+	private static void append(CatalogSnapshotWriter writer, ProductSnapshotRow product) {
+		try {
+			writer.append(product.getId(), product.getName(), product.getPrice(), product.getPostedDate(),
+					product.getStatus());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void scheduleNext() {
+		LocalDateTime now = LocalDateTime.now();
+		LocalDateTime next = cron.next(now);
+		if (next != null && running) {
+			executor.schedule(() -> scheduledExport(next), Duration.between(now, next).toMillis(),
+					TimeUnit.MILLISECONDS);
+		}
+	}
+
+	private void scheduledExport(LocalDateTime scheduledFor) {
+		try {
+			exportIfDue(scheduledFor);
+		} catch (IOException | RuntimeException e) {
+			log.warn("Catalog export failed, retrying on the next run - {}", e.getMessage());
+		} finally {
+			scheduleNext();
+		}
+	}
+
+	private void removeOldSnapshots() {
+		try {
+			List<Path> snapshots = snapshots();
+			for (Path old : snapshots.subList(0, Math.max(0, snapshots.size() - keep))) {
+				Files.deleteIfExists(old);
+			}
+		} catch (IOException e) {
+			log.warn("Could not remove old catalog snapshots from {} - {}", dir, e.getMessage());
+		}
+	}
+
+	/** work files left by an export that was cut short */
+	private void removeAbandonedWork() throws IOException {
+		try (Stream<Path> files = Files.list(dir)) {
+			for (Path workDir : files.filter(file -> file.getFileName().toString()
+					.startsWith(CatalogSnapshotWriter.WORK_DIR_PREFIX)).toList()) {
+				try (Stream<Path> work = Files.list(workDir)) {
+					for (Path file : work.toList()) {
+						Files.deleteIfExists(file);
+					}
+				}
+				Files.deleteIfExists(workDir);
+			}
+		}
+	}
+
+	/** oldest first, the names hold the export time */
+	private List<Path> snapshots() throws IOException {
+		try (Stream<Path> files = Files.list(dir)) {
+			return files.filter(file -> {
+				String name = file.getFileName().toString();
+				return name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX);
+			}).sorted().toList();
+		}
+	}
+}
@@ -0,0 +1,267 @@
+package com.productcatalog.app.export;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.productcatalog.app.model.Status;
+
+/**
+ * Writes a {@link CatalogSnapshot} file in one pass over the products.
+ *
+ * Each column is appended to its own work file through a small direct buffer
+ * as rows arrive, so memory use does not depend on the number of products,
+ * only the name dictionary is held on the heap. {@link #finish(long)} puts the
+ * header and the columns together with FileChannel.transferTo and moves the
+ * result into place, readers never see a partial file.
+ */
+public class CatalogSnapshotWriter implements Closeable {
+
+	static final String WORK_DIR_PREFIX = ".snapshot-";
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final Path target;
+
+	private final Path workDir;
+
+	private final Column ids;
+
+	private final Column prices;
+
+	private final Column postedDates;
+
+	private final Column nameCodes;
+
+	private final Column statusCodes;
+
+	private final Column nameOffsets;
+
+	private final Column nameBytes;
+
+	private final Map<String, Integer> codesByName = new HashMap<>();
+
+	private long rows;
+
+	private long lastId = Long.MIN_VALUE;
+
+	public CatalogSnapshotWriter(Path target) throws IOException {
+		this.target = target;
+		this.workDir = Files.createTempDirectory(target.toAbsolutePath().getParent(), WORK_DIR_PREFIX);
+		this.ids = new Column(workDir.resolve("ids"));
+		this.prices = new Column(workDir.resolve("prices"));
+		this.postedDates = new Column(workDir.resolve("postedDates"));
+		this.nameCodes = new Column(workDir.resolve("nameCodes"));
+		this.statusCodes = new Column(workDir.resolve("statusCodes"));
+		this.nameOffsets = new Column(workDir.resolve("nameOffsets"));
+		this.nameBytes = new Column(workDir.resolve("nameBytes"));
+		nameOffsets.putInt(0);
+	}
+
+	/**
+	 * Adds a product, in ascending id order.
+	 */
+	public void append(long id, String name, Double price, LocalDateTime postedDate, Status status)
+			throws IOException {
+		if (id <= lastId) {
+			throw new IllegalArgumentException("Products must be appended in ascending id order, " + id
+					+ " came after " + lastId);
+		}
+		lastId = id;
+		ids.putLong(id);
+		prices.putDouble(price == null ? Double.NaN : price);
+		postedDates.putLong(postedDate == null ? CatalogSnapshot.NO_DATE : CatalogSnapshot.toEpochMicros(postedDate));
+		nameCodes.putInt(name == null ? -1 : nameCode(name));
+		statusCodes.put(status == null ? -1 : (byte) status.ordinal());
+		rows++;
+	}
+
+	private int nameCode(String name) throws IOException {
+		Integer code = codesByName.get(name);
+		if (code == null) {
+			byte[] encoded = name.getBytes(StandardCharsets.UTF_8);
+			if (nameBytes.size + encoded.length > Integer.MAX_VALUE) {
+				throw new IOException("Product names do not fit a snapshot, it holds up to 2GB of them");
+			}
+			code = codesByName.size();
+			codesByName.put(name, code);
+			nameBytes.put(encoded);
+			nameOffsets.putInt((int) nameBytes.size);
+		}
+		return code;
+	}
+
+	/**
+	 * Writes the snapshot file, replacing any file already at the target.
+	 *
+	 * @return the number of products written
+	 */
+	public long finish(long exportedAt) throws IOException {
+		// in CatalogSnapshot section order
+		Column[] columns = { ids, prices, postedDates, nameCodes, statusCodes, nameOffsets, nameBytes };
+		for (Column column : columns) {
+			column.flush();
+		}
+		Status[] statuses = Status.values();
+		byte[][] statusNames = new byte[statuses.length][];
+		int statusBytes = 0;
+		for (int i = 0; i < statuses.length; i++) {
+			statusNames[i] = statuses[i].name().getBytes(StandardCharsets.US_ASCII);
+			statusBytes += statusNames[i].length;
+		}
+		ByteBuffer statusDictionary = ByteBuffer.allocate(4 * (statuses.length + 1) + statusBytes)
+				.order(ByteOrder.LITTLE_ENDIAN);
+		int offset = 0;
+		statusDictionary.putInt(offset);
+		for (byte[] statusName : statusNames) {
+			offset += statusName.length;
+			statusDictionary.putInt(offset);
+		}
+		for (byte[] statusName : statusNames) {
+			statusDictionary.put(statusName);
+		}
+		statusDictionary.flip();
+
+		long[] sectionOffsets = new long[CatalogSnapshot.SECTIONS];
+		long position = CatalogSnapshot.HEADER_SIZE;
+		for (int i = 0; i < columns.length; i++) {
+			sectionOffsets[i] = position;
+			position = align(position + columns[i].size);
+		}
+		sectionOffsets[CatalogSnapshot.STATUS_DICTIONARY] = position;
+
+		ByteBuffer header = ByteBuffer.allocate(CatalogSnapshot.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		header.putInt(CatalogSnapshot.MAGIC).putInt(CatalogSnapshot.FORMAT_VERSION).putLong(rows).putLong(exportedAt)
+				.putInt(codesByName.size()).putInt(statuses.length);
+		for (long sectionOffset : sectionOffsets) {
+			header.putLong(sectionOffset);
+		}
+		header.clear();
+
+		Path partial = workDir.resolve("snapshot");
+		try (FileChannel out = FileChannel.open(partial, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+			writeFully(out, header, 0);
+			for (int i = 0; i < columns.length; i++) {
+				columns[i].transferTo(out, sectionOffsets[i]);
+			}
+			writeFully(out, statusDictionary, sectionOffsets[CatalogSnapshot.STATUS_DICTIONARY]);
+			out.force(false);
+		}
+		Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		return rows;
+	}
+
+	/** removes the work files, and the snapshot too when finish did not complete */
+	@Override
+	public void close() throws IOException {
+		IOException failure = null;
+		for (Column column : new Column[] { ids, prices, postedDates, nameCodes, statusCodes, nameOffsets,
+				nameBytes }) {
+			try {
+				column.close();
+			} catch (IOException e) {
+				failure = e;
+			}
+		}
+		Files.deleteIfExists(workDir.resolve("snapshot"));
+		Files.deleteIfExists(workDir);
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	private static long align(long position) {
+		return (position + 7) & ~7L;
+	}
+
+	private static void writeFully(FileChannel out, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			position += out.write(buffer, position);
+		}
+	}
+
+	/** an append-only column in a work file, little endian like the snapshot */
+	private static final class Column implements Closeable {
+
+		private final Path file;
+
+		private final FileChannel channel;
+
+		private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+		private long size;
+
+		private Column(Path file) throws IOException {
+			this.file = file;
+			this.channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+					StandardOpenOption.WRITE);
+		}
+
+		private void putLong(long value) throws IOException {
+			reserve(Long.BYTES).putLong(value);
+		}
+
+		private void putDouble(double value) throws IOException {
+			reserve(Double.BYTES).putDouble(value);
+		}
+
+		private void putInt(int value) throws IOException {
+			reserve(Integer.BYTES).putInt(value);
+		}
+
+		private void put(byte value) throws IOException {
+			reserve(1).put(value);
+		}
+
+		private void put(byte[] value) throws IOException {
+			if (value.length > buffer.capacity()) {
+				flush();
+				ByteBuffer wrapped = ByteBuffer.wrap(value);
+				while (wrapped.hasRemaining()) {
+					channel.write(wrapped);
+				}
+				size += value.length;
+			} else {
+				reserve(value.length).put(value);
+			}
+		}
+
+		private ByteBuffer reserve(int bytes) throws IOException {
+			if (buffer.remaining() < bytes) {
+				flush();
+			}
+			size += bytes;
+			return buffer;
+		}
+
+		private void flush() throws IOException {
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			buffer.clear();
+		}
+
+		private void transferTo(FileChannel out, long position) throws IOException {
+			for (long sent = 0; sent < size;) {
+				sent += channel.transferTo(sent, size - sent, out.position(position + sent));
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			channel.close();
+			Files.deleteIfExists(file);
+		}
+	}
+}
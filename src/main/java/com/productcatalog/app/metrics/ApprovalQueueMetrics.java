@@ -0,0 +1,56 @@
+package com.productcatalog.app.metrics;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.productcatalog.app.model.ApprovalQueue;
+import com.productcatalog.app.repository.ApprovalQueueRepository;
+import com.productcatalog.app.repository.ApprovalQueueSpecifications;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Approval queue depth and the age of the oldest pending request. Both are
+ * refreshed on a schedule (productcatalog.metrics.approval-queue.refresh-ms)
+ * rather than on every scrape so that scrapes never hit the database.
+ */
+@Log4j2
+@Component
+public class ApprovalQueueMetrics {
+
+	private static final String PENDING = "PENDING";
+
+	private final ApprovalQueueRepository approvalQueueRepository;
+
+	private final AtomicLong pendingCount = new AtomicLong();
+
+	private final AtomicLong oldestPendingAgeSeconds = new AtomicLong();
+
+	public ApprovalQueueMetrics(ApprovalQueueRepository approvalQueueRepository, MeterRegistry registry) {
+		this.approvalQueueRepository = approvalQueueRepository;
+		Gauge.builder("productcatalog.approval.queue.depth", pendingCount, AtomicLong::get)
+				.description("Approval requests waiting for a decision").register(registry);
+		Gauge.builder("productcatalog.approval.queue.oldest.age", oldestPendingAgeSeconds, AtomicLong::get)
+				.description("Age of the oldest pending approval request").baseUnit("seconds").register(registry);
+	}
+
+	@Scheduled(fixedDelayString = "${productcatalog.metrics.approval-queue.refresh-ms:30000}")
+	public void refresh() {
+		try {
+			pendingCount.set(approvalQueueRepository.count(ApprovalQueueSpecifications.hasApprovalAction(PENDING)));
+			List<ApprovalQueue> oldest = approvalQueueRepository
+					.findOldestFirst(ApprovalQueueSpecifications.hasApprovalAction(PENDING), 1);
+			oldestPendingAgeSeconds.set(oldest.isEmpty() ? 0
+					: Duration.between(oldest.get(0).getApprovalRequestDate(), LocalDateTime.now()).toSeconds());
+		} catch (Exception e) {
+			log.warn("Could not refresh approval queue metrics - {}", e.getMessage());
+		}
+	}
+}
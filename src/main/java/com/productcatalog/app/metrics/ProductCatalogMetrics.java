@@ -0,0 +1,79 @@
+package com.productcatalog.app.metrics;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Business counters that the generic HTTP, service and repository timers do
+ * not cover.
+ *
+ * productcatalog.products.routed counts new products by where they went:
+ * saved directly, queued for approval or rejected by validation.
+ * productcatalog.errors counts exceptions by the advice handler that turned
+ * them into a response. productcatalog.approval.auto counts approval requests
+ * the auto-approval worker looked at, by whether it approved them or left
+ * them for a human.
+ */
+@Component
+public class ProductCatalogMetrics {
+
+	static final String PRODUCTS_ROUTED = "productcatalog.products.routed";
+
+	static final String ERRORS = "productcatalog.errors";
+
+	static final String AUTO_APPROVAL = "productcatalog.approval.auto";
+
+	private final MeterRegistry registry;
+
+	private final Counter savedDirectly;
+
+	private final Counter queuedForApproval;
+
+	private final Counter rejected;
+
+	private final Counter autoApproved;
+
+	private final Counter leftForReview;
+
+	public ProductCatalogMetrics(MeterRegistry registry) {
+		this.registry = registry;
+		this.savedDirectly = routed(registry, "saved");
+		this.queuedForApproval = routed(registry, "approval_queue");
+		this.rejected = routed(registry, "rejected");
+		this.autoApproved = autoApproval(registry, "approved");
+		this.leftForReview = autoApproval(registry, "left_for_review");
+	}
+
+	private static Counter routed(MeterRegistry registry, String route) {
+		return Counter.builder(PRODUCTS_ROUTED).tag("route", route)
+				.description("New products by where they were routed").register(registry);
+	}
+
+	private static Counter autoApproval(MeterRegistry registry, String outcome) {
+		return Counter.builder(AUTO_APPROVAL).tag("outcome", outcome)
+				.description("Approval requests checked against the auto-approval rules").register(registry);
+	}
+
+	public void productsSaved(int count) {
+		savedDirectly.increment(count);
+	}
+
+	public void productsQueuedForApproval(int count) {
+		queuedForApproval.increment(count);
+	}
+
+	public void productsRejected(int count) {
+		rejected.increment(count);
+	}
+
+	public void autoApprovalsApplied(int approved, int leftForReview) {
+		this.autoApproved.increment(approved);
+		this.leftForReview.increment(leftForReview);
+	}
+
+	public void exceptionHandled(String handler, Exception e) {
+		registry.counter(ERRORS, "handler", handler, "exception", e.getClass().getSimpleName()).increment();
+	}
+}
@@ -0,0 +1,76 @@
+package com.productcatalog.app.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Comparator;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline.TimelineEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Logs the time to first request: how long after the JVM started the
+ * application was ready, and the beans that took longest to create and
+ * initialize, including the beans they depend on. The steps come from the
+ * BufferingApplicationStartup installed by ProductCatalogApplication, the
+ * whole timeline is served by /actuator/startup. Spring Boot also publishes
+ * application.started.time and application.ready.time, to follow the startup
+ * time across releases.
+ *
+ * With productcatalog.startup.exit-when-ready=true the application exits once
+ * it is ready, the Gradle cdsArchive task uses it to record the classes loaded
+ * during startup.
+ */
+@Log4j2
+@Component
+public class StartupReport implements ApplicationListener<ApplicationReadyEvent> {
+
+	private static final Set<String> BEAN_STEPS = Set.of("spring.beans.instantiate", "spring.beans.smart-initialize");
+
+	private final ApplicationStartup applicationStartup;
+
+	private final int slowestBeans;
+
+	private final boolean exitWhenReady;
+
+	public StartupReport(ApplicationStartup applicationStartup,
+			@Value("${productcatalog.startup.report-beans:10}") int slowestBeans,
+			@Value("${productcatalog.startup.exit-when-ready:false}") boolean exitWhenReady) {
+		this.applicationStartup = applicationStartup;
+		this.slowestBeans = slowestBeans;
+		this.exitWhenReady = exitWhenReady;
+	}
+
+	@Override
+	public void onApplicationEvent(ApplicationReadyEvent event) {
+		log.info("Ready for requests {}ms after the JVM started, {}ms of it starting the application",
+				ManagementFactory.getRuntimeMXBean().getUptime(), event.getTimeTaken().toMillis());
+		if (applicationStartup instanceof BufferingApplicationStartup buffering && slowestBeans > 0) {
+			buffering.getBufferedTimeline().getEvents().stream()
+					.filter(step -> BEAN_STEPS.contains(step.getStartupStep().getName()))
+					.sorted(Comparator.comparing(TimelineEvent::getDuration).reversed()).limit(slowestBeans)
+					.forEach(step -> log.info("{}ms {} {}", step.getDuration().toMillis(),
+							step.getStartupStep().getName(), beanName(step.getStartupStep())));
+		}
+		if (exitWhenReady) {
+			System.exit(SpringApplication.exit(event.getApplicationContext()));
+		}
+	}
+
+	private static String beanName(StartupStep step) {
+		for (StartupStep.Tag tag : step.getTags()) {
+			if ("beanName".equals(tag.getKey())) {
+				return tag.getValue();
+			}
+		}
+		return "";
+	}
+}
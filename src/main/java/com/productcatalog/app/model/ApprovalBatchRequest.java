@@ -0,0 +1,18 @@
+package com.productcatalog.app.model;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Approval queue ids to approve or reject in one request.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ApprovalBatchRequest {
+
+	private List<Long> approvalIds;
+}
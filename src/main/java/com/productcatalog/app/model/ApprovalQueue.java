@@ -2,6 +2,14 @@ package com.productcatalog.app.model;
 
 import java.time.LocalDateTime;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.productcatalog.app.response.ProductCatalogConstants;
+
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
@@ -9,17 +17,28 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = ProductCatalogConstants.APPROVAL_QUEUE_CACHE_REGION)
 @Data
 @NoArgsConstructor
-@Table
+@Table(indexes = {
+		@Index(name = "idx_approval_queue_action_request_date", columnList = "approvalAction, approvalRequestDate, id"),
+		@Index(name = "idx_approval_queue_auto_review", columnList = "approvalAction, autoReviewedAt, approvalRequestDate, id") },
+		// processed requests are deleted, so every row is pending: one request per product, new products have no productId
+		uniqueConstraints = @UniqueConstraint(name = ProductCatalogConstants.APPROVAL_QUEUE_PENDING_KEY, columnNames = {
+				"productId", "approvalAction" }))
 public class ApprovalQueue {
     
 	public ApprovalQueue(String name, Double price, Status status, LocalDateTime postedDate, 
@@ -34,7 +53,8 @@ public class ApprovalQueue {
 
 
 	@Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "approval_queue_seq")
+    @SequenceGenerator(name = "approval_queue_seq", sequenceName = "approval_queue_seq", allocationSize = ProductCatalogConstants.ID_ALLOCATION_SIZE)
     private Long id;
 
     
@@ -60,6 +80,22 @@ public class ApprovalQueue {
     
    @Column
     private Long productId;
+
+    /**
+     * Optimistic lock version, a queue entry can only be approved or rejected
+     * once even when two approvers act on it at the same time.
+     */
+    @Version
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
+
+    /**
+     * Set once the auto-approval rules have looked at the request and left it
+     * for a human, so the worker does not pick it up again.
+     */
+    @JsonIgnore
+    @Column
+    private LocalDateTime autoReviewedAt;
   
    
  
@@ -0,0 +1,24 @@
+package com.productcatalog.app.model;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Optional approval queue filters. Any criterion left null is not applied.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ApprovalQueueCriteria {
+
+	private String approvalAction;
+
+	private Long productId;
+
+	private LocalDateTime minRequestDate;
+
+	private LocalDateTime maxRequestDate;
+}
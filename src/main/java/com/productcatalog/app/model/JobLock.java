@@ -0,0 +1,34 @@
+package com.productcatalog.app.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One row per job that only one instance sharing the database may run at a
+ * time. An instance runs the job while it holds the row locked, see
+ * JobLockRepository.claim.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobLock {
+
+	public static final String OUTBOX_RELAY = "outbox-relay";
+
+	public static final String CATALOG_EXPORT = "catalog-export";
+
+	@Id
+	@Column(length = 64)
+	private String name;
+
+	/** scheduled time of the last completed run, for jobs that run once per schedule */
+	@Column
+	private LocalDateTime lastRunAt;
+}
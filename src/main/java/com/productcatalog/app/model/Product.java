@@ -1,12 +1,21 @@
 package com.productcatalog.app.model;
 
 import java.time.LocalDateTime;
+import java.util.Locale;
 
 import javax.validation.constraints.DecimalMax;
 import javax.validation.constraints.DecimalMin;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.Size;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.productcatalog.app.response.ProductCatalogConstants;
+
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
@@ -14,15 +23,24 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = ProductCatalogConstants.PRODUCT_CACHE_REGION)
 @Data
 @NoArgsConstructor
-@Table
+@Table(indexes = { @Index(name = "idx_product_status_posted_date", columnList = "status, postedDate, id"),
+		@Index(name = "idx_product_status_price", columnList = "status, price"),
+		@Index(name = "idx_product_status_name_lower", columnList = "status, nameLower") })
 public class Product {
 	
 	public Product(String name, Double price, Status status, LocalDateTime postedDate) {
@@ -35,7 +53,8 @@ public class Product {
 	
     
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_seq")
+	@SequenceGenerator(name = "product_seq", sequenceName = "product_seq", allocationSize = ProductCatalogConstants.ID_ALLOCATION_SIZE)
 	private Long id;
 
 	@Column
@@ -55,5 +74,27 @@ public class Product {
 	@Column
 	private LocalDateTime postedDate = LocalDateTime.now();
 
+	/**
+	 * Lower cased copy of name, kept so that case insensitive name search can
+	 * use an index instead of wrapping the column in LOWER().
+	 */
+	@JsonIgnore
+	@Column
+	private String nameLower;
+
+	/**
+	 * Optimistic lock version, also served as the ETag of the product. Every
+	 * update checks it so concurrent writers cannot overwrite each other.
+	 */
+	@Version
+	@JsonProperty(access = JsonProperty.Access.READ_ONLY)
+	private Long version;
+
+	@PrePersist
+	@PreUpdate
+	void normalizeName() {
+		nameLower = name == null ? null : name.toLowerCase(Locale.ROOT);
+	}
+
 
 }
@@ -0,0 +1,69 @@
+package com.productcatalog.app.model;
+
+import java.time.LocalDateTime;
+
+import com.productcatalog.app.response.ProductCatalogConstants;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outbox row written in the transaction of every product change. The relay
+ * numbers the rows in the order it hands them to the sinks, rows keep their
+ * position for productcatalog.outbox.retention-hours so that change stream
+ * clients can resume from it. Carries the state of the product after the
+ * change so consumers never have to read it back.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@Table(indexes = @Index(name = "idx_product_change_position", columnList = "position, id"))
+public class ProductChange {
+
+	/** CREATED and UPDATED carry the state to upsert, DELETED means the product left the active catalog */
+	public enum ChangeType {
+		CREATED, UPDATED, DELETED
+	}
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_change_seq")
+	@SequenceGenerator(name = "product_change_seq", sequenceName = "product_change_seq", allocationSize = ProductCatalogConstants.ID_ALLOCATION_SIZE)
+	private Long id;
+
+	@Column
+	private Long productId;
+
+	@Enumerated(EnumType.STRING)
+	@Column
+	private ChangeType type;
+
+	@Column
+	private String name;
+
+	@Column
+	private Double price;
+
+	@Enumerated(EnumType.STRING)
+	@Column
+	private Status status;
+
+	@Column
+	private LocalDateTime postedDate;
+
+	@Column
+	private LocalDateTime changedAt = LocalDateTime.now();
+
+	/** set by the relay, consecutive from 1 in relay order, null until relayed */
+	@Column
+	private Long position;
+}
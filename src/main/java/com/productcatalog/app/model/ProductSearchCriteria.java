@@ -0,0 +1,31 @@
+package com.productcatalog.app.model;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Optional product search filters. Any criterion left null is not applied.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductSearchCriteria {
+
+	private String productName;
+
+	private Double minPrice;
+
+	private Double maxPrice;
+
+	private LocalDateTime minPostedDate;
+
+	private LocalDateTime maxPostedDate;
+
+	public boolean isEmpty() {
+		return productName == null && minPrice == null && maxPrice == null && minPostedDate == null
+				&& maxPostedDate == null;
+	}
+}
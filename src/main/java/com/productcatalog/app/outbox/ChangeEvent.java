@@ -0,0 +1,22 @@
+package com.productcatalog.app.outbox;
+
+import java.time.LocalDateTime;
+
+import com.productcatalog.app.model.ProductChange;
+import com.productcatalog.app.model.ProductChange.ChangeType;
+import com.productcatalog.app.model.Status;
+
+/**
+ * A product change as handed to the sinks. changeId is the id of the outbox
+ * row, a consumer that sees the same changeId twice can drop the second one.
+ * position orders the changes, consecutive from 1 across all instances.
+ */
+public record ChangeEvent(Long changeId, Long position, Long productId, ChangeType type, String name, Double price,
+		Status status, LocalDateTime postedDate, LocalDateTime changedAt) {
+
+	public static ChangeEvent of(ProductChange change) {
+		return new ChangeEvent(change.getId(), change.getPosition(), change.getProductId(), change.getType(),
+				change.getName(), change.getPrice(), change.getStatus(), change.getPostedDate(),
+				change.getChangedAt());
+	}
+}
@@ -0,0 +1,81 @@
+package com.productcatalog.app.outbox;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.hibernate.Cache;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import com.productcatalog.app.datasource.ReplicaRoutingDataSource;
+import com.productcatalog.app.event.ProductChangedEvent;
+import com.productcatalog.app.event.ProductState;
+import com.productcatalog.app.model.Product;
+import com.productcatalog.app.repository.ProductRepository;
+import com.productcatalog.app.response.ProductCatalogConstants;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Brings the state this instance keeps about the catalog (caches, indexes,
+ * facets, the catalog version) up to date with changes made on any instance.
+ * {@link ChangeStream} hands it every batch of relayed changes it reads.
+ *
+ * The changes are not applied as they are in the outbox. The changed products
+ * are read again from the primary and published as replayed
+ * {@link ProductChangedEvent}s with their current state, so replaying a
+ * change this instance has already seen, or one that was overtaken by a later
+ * change, leaves the same result. Their second-level cache entries and the
+ * query cache are dropped first, they only see the writes of this instance.
+ */
+@Component
+public class ChangeReplay {
+
+	private final ProductRepository productRepository;
+
+	private final ApplicationEventPublisher eventPublisher;
+
+	private final EntityManagerFactory entityManagerFactory;
+
+	public ChangeReplay(ProductRepository productRepository, ApplicationEventPublisher eventPublisher,
+			EntityManagerFactory entityManagerFactory) {
+		this.productRepository = productRepository;
+		this.eventPublisher = eventPublisher;
+		this.entityManagerFactory = entityManagerFactory;
+	}
+
+	public void replay(List<ChangeEvent> changes) {
+		Set<Long> productIds = changes.stream().map(ChangeEvent::productId).filter(Objects::nonNull)
+				.collect(Collectors.toCollection(LinkedHashSet::new));
+		if (productIds.isEmpty()) {
+			return;
+		}
+		Cache cache = entityManagerFactory.getCache().unwrap(Cache.class);
+		productIds.forEach(productId -> cache.evictEntityData(Product.class, productId));
+		cache.evictQueryRegions();
+		Map<Long, Product> current = findOnPrimary(new ArrayList<>(productIds)).stream()
+				.collect(Collectors.toMap(Product::getId, Function.identity()));
+		for (Long productId : productIds) {
+			Product product = current.get(productId);
+			eventPublisher.publishEvent(
+					ProductChangedEvent.replayed(productId, product == null ? null : ProductState.of(product)));
+		}
+	}
+
+	/** a lagging replica could still have the state from before the change */
+	private List<Product> findOnPrimary(List<Long> productIds) {
+		List<Product> products = new ArrayList<>(productIds.size());
+		for (int from = 0; from < productIds.size(); from += ProductCatalogConstants.BULK_CHUNK_SIZE) {
+			List<Long> chunk = productIds.subList(from,
+					Math.min(productIds.size(), from + ProductCatalogConstants.BULK_CHUNK_SIZE));
+			products.addAll(ReplicaRoutingDataSource.onPrimary(() -> productRepository.findAllById(chunk)));
+		}
+		return products;
+	}
+}
@@ -0,0 +1,14 @@
+package com.productcatalog.app.outbox;
+
+import java.util.List;
+
+/**
+ * Destination of the change events relayed from the outbox. Every bean of
+ * this type receives every batch, in position order, on the instance that
+ * relays it. Delivery is at least once: if publishing throws, or the relay
+ * transaction fails afterwards, the batch is relayed again.
+ */
+public interface ChangeSink {
+
+	void publish(List<ChangeEvent> events);
+}
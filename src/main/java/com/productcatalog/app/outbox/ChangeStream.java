@@ -0,0 +1,325 @@
+package com.productcatalog.app.outbox;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.productcatalog.app.cache.CatalogVersion;
+import com.productcatalog.app.model.ProductChange;
+import com.productcatalog.app.repository.ProductChangeRepository;
+
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Serves the relayed changes to Server-Sent Events subscribers.
+ *
+ * Every productcatalog.outbox.stream.poll-ms the changes relayed since the
+ * last poll, by any instance, are read from the outbox and the newest
+ * productcatalog.outbox.stream.capacity are kept in memory. The SSE id of a
+ * change is its position. A client that reconnects with Last-Event-ID, to
+ * this instance or another one, gets the changes after it from memory or from
+ * the outbox, which keeps them for productcatalog.outbox.retention-hours. When
+ * they are gone, or the id is not a position, it gets a "reset" event and
+ * should reload the listing. Each batch read is first handed to
+ * {@link ChangeReplay}, so this instance has caught up with a change before
+ * its subscribers hear about it, and {@link CatalogVersion} is moved to the
+ * position read.
+ *
+ * Subscribers are sent to by productcatalog.outbox.stream.senders threads of
+ * their own, outside any transaction. Each subscriber keeps the position it
+ * has reached, so one that reads slowly only falls behind itself and catches
+ * up from the outbox.
+ */
+@Log4j2
+@Component
+public class ChangeStream implements SmartLifecycle {
+
+	public static final String RESET_EVENT = "reset";
+
+	private final ProductChangeRepository productChangeRepository;
+
+	private final ChangeReplay changeReplay;
+
+	private final CatalogVersion catalogVersion;
+
+	private final int capacity;
+
+	private final long timeoutMs;
+
+	private final int senders;
+
+	private final long pollMs;
+
+	private final Deque<ChangeEvent> buffer = new ArrayDeque<>();
+
+	private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+	/** position of the last change read from the outbox */
+	private volatile long position;
+
+	private volatile boolean running;
+
+	private ScheduledExecutorService poller;
+
+	private ExecutorService sender;
+
+	public ChangeStream(ProductChangeRepository productChangeRepository, ChangeReplay changeReplay,
+			CatalogVersion catalogVersion,
+			@Value("${productcatalog.outbox.stream.capacity:10000}") int capacity,
+			@Value("${productcatalog.outbox.stream.timeout-ms:300000}") long timeoutMs,
+			@Value("${productcatalog.outbox.stream.senders:8}") int senders,
+			@Value("${productcatalog.outbox.stream.poll-ms:500}") long pollMs) {
+		this.productChangeRepository = productChangeRepository;
+		this.changeReplay = changeReplay;
+		this.catalogVersion = catalogVersion;
+		this.capacity = Math.max(1, capacity);
+		this.timeoutMs = timeoutMs;
+		this.senders = Math.max(1, senders);
+		this.pollMs = pollMs;
+	}
+
+	@Override
+	public void start() {
+		Long lastPosition = productChangeRepository.findLastPosition();
+		position = lastPosition == null ? 0 : lastPosition;
+		// the newest change is kept by the pruning
+		catalogVersion.advance(position, productChangeRepository.findRelayedAfter(position - 1, PageRequest.of(0, 1))
+				.stream().map(ProductChange::getChangedAt).findFirst().map(ChangeStream::instant)
+				.orElse(Instant.EPOCH));
+		poller = Executors.newSingleThreadScheduledExecutor(task -> {
+			Thread thread = new Thread(task, "change-stream-poll");
+			thread.setDaemon(true);
+			return thread;
+		});
+		AtomicInteger threads = new AtomicInteger();
+		sender = Executors.newFixedThreadPool(senders, task -> {
+			Thread thread = new Thread(task, "change-stream-" + threads.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		poller.scheduleWithFixedDelay(this::pollQuietly, pollMs, pollMs, TimeUnit.MILLISECONDS);
+		running = true;
+	}
+
+	@Override
+	public void stop() {
+		running = false;
+		poller.shutdownNow();
+		sender.shutdownNow();
+		subscribers.forEach(subscriber -> subscriber.emitter.complete());
+	}
+
+	@Override
+	public boolean isRunning() {
+		return running;
+	}
+
+	/** position of the newest change, the one a client that starts now resumes from */
+	public long position() {
+		return position;
+	}
+
+	/**
+	 * Reads the changes relayed since the last poll, replays them and wakes the
+	 * subscribers that are behind. A batch that fails to replay is read again
+	 * on the next poll.
+	 *
+	 * @return the number of changes read
+	 */
+	public int poll() {
+		int read = 0;
+		List<ChangeEvent> changes;
+		do {
+			changes = productChangeRepository.findRelayedAfter(position, PageRequest.of(0, capacity)).stream()
+					.map(ChangeEvent::of).toList();
+			if (!changes.isEmpty()) {
+				changeReplay.replay(changes);
+				append(changes);
+				ChangeEvent last = changes.get(changes.size() - 1);
+				catalogVersion.advance(last.position(), instant(last.changedAt()));
+				read += changes.size();
+			}
+		} while (changes.size() == capacity);
+		// also retries subscribers whose last read failed
+		subscribers.forEach(this::wake);
+		return read;
+	}
+
+	private void pollQuietly() {
+		try {
+			poll();
+		} catch (RuntimeException e) {
+			log.warn("Reading the change stream failed, retrying on the next poll - {}", e.getMessage());
+		}
+	}
+
+	private synchronized void append(List<ChangeEvent> changes) {
+		for (ChangeEvent change : changes) {
+			buffer.addLast(change);
+			if (buffer.size() > capacity) {
+				buffer.removeFirst();
+			}
+		}
+		position = buffer.getLast().position();
+	}
+
+	/**
+	 * @param lastEventId - the position of the last change the client has, null
+	 *                    to only receive changes from now on
+	 */
+	public SseEmitter subscribe(String lastEventId) {
+		SseEmitter emitter = new SseEmitter(timeoutMs);
+		Subscriber subscriber = new Subscriber(emitter);
+		emitter.onCompletion(() -> close(subscriber));
+		emitter.onTimeout(emitter::complete);
+		emitter.onError(e -> close(subscriber));
+		Long after = lastEventId == null || lastEventId.isBlank() ? Long.valueOf(position) : parse(lastEventId);
+		if (after == null || after > position && !isRelayed(after)) {
+			if (!reset(subscriber)) {
+				return emitter;
+			}
+		} else {
+			subscriber.position = after;
+		}
+		subscribers.add(subscriber);
+		wake(subscriber);
+		return emitter;
+	}
+
+	/**
+	 * @return up to capacity changes after the position, from memory when
+	 *         they are still there and otherwise from the outbox; empty when
+	 *         some of them are no longer kept
+	 */
+	public Optional<List<ChangeEvent>> changesAfter(long after) {
+		synchronized (this) {
+			ChangeEvent oldest = buffer.peekFirst();
+			if (oldest != null && after >= oldest.position() - 1) {
+				List<ChangeEvent> changes = new ArrayList<>();
+				buffer.stream().skip(after - oldest.position() + 1).forEach(changes::add);
+				return Optional.of(changes);
+			}
+		}
+		List<ChangeEvent> changes = productChangeRepository.findRelayedAfter(after, PageRequest.of(0, capacity))
+				.stream().map(ChangeEvent::of).toList();
+		if (!changes.isEmpty() && changes.get(0).position() != after + 1) {
+			return Optional.empty();
+		}
+		return Optional.of(changes);
+	}
+
+	private void wake(Subscriber subscriber) {
+		if (!subscriber.closed && subscriber.position < position && subscriber.scheduled.compareAndSet(false, true)) {
+			sender.execute(() -> drain(subscriber));
+		}
+	}
+
+	/** sends until the subscriber has caught up, a poll that lands meanwhile wakes it again */
+	private void drain(Subscriber subscriber) {
+		try {
+			while (!subscriber.closed && subscriber.position < position) {
+				Optional<List<ChangeEvent>> changes = changesAfter(subscriber.position);
+				if (changes.isEmpty()) {
+					if (!reset(subscriber)) {
+						return;
+					}
+					continue;
+				}
+				if (changes.get().isEmpty()) {
+					// served by a replica that is behind the last poll, the next poll retries
+					return;
+				}
+				for (ChangeEvent change : changes.get()) {
+					subscriber.emitter.send(SseEmitter.event().id(String.valueOf(change.position())).data(change));
+					subscriber.position = change.position();
+				}
+			}
+		} catch (IOException | IllegalStateException e) {
+			drop(subscriber, e);
+			return;
+		} catch (RuntimeException e) {
+			log.warn("Could not read changes for a subscriber, retrying on the next poll - {}", e.getMessage());
+			return;
+		} finally {
+			subscriber.scheduled.set(false);
+		}
+		wake(subscriber);
+	}
+
+	/** tells the subscriber that it missed changes and moves it to the newest */
+	private boolean reset(Subscriber subscriber) {
+		long now = position;
+		try {
+			subscriber.emitter.send(SseEmitter.event().name(RESET_EVENT).id(String.valueOf(now)).data(now));
+			subscriber.position = now;
+			return true;
+		} catch (IOException | IllegalStateException e) {
+			drop(subscriber, e);
+			return false;
+		}
+	}
+
+	private void drop(Subscriber subscriber, Exception e) {
+		log.debug("Dropping change stream subscriber - {}", e.getMessage());
+		close(subscriber);
+		subscriber.emitter.completeWithError(e);
+	}
+
+	private void close(Subscriber subscriber) {
+		subscriber.closed = true;
+		subscribers.remove(subscriber);
+	}
+
+	/** for a client coming from an instance whose last poll was more recent than ours */
+	private boolean isRelayed(long after) {
+		Long lastPosition = productChangeRepository.findLastPosition();
+		return lastPosition != null && after <= lastPosition;
+	}
+
+	private static Instant instant(LocalDateTime changedAt) {
+		return changedAt.atZone(ZoneId.systemDefault()).toInstant();
+	}
+
+	private static Long parse(String lastEventId) {
+		try {
+			return Long.parseLong(lastEventId.trim());
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	private static final class Subscriber {
+
+		private final SseEmitter emitter;
+
+		private final AtomicBoolean scheduled = new AtomicBoolean();
+
+		/** position of the last change sent, only written by the sender draining it */
+		private volatile long position;
+
+		private volatile boolean closed;
+
+		private Subscriber(SseEmitter emitter) {
+			this.emitter = emitter;
+		}
+	}
+}
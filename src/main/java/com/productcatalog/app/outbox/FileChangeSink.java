@@ -0,0 +1,47 @@
+package com.productcatalog.app.outbox;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Appends every change as a line of JSON to productcatalog.outbox.file, for
+ * tests and for feeding tools that tail a file. Enabled by setting the path.
+ */
+@Component
+@ConditionalOnProperty(name = "productcatalog.outbox.file")
+public class FileChangeSink implements ChangeSink {
+
+	private final Path file;
+
+	private final ObjectMapper objectMapper;
+
+	public FileChangeSink(@Value("${productcatalog.outbox.file}") Path file, ObjectMapper objectMapper) {
+		this.file = file;
+		this.objectMapper = objectMapper;
+	}
+
+	@Override
+	public synchronized void publish(List<ChangeEvent> events) {
+		try (OutputStream out = new BufferedOutputStream(
+				Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND))) {
+			for (ChangeEvent event : events) {
+				out.write(objectMapper.writeValueAsBytes(event));
+				out.write('\n');
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not append changes to " + file, e);
+		}
+	}
+}
@@ -0,0 +1,124 @@
+package com.productcatalog.app.outbox;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.productcatalog.app.model.JobLock;
+import com.productcatalog.app.model.ProductChange;
+import com.productcatalog.app.repository.JobLockRepository;
+import com.productcatalog.app.repository.ProductChangeRepository;
+
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Moves outbox rows to the {@link ChangeSink}s every
+ * productcatalog.outbox.relay-ms. Each batch is numbered, published and
+ * marked relayed in one transaction, so a batch only counts as relayed once
+ * every sink has taken it.
+ *
+ * Instances sharing the database relay one at a time, the one holding the
+ * outbox relay {@link JobLock} does it and the others skip their run. That
+ * makes the positions follow the order in which batches commit, so a reader
+ * that has seen position n has seen every change before it. The row ids cannot
+ * be used for this, every instance reserves them in blocks of
+ * ID_ALLOCATION_SIZE.
+ *
+ * Relayed rows are kept for productcatalog.outbox.retention-hours for change
+ * stream clients that resume from an older position.
+ */
+@Log4j2
+@Component
+public class OutboxRelay {
+
+	private final ProductChangeRepository productChangeRepository;
+
+	private final JobLockRepository jobLockRepository;
+
+	private final List<ChangeSink> sinks;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final int batchSize;
+
+	private final long retentionHours;
+
+	private volatile boolean lockCreated;
+
+	public OutboxRelay(ProductChangeRepository productChangeRepository, JobLockRepository jobLockRepository,
+			List<ChangeSink> sinks, PlatformTransactionManager transactionManager,
+			@Value("${productcatalog.outbox.batch-size:500}") int batchSize,
+			@Value("${productcatalog.outbox.retention-hours:24}") long retentionHours) {
+		this.productChangeRepository = productChangeRepository;
+		this.jobLockRepository = jobLockRepository;
+		this.sinks = sinks;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.batchSize = Math.max(1, batchSize);
+		this.retentionHours = retentionHours;
+	}
+
+	@Scheduled(fixedDelayString = "${productcatalog.outbox.relay-ms:500}")
+	public void relay() {
+		try {
+			if (!lockCreated) {
+				jobLockRepository.createIfMissing(JobLock.OUTBOX_RELAY);
+				lockCreated = true;
+			}
+			while (relayBatch() == batchSize) {
+				// a full batch means there may be more
+			}
+		} catch (RuntimeException e) {
+			log.warn("Outbox relay failed, retrying on the next run - {}", e.getMessage());
+		}
+	}
+
+	/**
+	 * @return the number of changes relayed, 0 when another instance is
+	 *         relaying
+	 */
+	public int relayBatch() {
+		return transactionTemplate.execute(status -> {
+			if (jobLockRepository.claim(JobLock.OUTBOX_RELAY).isEmpty()) {
+				return 0;
+			}
+			List<ProductChange> changes = productChangeRepository.findUnrelayed(PageRequest.of(0, batchSize));
+			if (changes.isEmpty()) {
+				return 0;
+			}
+			Long lastPosition = productChangeRepository.findLastPosition();
+			long position = lastPosition == null ? 0 : lastPosition;
+			for (ProductChange change : changes) {
+				change.setPosition(++position);
+			}
+			List<ChangeEvent> events = changes.stream().map(ChangeEvent::of).toList();
+			for (ChangeSink sink : sinks) {
+				sink.publish(events);
+			}
+			log.debug("Relayed {} product changes up to position {}", changes.size(), position);
+			return changes.size();
+		});
+	}
+
+	/** removes the changes that are past the retention */
+	@Scheduled(fixedDelayString = "${productcatalog.outbox.prune-ms:60000}")
+	public void prune() {
+		try {
+			Long lastPosition = productChangeRepository.findLastPosition();
+			if (lastPosition != null) {
+				int deleted = productChangeRepository.deleteRelayedBefore(lastPosition,
+						LocalDateTime.now().minusHours(retentionHours));
+				if (deleted > 0) {
+					log.debug("Removed {} relayed product changes older than {}h", deleted, retentionHours);
+				}
+			}
+		} catch (RuntimeException e) {
+			log.warn("Outbox pruning failed, retrying on the next run - {}", e.getMessage());
+		}
+	}
+}
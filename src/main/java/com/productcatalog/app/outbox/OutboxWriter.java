@@ -0,0 +1,52 @@
+package com.productcatalog.app.outbox;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.productcatalog.app.event.ProductChangedEvent;
+import com.productcatalog.app.event.ProductState;
+import com.productcatalog.app.model.ProductChange;
+import com.productcatalog.app.model.ProductChange.ChangeType;
+import com.productcatalog.app.repository.ProductChangeRepository;
+
+/**
+ * Writes an outbox row for every {@link ProductChangedEvent}. Unlike the
+ * listeners that maintain caches and indexes this one runs synchronously,
+ * inside the transaction that changes the product, so the row commits or
+ * rolls back together with the change. Replayed events already have their
+ * row.
+ */
+@Component
+public class OutboxWriter {
+
+	private final ProductChangeRepository productChangeRepository;
+
+	public OutboxWriter(ProductChangeRepository productChangeRepository) {
+		this.productChangeRepository = productChangeRepository;
+	}
+
+	@EventListener
+	public void onProductChanged(ProductChangedEvent event) {
+		if (event.getProductId() != null && !event.isReplayed()) {
+			productChangeRepository.save(toChange(event));
+		}
+	}
+
+	public static ProductChange toChange(ProductChangedEvent event) {
+		ProductState after = event.getAfter();
+		ProductChange change = new ProductChange();
+		change.setProductId(event.getProductId());
+		if (after == null || !after.isActive()) {
+			change.setType(ChangeType.DELETED);
+		} else {
+			change.setType(event.getBefore() == null ? ChangeType.CREATED : ChangeType.UPDATED);
+		}
+		if (after != null) {
+			change.setName(after.getName());
+			change.setPrice(after.getPrice());
+			change.setStatus(after.getStatus());
+			change.setPostedDate(after.getPostedDate());
+		}
+		return change;
+	}
+}
@@ -1,14 +1,35 @@
 package com.productcatalog.app.repository;
 
-import java.util.List;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.productcatalog.app.model.ApprovalQueue;
 
 @Repository
-public interface ApprovalQueueRepository extends JpaRepository<ApprovalQueue, Long> {
-	List<ApprovalQueue> findAllByOrderByApprovalRequestDateAsc();
+public interface ApprovalQueueRepository extends JpaRepository<ApprovalQueue, Long>,
+		JpaSpecificationExecutor<ApprovalQueue>, ApprovalQueueRepositoryCustom {
+
+	@Modifying
+	@Transactional
+	@Query("UPDATE ApprovalQueue a SET a.version = 0 WHERE a.version IS NULL")
+	int backfillVersion();
+
+	/** bulk update on purpose: the version is not bumped, so If-Match tokens handed to approvers stay valid */
+	@Modifying
+	@Query("UPDATE ApprovalQueue a SET a.autoReviewedAt = :reviewedAt WHERE a.id IN :ids")
+	int markAutoReviewed(@Param("ids") Collection<Long> ids, @Param("reviewedAt") LocalDateTime reviewedAt);
+
+	/** there is at most one, see ProductCatalogConstants.APPROVAL_QUEUE_PENDING_KEY */
+	@Query("SELECT a FROM ApprovalQueue a WHERE a.productId = :productId AND a.approvalAction = 'PENDING'")
+	Optional<ApprovalQueue> findPendingByProductId(@Param("productId") Long productId);
 
 }
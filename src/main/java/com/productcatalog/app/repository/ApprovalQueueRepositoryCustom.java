@@ -0,0 +1,32 @@
+package com.productcatalog.app.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.productcatalog.app.model.ApprovalQueue;
+
+public interface ApprovalQueueRepositoryCustom {
+
+	/**
+	 * First maxResults rows matching the specification, oldest request first.
+	 * Unlike findAll(Specification, Pageable) no count query is issued.
+	 */
+	List<ApprovalQueue> findOldestFirst(Specification<ApprovalQueue> specification, int maxResults);
+
+	/**
+	 * Locks up to maxResults pending requests the auto-approval rules have not
+	 * looked at yet, oldest first, with SELECT ... FOR UPDATE SKIP LOCKED. Rows
+	 * locked by another transaction are skipped rather than waited for, so
+	 * concurrent workers each get a different batch. The locks are held until
+	 * the calling transaction ends.
+	 */
+	List<ApprovalQueue> claimForAutoReview(int maxResults);
+
+	/**
+	 * Merges pending requests queued for the same product before requests were
+	 * coalesced into one: the newest values are kept under the oldest request
+	 * date and the other rows are deleted. Returns the number of rows deleted.
+	 */
+	int coalescePendingRequests();
+}
@@ -0,0 +1,72 @@
+package com.productcatalog.app.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.productcatalog.app.model.ApprovalQueue;
+import com.productcatalog.app.response.ProductCatalogConstants;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+public class ApprovalQueueRepositoryCustomImpl implements ApprovalQueueRepositoryCustom {
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	public List<ApprovalQueue> findOldestFirst(Specification<ApprovalQueue> specification, int maxResults) {
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<ApprovalQueue> query = cb.createQuery(ApprovalQueue.class);
+		Root<ApprovalQueue> root = query.from(ApprovalQueue.class);
+		Predicate predicate = specification == null ? null : specification.toPredicate(root, query, cb);
+		if (predicate != null) {
+			query.where(predicate);
+		}
+		query.orderBy(cb.asc(root.get("approvalRequestDate")), cb.asc(root.get("id")));
+		return entityManager.createQuery(query).setMaxResults(maxResults).getResultList();
+	}
+
+	@Override
+	public List<ApprovalQueue> claimForAutoReview(int maxResults) {
+		return entityManager
+				.createQuery("SELECT a FROM ApprovalQueue a WHERE a.approvalAction = :action AND a.autoReviewedAt IS NULL"
+						+ " ORDER BY a.approvalRequestDate, a.id", ApprovalQueue.class)
+				.setParameter("action", "PENDING")
+				.setHint(ProductCatalogConstants.LOCK_MODE_HINT, ProductCatalogConstants.SKIP_LOCKED)
+				.setMaxResults(maxResults).getResultList();
+	}
+
+	@Override
+	@Transactional
+	public int coalescePendingRequests() {
+		// MySQL cannot delete from a table it selects from in a subquery, so the rows are merged here
+		List<ApprovalQueue> duplicates = entityManager
+				.createQuery("SELECT a FROM ApprovalQueue a WHERE a.approvalAction = :action AND a.productId IN"
+						+ " (SELECT d.productId FROM ApprovalQueue d WHERE d.approvalAction = :action"
+						+ " GROUP BY d.productId HAVING COUNT(d) > 1) ORDER BY a.productId, a.id DESC", ApprovalQueue.class)
+				.setParameter("action", "PENDING").getResultList();
+		int deleted = 0;
+		ApprovalQueue kept = null;
+		for (ApprovalQueue request : duplicates) {
+			if (kept == null || !kept.getProductId().equals(request.getProductId())) {
+				kept = request;
+				kept.setAutoReviewedAt(null);
+				continue;
+			}
+			if (request.getApprovalRequestDate() != null && (kept.getApprovalRequestDate() == null
+					|| request.getApprovalRequestDate().isBefore(kept.getApprovalRequestDate()))) {
+				kept.setApprovalRequestDate(request.getApprovalRequestDate());
+			}
+			entityManager.remove(request);
+			deleted++;
+		}
+		return deleted;
+	}
+}
@@ -0,0 +1,69 @@
+package com.productcatalog.app.repository;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.productcatalog.app.model.ApprovalQueue;
+import com.productcatalog.app.model.ApprovalQueueCriteria;
+
+/**
+ * Building blocks for approval queue listing, following the same rules as
+ * {@link ProductSpecifications}: a factory returns null when its criterion was
+ * not supplied. The action and request date predicates line up with the
+ * (approvalAction, approvalRequestDate, id) index and productId leads the
+ * pending request key.
+ */
+public final class ApprovalQueueSpecifications {
+
+	private ApprovalQueueSpecifications() {
+	}
+
+	public static Specification<ApprovalQueue> matching(ApprovalQueueCriteria criteria) {
+		return Specification.where(hasApprovalAction(criteria.getApprovalAction()))
+				.and(hasProductId(criteria.getProductId()))
+				.and(requestDateBetween(criteria.getMinRequestDate(), criteria.getMaxRequestDate()));
+	}
+
+	public static Specification<ApprovalQueue> hasApprovalAction(String approvalAction) {
+		if (approvalAction == null) {
+			return null;
+		}
+		return (root, query, cb) -> cb.equal(root.get("approvalAction"), approvalAction);
+	}
+
+	public static Specification<ApprovalQueue> hasProductId(Long productId) {
+		if (productId == null) {
+			return null;
+		}
+		return (root, query, cb) -> cb.equal(root.get("productId"), productId);
+	}
+
+	public static Specification<ApprovalQueue> requestDateBetween(LocalDateTime minRequestDate,
+			LocalDateTime maxRequestDate) {
+		if (minRequestDate == null && maxRequestDate == null) {
+			return null;
+		}
+		if (maxRequestDate == null) {
+			return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("approvalRequestDate"), minRequestDate);
+		}
+		if (minRequestDate == null) {
+			return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("approvalRequestDate"), maxRequestDate);
+		}
+		return (root, query, cb) -> cb.between(root.get("approvalRequestDate"), minRequestDate, maxRequestDate);
+	}
+
+	/**
+	 * Rows that come after (approvalRequestDate, id) in the oldest-first listing
+	 * order. Written as a range on approvalRequestDate plus a tie breaker on id
+	 * so it stays a range scan on the index.
+	 */
+	public static Specification<ApprovalQueue> after(LocalDateTime approvalRequestDate, Long id) {
+		if (approvalRequestDate == null) {
+			return null;
+		}
+		return (root, query, cb) -> cb.and(cb.greaterThanOrEqualTo(root.get("approvalRequestDate"), approvalRequestDate),
+				cb.or(cb.greaterThan(root.get("approvalRequestDate"), approvalRequestDate),
+						cb.greaterThan(root.get("id"), id)));
+	}
+}
@@ -0,0 +1,43 @@
+package com.productcatalog.app.repository;
+
+import java.util.Optional;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.productcatalog.app.model.JobLock;
+import com.productcatalog.app.response.ProductCatalogConstants;
+
+import jakarta.persistence.QueryHint;
+
+@Repository
+public interface JobLockRepository extends JpaRepository<JobLock, String> {
+
+	/**
+	 * The lock row of the job, locked with SELECT ... FOR UPDATE SKIP LOCKED
+	 * until the surrounding transaction ends. Empty while another instance
+	 * holds it, or when the row has not been created.
+	 */
+	@QueryHints(@QueryHint(name = ProductCatalogConstants.LOCK_MODE_HINT, value = ProductCatalogConstants.SKIP_LOCKED))
+	@Query("SELECT j FROM JobLock j WHERE j.name = :name")
+	Optional<JobLock> claim(@Param("name") String name);
+
+	/**
+	 * Creates the lock row of the job unless another instance already did.
+	 * Must not be called inside a transaction, a duplicate key would roll it
+	 * back.
+	 */
+	default void createIfMissing(String name) {
+		if (!existsById(name)) {
+			try {
+				saveAndFlush(new JobLock(name, null));
+			} catch (DataIntegrityViolationException e) {
+				// created by another instance starting at the same time
+			}
+		}
+	}
+}
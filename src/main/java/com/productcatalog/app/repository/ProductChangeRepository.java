@@ -0,0 +1,42 @@
+package com.productcatalog.app.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.productcatalog.app.model.ProductChange;
+
+@Repository
+public interface ProductChangeRepository extends JpaRepository<ProductChange, Long> {
+
+	/**
+	 * Outbox rows not relayed yet, oldest first. Only called by the instance
+	 * holding the outbox relay lock.
+	 */
+	@Query("SELECT c FROM ProductChange c WHERE c.position IS NULL ORDER BY c.id")
+	List<ProductChange> findUnrelayed(Pageable pageable);
+
+	/** position of the newest relayed change, null before the first */
+	@Query("SELECT MAX(c.position) FROM ProductChange c")
+	Long findLastPosition();
+
+	/** relayed changes after the position, in position order */
+	@Query("SELECT c FROM ProductChange c WHERE c.position > :position ORDER BY c.position")
+	List<ProductChange> findRelayedAfter(@Param("position") long position, Pageable pageable);
+
+	/**
+	 * Deletes relayed changes made before the cutoff, except the newest, which
+	 * keeps the position counter going.
+	 */
+	@Modifying
+	@Transactional
+	@Query("DELETE FROM ProductChange c WHERE c.position < :lastPosition AND c.changedAt < :cutoff")
+	int deleteRelayedBefore(@Param("lastPosition") long lastPosition, @Param("cutoff") LocalDateTime cutoff);
+}
@@ -3,22 +3,113 @@ package com.productcatalog.app.repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.productcatalog.app.model.Product;
 import com.productcatalog.app.model.Status;
+import com.productcatalog.app.response.ProductCatalogConstants;
+
+import jakarta.persistence.QueryHint;
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
-	List<Product> findProductByStatusOrderByPostedDateDesc(Status status);
-
-  
-  
-   List<Product> findByNameEqualsIgnoreCaseOrPriceBetweenOrPostedDateBetweenAndStatus(
-           String productName, Double minPrice, Double maxPrice,
-           LocalDateTime minPostedDate, LocalDateTime maxPostedDate,Status status);
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product>,
+		ProductRepositoryCustom {
+	/**
+	 * Streams rows from a server side cursor, must be consumed inside a
+	 * transaction. The rows bypass the second-level cache, a full export
+	 * would only evict the products that are actually hot.
+	 */
+	@QueryHints({ @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = ProductCatalogConstants.STREAM_FETCH_SIZE),
+			@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+			@QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE") })
+	@Query("SELECT p FROM Product p WHERE p.status = :status ORDER BY p.postedDate DESC, p.id DESC")
+	Stream<Product> streamByStatus(@Param("status") Status status);
+
+	/**
+	 * Catalog fields of every product in the given status, read as scalars so
+	 * the rows never enter the persistence context. Used to load the in-memory
+	 * indexes, must be consumed inside a transaction.
+	 */
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = ProductCatalogConstants.STREAM_FETCH_SIZE))
+	@Query("SELECT p.id AS id, p.name AS name, p.price AS price, p.postedDate AS postedDate FROM Product p"
+			+ " WHERE p.status = :status")
+	Stream<ProductSummary> streamSummariesByStatus(@Param("status") Status status);
+
+	interface ProductSummary {
+
+		Long getId();
+
+		String getName();
+
+		Double getPrice();
+
+		LocalDateTime getPostedDate();
+	}
+
+	/**
+	 * Id and price of every priced product in the given status, in id order.
+	 * Used to load the price index, must be consumed inside a transaction.
+	 */
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = ProductCatalogConstants.STREAM_FETCH_SIZE))
+	@Query("SELECT p.id AS id, p.price AS price FROM Product p WHERE p.status = :status AND p.price IS NOT NULL"
+			+ " ORDER BY p.id")
+	Stream<ProductPrice> streamPricesByStatus(@Param("status") Status status);
+
+	interface ProductPrice {
+
+		Long getId();
+
+		Double getPrice();
+	}
+
+	/**
+	 * Every product in id order, read as scalars for the catalog snapshot.
+	 * Must be consumed inside a transaction.
+	 */
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = ProductCatalogConstants.STREAM_FETCH_SIZE))
+	@Query("SELECT p.id AS id, p.name AS name, p.price AS price, p.postedDate AS postedDate, p.status AS status"
+			+ " FROM Product p ORDER BY p.id")
+	Stream<ProductSnapshotRow> streamSnapshotRows();
+
+	interface ProductSnapshotRow {
+
+		Long getId();
+
+		String getName();
+
+		Double getPrice();
+
+		LocalDateTime getPostedDate();
+
+		Status getStatus();
+	}
+
+
+	/**
+	 * Fills nameLower for rows written before the column existed.
+	 */
+	@Modifying
+	@Transactional
+	@Query("UPDATE Product p SET p.nameLower = LOWER(p.name) WHERE p.nameLower IS NULL AND p.name IS NOT NULL")
+	int backfillNameLower();
+
+	/**
+	 * Rows written before the version column existed start at version 0.
+	 */
+	@Modifying
+	@Transactional
+	@Query("UPDATE Product p SET p.version = 0 WHERE p.version IS NULL")
+	int backfillVersion();
 
    }
 
@@ -0,0 +1,30 @@
+package com.productcatalog.app.repository;
+
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import com.productcatalog.app.model.Product;
+import com.productcatalog.app.response.ProductView;
+
+public interface ProductRepositoryCustom {
+
+	/**
+	 * Rows matching the specification as {@link ProductView}s, read as tuples
+	 * of the selected columns so no entity is instantiated or tracked.
+	 *
+	 * @param fields     - columns to read, null for all, the others are null
+	 * @param maxResults - row limit, 0 for no limit
+	 */
+	List<ProductView> findViews(Specification<Product> specification, Set<String> fields, Sort sort, int maxResults);
+
+	/**
+	 * {@link #findViews} through the Hibernate query cache. A cached result is
+	 * served until a product is written or it expires, so load it from the
+	 * primary.
+	 */
+	List<ProductView> findCachedViews(Specification<Product> specification, Set<String> fields, Sort sort,
+			int maxResults);
+}
@@ -0,0 +1,78 @@
+package com.productcatalog.app.repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import com.productcatalog.app.model.Product;
+import com.productcatalog.app.model.Status;
+import com.productcatalog.app.response.ProductView;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	public List<ProductView> findViews(Specification<Product> specification, Set<String> fields, Sort sort,
+			int maxResults) {
+		return queryViews(specification, fields, sort, maxResults, false);
+	}
+
+	@Override
+	public List<ProductView> findCachedViews(Specification<Product> specification, Set<String> fields, Sort sort,
+			int maxResults) {
+		return queryViews(specification, fields, sort, maxResults, true);
+	}
+
+	private List<ProductView> queryViews(Specification<Product> specification, Set<String> fields, Sort sort,
+			int maxResults, boolean cacheable) {
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Tuple> query = cb.createTupleQuery();
+		Root<Product> root = query.from(Product.class);
+		List<String> columns = fields == null ? ProductView.FIELDS
+				: ProductView.FIELDS.stream().filter(fields::contains).toList();
+		query.multiselect(columns.stream().<Selection<?>>map(column -> root.get(column).alias(column)).toList());
+		Predicate predicate = specification == null ? null : specification.toPredicate(root, query, cb);
+		if (predicate != null) {
+			query.where(predicate);
+		}
+		query.orderBy(QueryUtils.toOrders(sort, root, cb));
+		TypedQuery<Tuple> typedQuery = entityManager.createQuery(query);
+		if (maxResults > 0) {
+			typedQuery.setMaxResults(maxResults);
+		}
+		if (cacheable) {
+			typedQuery.setHint(HibernateHints.HINT_CACHEABLE, true);
+		}
+		List<Tuple> rows = typedQuery.getResultList();
+		List<ProductView> views = new ArrayList<>(rows.size());
+		for (Tuple row : rows) {
+			views.add(new ProductView(value(row, columns, "id", Long.class), value(row, columns, "name", String.class),
+					value(row, columns, "price", Double.class), value(row, columns, "status", Status.class),
+					value(row, columns, "postedDate", LocalDateTime.class),
+					value(row, columns, "version", Long.class)));
+		}
+		return views;
+	}
+
+	private static <T> T value(Tuple row, List<String> columns, String column, Class<T> type) {
+		return columns.contains(column) ? row.get(column, type) : null;
+	}
+}
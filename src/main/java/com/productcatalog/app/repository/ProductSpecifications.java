@@ -0,0 +1,92 @@
+package com.productcatalog.app.repository;
+
+import java.time.LocalDateTime;
+import java.util.Locale;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.productcatalog.app.model.Product;
+import com.productcatalog.app.model.ProductSearchCriteria;
+import com.productcatalog.app.model.Status;
+
+/**
+ * Building blocks for product search.
+ * 
+ * Every factory returns null when its criterion was not supplied, which
+ * Specification.and() skips, so the final predicate only contains what the
+ * caller asked for. Each predicate compares a bare column against a bound value
+ * so it can be answered by a range scan on the matching (status, column) index.
+ */
+public final class ProductSpecifications {
+
+	private ProductSpecifications() {
+	}
+
+	public static Specification<Product> matching(Status status, ProductSearchCriteria criteria) {
+		return Specification.where(hasStatus(status))
+				.and(nameEqualsIgnoreCase(criteria.getProductName()))
+				.and(priceBetween(criteria.getMinPrice(), criteria.getMaxPrice()))
+				.and(postedDateBetween(criteria.getMinPostedDate(), criteria.getMaxPostedDate()));
+	}
+
+	public static Specification<Product> hasStatus(Status status) {
+		return (root, query, cb) -> cb.equal(root.get("status"), status);
+	}
+
+	/**
+	 * Matches on the stored lower cased name, see {@link Product#getNameLower()}.
+	 */
+	public static Specification<Product> nameEqualsIgnoreCase(String name) {
+		if (name == null) {
+			return null;
+		}
+		String nameLower = name.toLowerCase(Locale.ROOT);
+		return (root, query, cb) -> cb.equal(root.get("nameLower"), nameLower);
+	}
+
+	/**
+	 * Matches names containing the text anywhere, which no index answers. Only
+	 * for the name search while its index loads.
+	 */
+	public static Specification<Product> nameContains(String text) {
+		String pattern = "%" + text.toLowerCase(Locale.ROOT).replace("\\", "\\\\").replace("%", "\\%")
+				.replace("_", "\\_") + "%";
+		return (root, query, cb) -> cb.like(root.get("nameLower"), pattern, '\\');
+	}
+
+	/**
+	 * Keyset seek for the rows after (postedDate, id) in newest first order.
+	 * Written as a single range on postedDate so the (status, postedDate, id)
+	 * index is used.
+	 */
+	public static Specification<Product> postedBefore(LocalDateTime postedDate, Long id) {
+		return (root, query, cb) -> cb.and(cb.lessThanOrEqualTo(root.get("postedDate"), postedDate),
+				cb.or(cb.lessThan(root.get("postedDate"), postedDate), cb.lessThan(root.get("id"), id)));
+	}
+
+	public static Specification<Product> priceBetween(Double minPrice, Double maxPrice) {
+		if (minPrice == null && maxPrice == null) {
+			return null;
+		}
+		if (maxPrice == null) {
+			return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("price"), minPrice);
+		}
+		if (minPrice == null) {
+			return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("price"), maxPrice);
+		}
+		return (root, query, cb) -> cb.between(root.get("price"), minPrice, maxPrice);
+	}
+
+	public static Specification<Product> postedDateBetween(LocalDateTime minPostedDate, LocalDateTime maxPostedDate) {
+		if (minPostedDate == null && maxPostedDate == null) {
+			return null;
+		}
+		if (maxPostedDate == null) {
+			return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("postedDate"), minPostedDate);
+		}
+		if (minPostedDate == null) {
+			return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("postedDate"), maxPostedDate);
+		}
+		return (root, query, cb) -> cb.between(root.get("postedDate"), minPostedDate, maxPostedDate);
+	}
+}
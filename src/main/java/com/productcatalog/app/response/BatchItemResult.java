@@ -0,0 +1,53 @@
+package com.productcatalog.app.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Result for a single item of a batch request. index is the position of the
+ * item in the request, productId or approvalId is set depending on where the
+ * item ended up and message explains a rejection.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchItemResult {
+
+	private int index;
+
+	private BatchOutcome outcome;
+
+	private Long productId;
+
+	private Long approvalId;
+
+	private String message;
+
+	public static BatchItemResult created(int index, Long productId) {
+		return new BatchItemResult(index, BatchOutcome.CREATED, productId, null, null);
+	}
+
+	public static BatchItemResult queued(int index, Long approvalId) {
+		return new BatchItemResult(index, BatchOutcome.QUEUED_FOR_APPROVAL, null, approvalId, null);
+	}
+
+	public static BatchItemResult rejected(int index, String message) {
+		return rejected(index, null, message);
+	}
+
+	public static BatchItemResult rejected(int index, Long approvalId, String message) {
+		return new BatchItemResult(index, BatchOutcome.REJECTED, null, approvalId, message);
+	}
+
+	public static BatchItemResult approved(int index, Long approvalId, Long productId, String message) {
+		return new BatchItemResult(index, BatchOutcome.APPROVED, productId, approvalId, message);
+	}
+
+	public static BatchItemResult notFound(int index, Long approvalId, String message) {
+		return new BatchItemResult(index, BatchOutcome.NOT_FOUND, null, approvalId, message);
+	}
+}
@@ -0,0 +1,8 @@
+package com.productcatalog.app.response;
+
+/**
+ * What happened to one item of a batch request.
+ */
+public enum BatchOutcome {
+	CREATED, QUEUED_FOR_APPROVAL, APPROVED, REJECTED, NOT_FOUND
+}
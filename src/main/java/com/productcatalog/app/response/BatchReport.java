@@ -0,0 +1,26 @@
+package com.productcatalog.app.response;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Per item results of a batch request along with a count for each outcome
+ * that occurred.
+ */
+@Data
+@NoArgsConstructor
+public class BatchReport {
+
+	private Map<BatchOutcome, Integer> summary = new EnumMap<>(BatchOutcome.class);
+
+	private List<BatchItemResult> items;
+
+	public BatchReport(List<BatchItemResult> items) {
+		this.items = items;
+		items.forEach(item -> summary.merge(item.getOutcome(), 1, Integer::sum));
+	}
+}
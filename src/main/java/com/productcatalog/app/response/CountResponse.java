@@ -0,0 +1,13 @@
+package com.productcatalog.app.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CountResponse {
+
+	private long count;
+}
@@ -0,0 +1,48 @@
+package com.productcatalog.app.response;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Counts of the active products matching a search, by price bucket and by
+ * posted day. Every price bucket up to MAX_PRICE is listed, days only when
+ * they have products.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class FacetResponse {
+
+	private long total;
+
+	private List<PriceBucket> prices;
+
+	private List<DayCount> postedDates;
+
+	/** products priced from "from" (inclusive) up to "to" (exclusive, inclusive for the last bucket) */
+	@Data
+	@AllArgsConstructor
+	@NoArgsConstructor
+	public static class PriceBucket {
+
+		private double from;
+
+		private double to;
+
+		private long count;
+	}
+
+	@Data
+	@AllArgsConstructor
+	@NoArgsConstructor
+	public static class DayCount {
+
+		private LocalDate date;
+
+		private long count;
+	}
+}
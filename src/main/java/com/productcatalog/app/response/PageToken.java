@@ -0,0 +1,57 @@
+package com.productcatalog.app.response;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import com.productcatalog.app.exception.InvalidRequestException;
+
+/**
+ * Opaque continuation token for keyset pagination.
+ * 
+ * The token carries the sort key (timestamp, id) of the last row returned, so
+ * the next page can seek past it on the index instead of skipping rows with an
+ * OFFSET. Clients must treat it as an opaque string.
+ */
+public final class PageToken {
+
+	private static final String SEPARATOR = "|";
+
+	private final LocalDateTime timestamp;
+
+	private final Long id;
+
+	private PageToken(LocalDateTime timestamp, Long id) {
+		this.timestamp = timestamp;
+		this.id = id;
+	}
+
+	public LocalDateTime getTimestamp() {
+		return timestamp;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public static String encode(LocalDateTime timestamp, Long id) {
+		String raw = timestamp + SEPARATOR + id;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * @param token - token previously returned by {@link #encode}
+	 * @return decoded sort key
+	 * @throws IllegalArgumentException if the token is malformed
+	 */
+	public static PageToken decode(String token) {
+		try {
+			String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+			int separator = raw.lastIndexOf(SEPARATOR);
+			return new PageToken(LocalDateTime.parse(raw.substring(0, separator)),
+					Long.valueOf(raw.substring(separator + 1)));
+		} catch (RuntimeException e) {
+			throw new InvalidRequestException("Invalid pageToken");
+		}
+	}
+}
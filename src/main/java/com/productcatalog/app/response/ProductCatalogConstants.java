@@ -1,8 +1,63 @@
 package com.productcatalog.app.response;
 
+import org.hibernate.LockMode;
+import org.hibernate.jpa.HibernateHints;
+
 public class ProductCatalogConstants {
 
 	public static final double MAX_PRICE = 10000;
 
 	public static final double MIN_APPROVAL_PRICE = 5000;
+
+	public static final int DEFAULT_PAGE_SIZE = 50;
+
+	public static final int MAX_PAGE_SIZE = 500;
+
+	/** rows fetched per round trip when streaming from a server side cursor */
+	public static final String STREAM_FETCH_SIZE = "500";
+
+	/** ids reserved per round trip to the id sequence, matches the JDBC batch size */
+	public static final int ID_ALLOCATION_SIZE = 50;
+
+	/** items written per transaction by the bulk ingest */
+	public static final int BULK_CHUNK_SIZE = 500;
+
+	/** largest JSON array accepted by the bulk ingest, bigger loads should be sent as NDJSON */
+	public static final int MAX_BULK_JSON_ITEMS = 10000;
+
+	/** approval ids accepted by one batch approve or reject, keeps the IN lists bounded */
+	public static final int MAX_APPROVAL_BATCH_SIZE = 1000;
+
+	/** attempts at an approval or rejection that keeps losing optimistic lock races */
+	public static final int MAX_APPROVAL_ATTEMPTS = 3;
+
+	/**
+	 * attempts at a write that loses the race to queue the first pending
+	 * request of a product, the next attempt finds that request and updates it
+	 */
+	public static final int MAX_PENDING_REQUEST_ATTEMPTS = 2;
+
+	/** results returned by the name search when no limit is given */
+	public static final int DEFAULT_NAME_SEARCH_LIMIT = 20;
+
+	/** price facet buckets between 0 and MAX_PRICE, 500 wide */
+	public static final int PRICE_FACET_BUCKETS = 20;
+
+	/** second-level cache regions, created with their bounds in SecondLevelCacheConfig */
+	public static final String PRODUCT_CACHE_REGION = "product";
+
+	public static final String APPROVAL_QUEUE_CACHE_REGION = "approvalQueue";
+
+	/** unique key allowing one pending approval request per product */
+	public static final String APPROVAL_QUEUE_PENDING_KEY = "uk_approval_queue_pending_product";
+
+	/**
+	 * Query hint claiming rows with SELECT ... FOR UPDATE SKIP LOCKED, so
+	 * instances polling the same table take different rows. Must be called
+	 * inside a transaction, the locks are held until it ends.
+	 */
+	public static final String LOCK_MODE_HINT = HibernateHints.HINT_NATIVE_LOCK_MODE;
+
+	/** external form of {@link LockMode#UPGRADE_SKIPLOCKED}, the value of LOCK_MODE_HINT */
+	public static final String SKIP_LOCKED = "upgrade-skiplocked";
 	}
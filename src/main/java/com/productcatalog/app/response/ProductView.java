@@ -0,0 +1,77 @@
+package com.productcatalog.app.response;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.productcatalog.app.exception.InvalidRequestException;
+import com.productcatalog.app.model.Product;
+import com.productcatalog.app.model.Status;
+
+/**
+ * Read-only row of the product listings and search, serialized like
+ * {@link Product}. Built straight from the selected columns, so listing rows
+ * never become managed entities.
+ *
+ * The "fields" request param limits both the columns read and the properties
+ * written, through the {@value #FIELDS_FILTER} Jackson filter. Columns that
+ * were not read are null.
+ */
+@JsonFilter(ProductView.FIELDS_FILTER)
+public record ProductView(Long id, String name, Double price, Status status, LocalDateTime postedDate,
+		Long version) {
+
+	public static final String FIELDS_FILTER = "productFields";
+
+	public static final List<String> FIELDS = List.of("id", "name", "price", "status", "postedDate", "version");
+
+	public static ProductView of(Product product) {
+		return new ProductView(product.getId(), product.getName(), product.getPrice(), product.getStatus(),
+				product.getPostedDate(), product.getVersion());
+	}
+
+	/**
+	 * @param fields - comma separated property names, null or blank for all
+	 * @return the requested properties in request order, null for all
+	 */
+	public static Set<String> parseFields(String fields) {
+		if (fields == null || fields.isBlank()) {
+			return null;
+		}
+		Set<String> selected = new LinkedHashSet<>();
+		for (String field : fields.split(",")) {
+			String name = field.trim();
+			if (!FIELDS.contains(name)) {
+				throw new InvalidRequestException("Unknown field '" + name + "', fields can be " + FIELDS);
+			}
+			selected.add(name);
+		}
+		return selected;
+	}
+
+	/**
+	 * @param fields - property names, null for all
+	 * @return the row as if only the columns of the fields had been read
+	 */
+	public ProductView select(Set<String> fields) {
+		if (fields == null) {
+			return this;
+		}
+		return new ProductView(fields.contains("id") ? id : null, fields.contains("name") ? name : null,
+				fields.contains("price") ? price : null, fields.contains("status") ? status : null,
+				fields.contains("postedDate") ? postedDate : null, fields.contains("version") ? version : null);
+	}
+
+	/** fields plus the ones needed internally, such as the page token columns */
+	public static Set<String> withFields(Set<String> fields, String... required) {
+		if (fields == null) {
+			return null;
+		}
+		Set<String> selected = new LinkedHashSet<>(fields);
+		selected.addAll(Arrays.asList(required));
+		return selected;
+	}
+}
@@ -1,29 +1,52 @@
 package com.productcatalog.app.response;
 
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
-import com.productcatalog.app.model.Product;
-
+/**
+ * Responses of the write and approval endpoints. The fixed ones are built
+ * once and shared, a ResponseEntity and its headers are immutable.
+ */
 public class ResponseHandler {
-    public static ResponseEntity<Object> generateResponse(String message, HttpStatus status) {
-        Map<String, Object> map = new HashMap<String, Object>();
-            map.put("message", message);
-            map.put("status", status.value());
-            return new ResponseEntity<Object>(map,status);
+
+    public static final ResponseEntity<StatusMessage> PRODUCT_CREATED = ok("Product Created Successfully");
+
+    public static final ResponseEntity<StatusMessage> PRODUCT_QUEUED_FOR_APPROVAL = ok(
+            "Product Added To Approval Queue as price is more than 5000");
+
+    public static final ResponseEntity<StatusMessage> PRODUCT_UPDATED = ok("Product Updated Successfully");
+
+    public static final ResponseEntity<StatusMessage> UPDATE_QUEUED_FOR_APPROVAL = ok(
+            "Product Sent for Approval as price is higher than 50% of previous value");
+
+    public static final ResponseEntity<StatusMessage> PRODUCT_DELETED = ok("Product Deleted successfully");
+
+    public static final ResponseEntity<StatusMessage> APPROVED_AND_UPDATED = ok(
+            "Product approved successfully and product updated");
+
+    public static final ResponseEntity<StatusMessage> APPROVED_AND_ADDED = ok(
+            "Product approved successfully and product added");
+
+    public static final ResponseEntity<StatusMessage> APPROVAL_COMPLETED = ok("Product approval process completed");
+
+    public static final ResponseEntity<StatusMessage> PRODUCT_REJECTED = ok("Product Rejected Successfully");
+
+    private static final ResponseEntity<List<Object>> NO_PRODUCTS = new ResponseEntity<>(List.of(),
+            HttpStatus.NO_CONTENT);
+
+    public static ResponseEntity<StatusMessage> generateResponse(String message, HttpStatus status) {
+        return new ResponseEntity<>(new StatusMessage(message, status.value()), status);
     }
 
-    
-    public static ResponseEntity<List<Product>> generateResponseForEmptyProduct(String message, HttpStatus status) {
-        List<Product> list = new ArrayList();
-            
-      return new ResponseEntity<List<Product>>(list,status);
+    /** the shared 204 with an empty list */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public static <T> ResponseEntity<List<T>> noProducts() {
+        return (ResponseEntity) NO_PRODUCTS;
     }
 
-	
-}
\ No newline at end of file
+    private static ResponseEntity<StatusMessage> ok(String message) {
+        return generateResponse(message, HttpStatus.OK);
+    }
+}
@@ -0,0 +1,69 @@
+package com.productcatalog.app.response;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * Body of the create, update, delete, approve and reject responses:
+ * {"message": "...", "status": 200}.
+ *
+ * The message is kept as a {@link SerializedString}, which encodes its quoted
+ * UTF-8 form once and reuses it for every response, so writing one of the
+ * fixed messages from {@link ResponseHandler} copies bytes instead of
+ * escaping and encoding the text again. Binary formats write it as a plain
+ * string.
+ */
+@JsonSerialize(using = StatusMessage.Serializer.class)
+public final class StatusMessage {
+
+	private static final SerializableString MESSAGE = new SerializedString("message");
+
+	private static final SerializableString STATUS = new SerializedString("status");
+
+	private final SerializableString message;
+
+	private final int status;
+
+	public StatusMessage(String message, int status) {
+		this.message = new SerializedString(message);
+		this.status = status;
+	}
+
+	public String getMessage() {
+		return message.getValue();
+	}
+
+	public int getStatus() {
+		return status;
+	}
+
+	@Override
+	public String toString() {
+		return "StatusMessage(message=" + message + ", status=" + status + ")";
+	}
+
+	static class Serializer extends StdSerializer<StatusMessage> {
+
+		private static final long serialVersionUID = 1L;
+
+		Serializer() {
+			super(StatusMessage.class);
+		}
+
+		@Override
+		public void serialize(StatusMessage value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+			gen.writeStartObject(value);
+			gen.writeFieldName(MESSAGE);
+			gen.writeString(value.message);
+			gen.writeFieldName(STATUS);
+			gen.writeNumber(value.status);
+			gen.writeEndObject();
+		}
+	}
+}
@@ -0,0 +1,51 @@
+package com.productcatalog.app.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.productcatalog.app.event.ProductChangedEvent;
+
+/**
+ * Changes published while an index loads in the background. They are held
+ * back until the load has read the catalog and then applied in the order they
+ * arrived, so the older row the load may read afterwards cannot overwrite a
+ * change.
+ */
+final class HeldChanges {
+
+	private List<ProductChangedEvent> held;
+
+	private volatile boolean holding;
+
+	synchronized void hold() {
+		held = new ArrayList<>();
+		holding = true;
+	}
+
+	/**
+	 * @return false when changes are not held back and this one should be
+	 *         applied now
+	 */
+	synchronized boolean offer(ProductChangedEvent event) {
+		if (held == null) {
+			return false;
+		}
+		held.add(event);
+		return true;
+	}
+
+	/** applies the changes held back and stops holding them */
+	synchronized void release(Consumer<ProductChangedEvent> apply) {
+		if (held == null) {
+			return;
+		}
+		held.forEach(apply);
+		held = null;
+		holding = false;
+	}
+
+	boolean isHolding() {
+		return holding;
+	}
+}
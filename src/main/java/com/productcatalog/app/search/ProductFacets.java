@@ -0,0 +1,324 @@
+package com.productcatalog.app.search;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.productcatalog.app.event.ProductChangedEvent;
+import com.productcatalog.app.event.ProductState;
+import com.productcatalog.app.model.ProductSearchCriteria;
+import com.productcatalog.app.model.Status;
+import com.productcatalog.app.repository.ProductRepository;
+import com.productcatalog.app.repository.ProductRepository.ProductSummary;
+import com.productcatalog.app.repository.ProductSpecifications;
+import com.productcatalog.app.response.FacetResponse;
+import com.productcatalog.app.response.FacetResponse.DayCount;
+import com.productcatalog.app.response.FacetResponse.PriceBucket;
+import com.productcatalog.app.response.ProductCatalogConstants;
+import com.productcatalog.app.response.ProductView;
+
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Counts of active products by price bucket and posted day, kept in memory so
+ * that facets never scan the catalog.
+ *
+ * Products are grouped into cells of one posted day and one price bucket.
+ * Without filters the facets come from running totals. With price or date
+ * bounds every cell inside the bounds contributes its size and only the
+ * cells the bounds cut through are checked product by product, so the work
+ * depends on the number of days and buckets rather than on the number of
+ * products. A name filter is answered from the products with that name.
+ *
+ * Loaded and kept current by {@link ProductChangedEvent} like
+ * {@link ProductNameIndex}. While they load in the background the matching
+ * products are read from the database and counted per request.
+ */
+@Log4j2
+@Component
+public class ProductFacets implements SearchIndex {
+
+	private static final int BUCKETS = ProductCatalogConstants.PRICE_FACET_BUCKETS;
+
+	private static final double BUCKET_WIDTH = ProductCatalogConstants.MAX_PRICE / BUCKETS;
+
+	private static final Set<String> PRICE_AND_DATE = Set.of("price", "postedDate");
+
+	private final ProductRepository productRepository;
+
+	private final TransactionTemplate readOnlyTransaction;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/** product id to the values it is counted under */
+	private final Map<Long, Entry> entries = new HashMap<>();
+
+	/** posted day to its cells, each cell holding the ids of the products in one price bucket */
+	private final NavigableMap<LocalDate, Map<Integer, Set<Long>>> days = new TreeMap<>();
+
+	/** lower cased name to the ids of the products with that name */
+	private final Map<String, Set<Long>> names = new HashMap<>();
+
+	private final long[] priceTotals = new long[BUCKETS];
+
+	private final HeldChanges heldChanges = new HeldChanges();
+
+	public ProductFacets(ProductRepository productRepository, PlatformTransactionManager transactionManager) {
+		this.productRepository = productRepository;
+		this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+		this.readOnlyTransaction.setReadOnly(true);
+	}
+
+	@Override
+	public void load() {
+		readOnlyTransaction.executeWithoutResult(status -> {
+			try (Stream<ProductSummary> products = productRepository.streamSummariesByStatus(Status.ACTIVE)) {
+				products.forEach(product -> put(product.getId(), product.getName(), product.getPrice(),
+						product.getPostedDate()));
+			}
+		});
+		heldChanges.release(this::apply);
+		log.info("Counted {} products over {} posted days for facets", entries.size(), days.size());
+	}
+
+	@Override
+	public void loadLater() {
+		heldChanges.hold();
+	}
+
+	@Override
+	public boolean isLoading() {
+		return heldChanges.isHolding();
+	}
+
+	@Order(ProductChangedEvent.INVALIDATE_ORDER)
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onProductChanged(ProductChangedEvent event) {
+		if (event.getProductId() == null || heldChanges.offer(event)) {
+			return;
+		}
+		apply(event);
+	}
+
+	private void apply(ProductChangedEvent event) {
+		ProductState after = event.getAfter();
+		if (after != null && after.isActive()) {
+			put(event.getProductId(), after.getName(), after.getPrice(), after.getPostedDate());
+		} else {
+			remove(event.getProductId());
+		}
+	}
+
+	/**
+	 * Counts the product under its current values, replacing the ones it was
+	 * counted under before. Products without a price or posted date are not
+	 * counted.
+	 */
+	public void put(Long productId, String name, Double price, LocalDateTime postedDate) {
+		if (price == null || postedDate == null) {
+			remove(productId);
+			return;
+		}
+		Entry entry = new Entry(name == null ? null : name.toLowerCase(Locale.ROOT), price, postedDate);
+		lock.writeLock().lock();
+		try {
+			uncount(productId);
+			entries.put(productId, entry);
+			int bucket = bucketOf(price);
+			days.computeIfAbsent(postedDate.toLocalDate(), day -> new HashMap<>())
+					.computeIfAbsent(bucket, b -> new HashSet<>()).add(productId);
+			priceTotals[bucket]++;
+			if (entry.nameLower() != null) {
+				names.computeIfAbsent(entry.nameLower(), n -> new HashSet<>()).add(productId);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void remove(Long productId) {
+		lock.writeLock().lock();
+		try {
+			uncount(productId);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void uncount(Long productId) {
+		Entry entry = entries.remove(productId);
+		if (entry == null) {
+			return;
+		}
+		int bucket = bucketOf(entry.price());
+		LocalDate day = entry.postedDate().toLocalDate();
+		Map<Integer, Set<Long>> cells = days.get(day);
+		Set<Long> cell = cells.get(bucket);
+		cell.remove(productId);
+		if (cell.isEmpty()) {
+			cells.remove(bucket);
+			if (cells.isEmpty()) {
+				days.remove(day);
+			}
+		}
+		priceTotals[bucket]--;
+		if (entry.nameLower() != null) {
+			Set<Long> ids = names.get(entry.nameLower());
+			ids.remove(productId);
+			if (ids.isEmpty()) {
+				names.remove(entry.nameLower());
+			}
+		}
+	}
+
+	/**
+	 * @param criteria - the filters of the product search, null values are not
+	 *                 applied
+	 * @return counts of the matching products by price bucket and posted day
+	 */
+	public FacetResponse facets(ProductSearchCriteria criteria) {
+		if (heldChanges.isHolding()) {
+			return countFromDatabase(criteria);
+		}
+		long[] priceCounts = new long[BUCKETS];
+		Map<LocalDate, Long> dayCounts = new TreeMap<>();
+		lock.readLock().lock();
+		try {
+			if (criteria.getProductName() != null) {
+				Set<Long> ids = names.getOrDefault(criteria.getProductName().toLowerCase(Locale.ROOT), Set.of());
+				for (Long id : ids) {
+					Entry entry = entries.get(id);
+					if (inRanges(entry, criteria)) {
+						priceCounts[bucketOf(entry.price())]++;
+						dayCounts.merge(entry.postedDate().toLocalDate(), 1L, Long::sum);
+					}
+				}
+			} else if (criteria.isEmpty()) {
+				System.arraycopy(priceTotals, 0, priceCounts, 0, BUCKETS);
+				days.forEach((day, cells) -> dayCounts.put(day, cells.values().stream().mapToLong(Set::size).sum()));
+			} else {
+				countRanges(criteria, priceCounts, dayCounts);
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+		return response(priceCounts, dayCounts);
+	}
+
+	/** answers while the facets load, a scan of the matching products */
+	private FacetResponse countFromDatabase(ProductSearchCriteria criteria) {
+		long[] priceCounts = new long[BUCKETS];
+		Map<LocalDate, Long> dayCounts = new TreeMap<>();
+		List<ProductView> products = readOnlyTransaction.execute(status -> productRepository.findViews(
+				ProductSpecifications.matching(Status.ACTIVE, criteria), PRICE_AND_DATE, Sort.unsorted(), 0));
+		for (ProductView product : products) {
+			if (product.price() != null && product.postedDate() != null) {
+				priceCounts[bucketOf(product.price())]++;
+				dayCounts.merge(product.postedDate().toLocalDate(), 1L, Long::sum);
+			}
+		}
+		return response(priceCounts, dayCounts);
+	}
+
+	private static FacetResponse response(long[] priceCounts, Map<LocalDate, Long> dayCounts) {
+		List<PriceBucket> prices = new ArrayList<>(BUCKETS);
+		long total = 0;
+		for (int bucket = 0; bucket < BUCKETS; bucket++) {
+			prices.add(new PriceBucket(bucket * BUCKET_WIDTH, (bucket + 1) * BUCKET_WIDTH, priceCounts[bucket]));
+			total += priceCounts[bucket];
+		}
+		List<DayCount> postedDates = new ArrayList<>(dayCounts.size());
+		dayCounts.forEach((day, count) -> {
+			if (count > 0) {
+				postedDates.add(new DayCount(day, count));
+			}
+		});
+		return new FacetResponse(total, prices, postedDates);
+	}
+
+	/** caller holds the read lock */
+	private void countRanges(ProductSearchCriteria criteria, long[] priceCounts, Map<LocalDate, Long> dayCounts) {
+		LocalDateTime min = criteria.getMinPostedDate();
+		LocalDateTime max = criteria.getMaxPostedDate();
+		NavigableMap<LocalDate, Map<Integer, Set<Long>>> inRange = days;
+		if (min != null) {
+			inRange = inRange.tailMap(min.toLocalDate(), true);
+		}
+		if (max != null) {
+			inRange = inRange.headMap(max.toLocalDate(), true);
+		}
+		for (Map.Entry<LocalDate, Map<Integer, Set<Long>>> day : inRange.entrySet()) {
+			boolean wholeDay = (min == null || !min.isAfter(day.getKey().atStartOfDay()))
+					&& (max == null || !max.isBefore(day.getKey().atTime(LocalTime.MAX)));
+			long dayCount = 0;
+			for (Map.Entry<Integer, Set<Long>> cell : day.getValue().entrySet()) {
+				int bucket = cell.getKey();
+				Coverage coverage = coverage(bucket, criteria.getMinPrice(), criteria.getMaxPrice());
+				long count;
+				if (coverage == Coverage.NONE) {
+					continue;
+				} else if (coverage == Coverage.FULL && wholeDay) {
+					count = cell.getValue().size();
+				} else {
+					count = cell.getValue().stream().filter(id -> inRanges(entries.get(id), criteria)).count();
+				}
+				priceCounts[bucket] += count;
+				dayCount += count;
+			}
+			dayCounts.put(day.getKey(), dayCount);
+		}
+	}
+
+	private enum Coverage {
+		NONE, PARTIAL, FULL
+	}
+
+	/**
+	 * How much of a price bucket lies within [minPrice, maxPrice]. The last
+	 * bucket also holds anything priced above MAX_PRICE.
+	 */
+	private static Coverage coverage(int bucket, Double minPrice, Double maxPrice) {
+		double from = bucket * BUCKET_WIDTH;
+		double to = bucket == BUCKETS - 1 ? Double.POSITIVE_INFINITY : (bucket + 1) * BUCKET_WIDTH;
+		if ((maxPrice != null && from > maxPrice) || (minPrice != null && to <= minPrice)) {
+			return Coverage.NONE;
+		}
+		if ((minPrice == null || minPrice <= from) && (maxPrice == null || to <= maxPrice)) {
+			return Coverage.FULL;
+		}
+		return Coverage.PARTIAL;
+	}
+
+	private static boolean inRanges(Entry entry, ProductSearchCriteria criteria) {
+		return (criteria.getMinPrice() == null || entry.price() >= criteria.getMinPrice())
+				&& (criteria.getMaxPrice() == null || entry.price() <= criteria.getMaxPrice())
+				&& (criteria.getMinPostedDate() == null || !entry.postedDate().isBefore(criteria.getMinPostedDate()))
+				&& (criteria.getMaxPostedDate() == null || !entry.postedDate().isAfter(criteria.getMaxPostedDate()));
+	}
+
+	private static int bucketOf(double price) {
+		return Math.max(0, Math.min(BUCKETS - 1, (int) (price / BUCKET_WIDTH)));
+	}
+
+	private record Entry(String nameLower, double price, LocalDateTime postedDate) {
+	}
+}
@@ -0,0 +1,476 @@
+package com.productcatalog.app.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.productcatalog.app.event.ProductChangedEvent;
+import com.productcatalog.app.event.ProductState;
+import com.productcatalog.app.model.Product;
+import com.productcatalog.app.model.Status;
+import com.productcatalog.app.repository.ProductRepository;
+import com.productcatalog.app.repository.ProductRepository.ProductSummary;
+import com.productcatalog.app.repository.ProductSpecifications;
+import com.productcatalog.app.response.ProductView;
+
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * In-memory inverted index over the names of active products, answering
+ * token, prefix and typo tolerant queries without touching the database.
+ *
+ * Names are split into lower cased tokens with accents removed. Tokens are
+ * kept in a sorted dictionary so that all tokens starting with a prefix are a
+ * single range, and every token is also registered under its character
+ * trigrams so that tokens within one or two edits of a misspelt query term can
+ * be found without scanning the whole dictionary.
+ *
+ * The index is loaded from the database by {@link SearchIndexLoader} and then
+ * kept current by {@link ProductChangedEvent}, which the service publishes
+ * from every write path. Reads share a lock and only block while a change is
+ * applied. While it loads in the background, searches go to the database.
+ */
+@Log4j2
+@Component
+public class ProductNameIndex implements SearchIndex {
+
+	private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+	private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+	/** query terms shorter than this only match exactly or as a prefix */
+	private static final int MIN_FUZZY_LENGTH = 4;
+
+	/** query terms at least this long may be two edits away instead of one */
+	private static final int TWO_EDITS_LENGTH = 8;
+
+	private static final double EXACT_SCORE = 3.0;
+
+	/** added when the whole name starts with the query, e.g. typing the name from its first word */
+	private static final double LEADING_MATCH_BONUS = 1.0;
+
+	/** best first: highest score, then shortest name, then newest product */
+	private static final Comparator<Hit> RANKING = Comparator.comparingDouble(Hit::score).reversed()
+			.thenComparingInt(Hit::nameLength)
+			.thenComparing(Hit::productId, Comparator.reverseOrder());
+
+	private static final Sort NEWEST_FIRST = Sort.by(Sort.Order.desc("postedDate"), Sort.Order.desc("id"));
+
+	private static final Set<String> ID_ONLY = Set.of("id");
+
+	private final ProductRepository productRepository;
+
+	private final TransactionTemplate readOnlyTransaction;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/** product id to its indexed name */
+	private final Map<Long, IndexedName> names = new HashMap<>();
+
+	/** token to the ids of the products whose name contains it */
+	private final NavigableMap<String, Set<Long>> postings = new TreeMap<>();
+
+	/** trigram to the tokens that contain it */
+	private final Map<String, Set<String>> trigrams = new HashMap<>();
+
+	private final HeldChanges heldChanges = new HeldChanges();
+
+	public ProductNameIndex(ProductRepository productRepository, PlatformTransactionManager transactionManager) {
+		this.productRepository = productRepository;
+		this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+		this.readOnlyTransaction.setReadOnly(true);
+	}
+
+	@Override
+	public void load() {
+		long start = System.nanoTime();
+		readOnlyTransaction.executeWithoutResult(status -> {
+			try (Stream<ProductSummary> products = productRepository.streamSummariesByStatus(Status.ACTIVE)) {
+				products.forEach(product -> put(product.getId(), product.getName()));
+			}
+		});
+		heldChanges.release(this::apply);
+		log.info("Indexed {} product names with {} distinct tokens in {} ms", size(), tokenCount(),
+				(System.nanoTime() - start) / 1_000_000);
+	}
+
+	@Override
+	public void loadLater() {
+		heldChanges.hold();
+	}
+
+	@Override
+	public boolean isLoading() {
+		return heldChanges.isHolding();
+	}
+
+	@Order(ProductChangedEvent.INVALIDATE_ORDER)
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onProductChanged(ProductChangedEvent event) {
+		if (event.getProductId() == null || heldChanges.offer(event)) {
+			return;
+		}
+		apply(event);
+	}
+
+	private void apply(ProductChangedEvent event) {
+		ProductState after = event.getAfter();
+		if (after != null && after.isActive()) {
+			put(event.getProductId(), after.getName());
+		} else {
+			remove(event.getProductId());
+		}
+	}
+
+	/**
+	 * Adds the product or replaces the name it was indexed under.
+	 */
+	public void put(Long productId, String name) {
+		List<String> tokens = tokenize(name);
+		if (tokens.isEmpty()) {
+			remove(productId);
+			return;
+		}
+		lock.writeLock().lock();
+		try {
+			unindex(productId);
+			names.put(productId, new IndexedName(normalize(name).trim(), tokens));
+			for (String token : tokens) {
+				postings.computeIfAbsent(token, key -> {
+					trigramsOf(key).forEach(gram -> trigrams.computeIfAbsent(gram, g -> new HashSet<>()).add(key));
+					return new HashSet<>();
+				}).add(productId);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void remove(Long productId) {
+		lock.writeLock().lock();
+		try {
+			unindex(productId);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void unindex(Long productId) {
+		IndexedName indexed = names.remove(productId);
+		if (indexed == null) {
+			return;
+		}
+		for (String token : indexed.tokens()) {
+			Set<Long> ids = postings.get(token);
+			ids.remove(productId);
+			if (ids.isEmpty()) {
+				postings.remove(token);
+				for (String gram : trigramsOf(token)) {
+					Set<String> tokens = trigrams.get(gram);
+					tokens.remove(token);
+					if (tokens.isEmpty()) {
+						trigrams.remove(gram);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Every term of the query has to match a token of the name, either exactly,
+	 * as a prefix of it or, for terms of four characters and more, within one
+	 * edit (two for terms of eight and more). Exact matches score highest,
+	 * then prefix matches that cover more of the token, then near misses. Ties
+	 * go to the shorter name and then to the newer product.
+	 *
+	 * Terms are intersected rarest first, so a term shared by most of the
+	 * catalog only has to be checked against the few candidates left.
+	 *
+	 * @param query      - free text, e.g. "red sho" or "blutooth speaker"
+	 * @param maxResults - number of ids to return at most
+	 * @return ids of the best matching products, best first
+	 */
+	public List<Long> search(String query, int maxResults) {
+		List<String> terms = tokenize(query);
+		if (terms.isEmpty()) {
+			return List.of();
+		}
+		if (heldChanges.isHolding()) {
+			return searchDatabase(terms, maxResults);
+		}
+		String normalizedQuery = normalize(query).trim();
+		lock.readLock().lock();
+		try {
+			List<List<TokenMatch>> termMatches = new ArrayList<>(terms.size());
+			for (String term : terms) {
+				List<TokenMatch> matches = matchingTokens(term);
+				if (matches.isEmpty()) {
+					return List.of();
+				}
+				termMatches.add(matches);
+			}
+			termMatches.sort(Comparator.comparingInt(ProductNameIndex::postingCount));
+			Map<Long, Double> scores = null;
+			for (List<TokenMatch> matches : termMatches.subList(0, termMatches.size() - 1)) {
+				scores = intersect(scores, matches);
+				if (scores.isEmpty()) {
+					return List.of();
+				}
+			}
+			TopHits best = new TopHits(maxResults, normalizedQuery);
+			List<TokenMatch> last = termMatches.get(termMatches.size() - 1);
+			if (last.size() == 1) {
+				// a term matching a single token needs no per product maximum, rank straight from its postings
+				TokenMatch match = last.get(0);
+				Map<Long, Double> candidates = scores;
+				if (candidates == null) {
+					match.ids().forEach(id -> best.offer(id, match.score()));
+				} else if (match.ids().size() > candidates.size()) {
+					candidates.forEach((id, score) -> {
+						if (match.ids().contains(id)) {
+							best.offer(id, score + match.score());
+						}
+					});
+				} else {
+					match.ids().forEach(id -> {
+						Double score = candidates.get(id);
+						if (score != null) {
+							best.offer(id, score + match.score());
+						}
+					});
+				}
+			} else {
+				intersect(scores, last).forEach(best::offer);
+			}
+			return best.ranked();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Adds the best score of one term to every candidate that matches it and
+	 * drops the others. With no candidates yet every match is a candidate.
+	 */
+	private static Map<Long, Double> intersect(Map<Long, Double> candidates, List<TokenMatch> matches) {
+		Map<Long, Double> scores = new HashMap<>();
+		for (TokenMatch match : matches) {
+			if (candidates == null) {
+				match.ids().forEach(id -> scores.merge(id, match.score(), Math::max));
+			} else if (match.ids().size() > candidates.size()) {
+				candidates.keySet().stream().filter(match.ids()::contains)
+						.forEach(id -> scores.merge(id, match.score(), Math::max));
+			} else {
+				match.ids().stream().filter(candidates::containsKey)
+						.forEach(id -> scores.merge(id, match.score(), Math::max));
+			}
+		}
+		if (candidates != null) {
+			scores.replaceAll((id, score) -> score + candidates.get(id));
+		}
+		return scores;
+	}
+
+	private static int postingCount(List<TokenMatch> matches) {
+		return matches.stream().mapToInt(match -> match.ids().size()).sum();
+	}
+
+	/** tokens of the dictionary matching a single query term, caller holds the read lock */
+	private List<TokenMatch> matchingTokens(String term) {
+		List<TokenMatch> matches = new ArrayList<>();
+		for (Map.Entry<String, Set<Long>> entry : postings.subMap(term, true, term + Character.MAX_VALUE, false)
+				.entrySet()) {
+			String token = entry.getKey();
+			double score = token.equals(term) ? EXACT_SCORE : 1.0 + (double) term.length() / token.length();
+			matches.add(new TokenMatch(entry.getValue(), score));
+		}
+		if (term.length() >= MIN_FUZZY_LENGTH) {
+			int maxEdits = term.length() >= TWO_EDITS_LENGTH ? 2 : 1;
+			for (String token : fuzzyCandidates(term)) {
+				if (Math.abs(token.length() - term.length()) > maxEdits || token.startsWith(term)) {
+					continue;
+				}
+				int edits = editDistance(term, token, maxEdits);
+				if (edits <= maxEdits) {
+					matches.add(new TokenMatch(postings.get(token), 1.0 / (1 + edits)));
+				}
+			}
+		}
+		return matches;
+	}
+
+	/**
+	 * Answers while the index loads: the newest products whose name contains
+	 * every term. Not ranked and not typo tolerant, and accents have to match.
+	 */
+	private List<Long> searchDatabase(List<String> terms, int maxResults) {
+		Specification<Product> matching = ProductSpecifications.hasStatus(Status.ACTIVE);
+		for (String term : terms) {
+			matching = matching.and(ProductSpecifications.nameContains(term));
+		}
+		Specification<Product> specification = matching;
+		return readOnlyTransaction
+				.execute(status -> productRepository.findViews(specification, ID_ONLY, NEWEST_FIRST, maxResults))
+				.stream().map(ProductView::id).toList();
+	}
+
+	private Set<String> fuzzyCandidates(String term) {
+		Set<String> candidates = new HashSet<>();
+		for (String gram : trigramsOf(term)) {
+			candidates.addAll(trigrams.getOrDefault(gram, Set.of()));
+		}
+		return candidates;
+	}
+
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return names.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private int tokenCount() {
+		lock.readLock().lock();
+		try {
+			return postings.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	static String normalize(String text) {
+		String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+		return COMBINING_MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+	}
+
+	static List<String> tokenize(String text) {
+		if (text == null) {
+			return List.of();
+		}
+		Set<String> tokens = new LinkedHashSet<>();
+		for (String token : TOKEN_SEPARATOR.split(normalize(text))) {
+			if (!token.isEmpty()) {
+				tokens.add(token);
+			}
+		}
+		return new ArrayList<>(tokens);
+	}
+
+	/**
+	 * Trigrams of the token padded with a boundary marker, so that short tokens
+	 * and swapped first or last letters still share a gram with the original.
+	 */
+	static List<String> trigramsOf(String token) {
+		String padded = "$" + token + "$";
+		List<String> grams = new ArrayList<>(padded.length() - 2);
+		for (int i = 0; i + 3 <= padded.length(); i++) {
+			grams.add(padded.substring(i, i + 3));
+		}
+		return grams;
+	}
+
+	/**
+	 * Edit distance counting insertions, deletions, substitutions and swaps of
+	 * adjacent characters. Gives up with maxEdits + 1 as soon as every
+	 * alignment of a row needs more than maxEdits.
+	 */
+	static int editDistance(String a, String b, int maxEdits) {
+		int[] previous2 = new int[b.length() + 1];
+		int[] previous = new int[b.length() + 1];
+		int[] current = new int[b.length() + 1];
+		for (int j = 0; j <= b.length(); j++) {
+			previous[j] = j;
+		}
+		for (int i = 1; i <= a.length(); i++) {
+			current[0] = i;
+			int rowMin = current[0];
+			for (int j = 1; j <= b.length(); j++) {
+				int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+				current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+				if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+					current[j] = Math.min(current[j], previous2[j - 2] + 1);
+				}
+				rowMin = Math.min(rowMin, current[j]);
+			}
+			if (rowMin > maxEdits) {
+				return maxEdits + 1;
+			}
+			int[] recycled = previous2;
+			previous2 = previous;
+			previous = current;
+			current = recycled;
+		}
+		return previous[b.length()];
+	}
+
+	private record IndexedName(String name, List<String> tokens) {
+	}
+
+	private record TokenMatch(Set<Long> ids, double score) {
+	}
+
+	private record Hit(Long productId, double score, int nameLength) {
+	}
+
+	/**
+	 * The best maxResults hits seen so far, kept in a heap with the weakest on
+	 * top so that a query matching most of the catalog is never fully sorted.
+	 * Used under the read lock.
+	 */
+	private final class TopHits {
+
+		private final int maxResults;
+
+		private final String normalizedQuery;
+
+		private final PriorityQueue<Hit> heap;
+
+		TopHits(int maxResults, String normalizedQuery) {
+			this.maxResults = maxResults;
+			this.normalizedQuery = normalizedQuery;
+			this.heap = new PriorityQueue<>(maxResults + 1, RANKING.reversed());
+		}
+
+		void offer(Long productId, double termScore) {
+			IndexedName indexed = names.get(productId);
+			double score = indexed.name().startsWith(normalizedQuery) ? termScore + LEADING_MATCH_BONUS : termScore;
+			Hit hit = new Hit(productId, score, indexed.name().length());
+			if (heap.size() < maxResults) {
+				heap.add(hit);
+			} else if (RANKING.compare(hit, heap.peek()) < 0) {
+				heap.poll();
+				heap.add(hit);
+			}
+		}
+
+		List<Long> ranked() {
+			List<Hit> hits = new ArrayList<>(heap);
+			hits.sort(RANKING);
+			return hits.stream().map(Hit::productId).toList();
+		}
+	}
+}
@@ -0,0 +1,472 @@
+package com.productcatalog.app.search;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.productcatalog.app.event.ProductChangedEvent;
+import com.productcatalog.app.event.ProductState;
+import com.productcatalog.app.model.Status;
+import com.productcatalog.app.repository.ProductRepository;
+import com.productcatalog.app.repository.ProductRepository.ProductPrice;
+
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Ids of active products by price, kept in primitive arrays so that a price
+ * range is two binary searches and an array copy, without boxing and without
+ * a database query.
+ *
+ * Products are sorted by (price, id) in a pair of parallel arrays. Changes do
+ * not shift those arrays: a removed product is only marked in a bit set, and
+ * new or repriced products go to a small sorted pending buffer that lookups
+ * search as well. When the buffer is full, or a quarter of the sorted entries
+ * are marked removed, both are merged into new sorted arrays in one pass. A
+ * second pair of arrays sorted by id holds the current price of every
+ * product, which is how a change finds the entry it replaces. Ids come from a
+ * sequence, so new products are appended there.
+ *
+ * Memory is 32 bytes per product, a double and a long in each order, plus up
+ * to half again for the growth of the id arrays: 32 to 48 MB per million
+ * products. A merge briefly holds the old and the new sorted arrays, another
+ * 16 MB per million.
+ *
+ * Loaded and kept current by {@link ProductChangedEvent} like
+ * {@link ProductNameIndex}. Callers check {@link #isLoading()} and search the
+ * database while it loads in the background.
+ */
+@Log4j2
+@Component
+public class ProductPriceIndex implements SearchIndex {
+
+	/** changes buffered before they are merged into the sorted arrays */
+	static final int PENDING_CAPACITY = 4096;
+
+	private static final long[] NO_IDS = new long[0];
+
+	private final ProductRepository productRepository;
+
+	private final TransactionTemplate readOnlyTransaction;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/** sorted by (price, id) as of the last merge */
+	private double[] prices = new double[0];
+
+	private long[] ids = NO_IDS;
+
+	private int size;
+
+	/** positions in prices and ids of the products removed since the last merge */
+	private final BitSet removed = new BitSet();
+
+	private int removedCount;
+
+	/** sorted by (price, id), products added or repriced since the last merge */
+	private final double[] pendingPrices = new double[PENDING_CAPACITY];
+
+	private final long[] pendingIds = new long[PENDING_CAPACITY];
+
+	private int pendingSize;
+
+	/** sorted by id, the current price of every product, NaN once removed */
+	private long[] idsById = new long[16];
+
+	private double[] pricesById = new double[16];
+
+	private int byIdSize;
+
+	private int removedById;
+
+	private final HeldChanges heldChanges = new HeldChanges();
+
+	public ProductPriceIndex(ProductRepository productRepository, PlatformTransactionManager transactionManager) {
+		this.productRepository = productRepository;
+		this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+		this.readOnlyTransaction.setReadOnly(true);
+	}
+
+	/**
+	 * Rows arrive in id order and are appended to the id arrays, the price
+	 * order is then sorted once. Changes published meanwhile wait for the lock,
+	 * or are held back during a background load.
+	 */
+	@Override
+	public void load() {
+		lock.writeLock().lock();
+		try {
+			readOnlyTransaction.executeWithoutResult(status -> {
+				try (Stream<ProductPrice> products = productRepository.streamPricesByStatus(Status.ACTIVE)) {
+					products.forEach(product -> setPrice(product.getId(), product.getPrice()));
+				}
+			});
+			sortAll();
+			log.info("Indexed the prices of {} products in {} KB", size, memoryBytes() / 1024);
+		} finally {
+			lock.writeLock().unlock();
+		}
+		heldChanges.release(this::apply);
+	}
+
+	@Override
+	public void loadLater() {
+		heldChanges.hold();
+	}
+
+	@Override
+	public boolean isLoading() {
+		return heldChanges.isHolding();
+	}
+
+	@Order(ProductChangedEvent.INVALIDATE_ORDER)
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onProductChanged(ProductChangedEvent event) {
+		if (event.getProductId() == null || heldChanges.offer(event)) {
+			return;
+		}
+		apply(event);
+	}
+
+	private void apply(ProductChangedEvent event) {
+		ProductState after = event.getAfter();
+		if (after != null && after.isActive()) {
+			put(event.getProductId(), after.getPrice());
+		} else {
+			remove(event.getProductId());
+		}
+	}
+
+	/**
+	 * Indexes the product under its current price, replacing the price it was
+	 * indexed under before. Products without a price are not indexed.
+	 */
+	public void put(long productId, Double price) {
+		if (price == null || price.isNaN()) {
+			remove(productId);
+			return;
+		}
+		lock.writeLock().lock();
+		try {
+			double previous = setPrice(productId, price);
+			if (Double.compare(previous, price) == 0) {
+				return;
+			}
+			if (!Double.isNaN(previous)) {
+				unsort(previous, productId);
+			}
+			addPending(price, productId);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void remove(long productId) {
+		lock.writeLock().lock();
+		try {
+			int at = Arrays.binarySearch(idsById, 0, byIdSize, productId);
+			if (at < 0 || Double.isNaN(pricesById[at])) {
+				return;
+			}
+			double price = pricesById[at];
+			// marked before unsort, whose merge may move the id arrays
+			pricesById[at] = Double.NaN;
+			removedById++;
+			unsort(price, productId);
+			if (removedById > byIdSize / 4) {
+				compactById();
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * @param minPrice - lowest price included, null for no lower bound
+	 * @param maxPrice - highest price included, null for no upper bound
+	 * @return ids of the products priced within the bounds, in price order
+	 *         except for the products changed since the last merge, which come
+	 *         last
+	 */
+	public long[] idsInRange(Double minPrice, Double maxPrice) {
+		double min = minPrice == null ? Double.NEGATIVE_INFINITY : minPrice;
+		double max = maxPrice == null ? Double.POSITIVE_INFINITY : maxPrice;
+		lock.readLock().lock();
+		try {
+			int from = lowerBound(prices, size, min);
+			int to = upperBound(prices, size, max);
+			int pendingFrom = lowerBound(pendingPrices, pendingSize, min);
+			int pendingTo = upperBound(pendingPrices, pendingSize, max);
+			int found = Math.max(0, to - from) + Math.max(0, pendingTo - pendingFrom);
+			if (found == 0) {
+				return NO_IDS;
+			}
+			long[] result = new long[found];
+			int n = 0;
+			if (removedCount == 0) {
+				n = Math.max(0, to - from);
+				System.arraycopy(ids, from, result, 0, n);
+			} else {
+				for (int at = removed.nextClearBit(from); at < to; at = removed.nextClearBit(at + 1)) {
+					result[n++] = ids[at];
+				}
+			}
+			if (pendingTo > pendingFrom) {
+				System.arraycopy(pendingIds, pendingFrom, result, n, pendingTo - pendingFrom);
+				n += pendingTo - pendingFrom;
+			}
+			return n == result.length ? result : Arrays.copyOf(result, n);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/** number of indexed products */
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return size - removedCount + pendingSize;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/** bytes held by the index arrays, excluding the object headers */
+	public long memoryBytes() {
+		lock.readLock().lock();
+		try {
+			return 16L * (prices.length + PENDING_CAPACITY + idsById.length) + removed.size() / 8;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Records the price in the id arrays, caller holds the write lock.
+	 *
+	 * @return the price the product had, NaN if it was not indexed
+	 */
+	private double setPrice(long productId, double price) {
+		int at = byIdSize > 0 && idsById[byIdSize - 1] < productId ? -byIdSize - 1
+				: Arrays.binarySearch(idsById, 0, byIdSize, productId);
+		if (at >= 0) {
+			double previous = pricesById[at];
+			pricesById[at] = price;
+			if (Double.isNaN(previous)) {
+				removedById--;
+			}
+			return previous;
+		}
+		at = -at - 1;
+		if (byIdSize == idsById.length) {
+			if (removedById > byIdSize / 4) {
+				compactById();
+				at = -Arrays.binarySearch(idsById, 0, byIdSize, productId) - 1;
+			} else {
+				int capacity = byIdSize + (byIdSize >> 1);
+				idsById = Arrays.copyOf(idsById, capacity);
+				pricesById = Arrays.copyOf(pricesById, capacity);
+			}
+		}
+		System.arraycopy(idsById, at, idsById, at + 1, byIdSize - at);
+		System.arraycopy(pricesById, at, pricesById, at + 1, byIdSize - at);
+		idsById[at] = productId;
+		pricesById[at] = price;
+		byIdSize++;
+		return Double.NaN;
+	}
+
+	/** drops the removed products from the id arrays, caller holds the write lock */
+	private void compactById() {
+		int kept = 0;
+		for (int i = 0; i < byIdSize; i++) {
+			if (!Double.isNaN(pricesById[i])) {
+				idsById[kept] = idsById[i];
+				pricesById[kept] = pricesById[i];
+				kept++;
+			}
+		}
+		byIdSize = kept;
+		removedById = 0;
+	}
+
+	/** takes the product out of the price order, caller holds the write lock */
+	private void unsort(double price, long productId) {
+		int at = find(prices, ids, size, price, productId);
+		if (at >= 0 && !removed.get(at)) {
+			removed.set(at);
+			if (++removedCount > size / 4) {
+				merge();
+			}
+			return;
+		}
+		at = find(pendingPrices, pendingIds, pendingSize, price, productId);
+		if (at >= 0) {
+			System.arraycopy(pendingPrices, at + 1, pendingPrices, at, pendingSize - at - 1);
+			System.arraycopy(pendingIds, at + 1, pendingIds, at, pendingSize - at - 1);
+			pendingSize--;
+		}
+	}
+
+	/** caller holds the write lock */
+	private void addPending(double price, long productId) {
+		if (pendingSize == PENDING_CAPACITY) {
+			merge();
+		}
+		int at = -find(pendingPrices, pendingIds, pendingSize, price, productId) - 1;
+		System.arraycopy(pendingPrices, at, pendingPrices, at + 1, pendingSize - at);
+		System.arraycopy(pendingIds, at, pendingIds, at + 1, pendingSize - at);
+		pendingPrices[at] = price;
+		pendingIds[at] = productId;
+		pendingSize++;
+	}
+
+	/**
+	 * Merges the sorted arrays without the removed products and the pending
+	 * buffer into new sorted arrays, caller holds the write lock.
+	 */
+	private void merge() {
+		int live = size - removedCount + pendingSize;
+		double[] mergedPrices = new double[live];
+		long[] mergedIds = new long[live];
+		int i = removed.nextClearBit(0);
+		int j = 0;
+		for (int n = 0; n < live; n++) {
+			if (j < pendingSize && (i >= size || compare(pendingPrices[j], pendingIds[j], prices[i], ids[i]) < 0)) {
+				mergedPrices[n] = pendingPrices[j];
+				mergedIds[n] = pendingIds[j++];
+			} else {
+				mergedPrices[n] = prices[i];
+				mergedIds[n] = ids[i];
+				i = removed.nextClearBit(i + 1);
+			}
+		}
+		replaceSorted(mergedPrices, mergedIds);
+	}
+
+	/**
+	 * Builds the sorted arrays from the id arrays, caller holds the write
+	 * lock. Used after the initial load, where every product would otherwise
+	 * go through the pending buffer.
+	 */
+	private void sortAll() {
+		compactById();
+		double[] sortedPrices = Arrays.copyOf(pricesById, byIdSize);
+		long[] sortedIds = Arrays.copyOf(idsById, byIdSize);
+		sort(sortedPrices, sortedIds, 0, byIdSize);
+		replaceSorted(sortedPrices, sortedIds);
+	}
+
+	private void replaceSorted(double[] sortedPrices, long[] sortedIds) {
+		prices = sortedPrices;
+		ids = sortedIds;
+		size = sortedPrices.length;
+		removed.clear();
+		removedCount = 0;
+		pendingSize = 0;
+	}
+
+	/** position of (price, productId), or -(insertion point) - 1 if absent */
+	private static int find(double[] prices, long[] ids, int size, double price, long productId) {
+		int low = 0;
+		int high = size - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int c = compare(prices[mid], ids[mid], price, productId);
+			if (c < 0) {
+				low = mid + 1;
+			} else if (c > 0) {
+				high = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -low - 1;
+	}
+
+	/** first position priced at or above min */
+	private static int lowerBound(double[] prices, int size, double min) {
+		int low = 0;
+		int high = size;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (prices[mid] < min) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/** first position priced above max */
+	private static int upperBound(double[] prices, int size, double max) {
+		int low = 0;
+		int high = size;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (prices[mid] <= max) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	private static int compare(double price, long id, double otherPrice, long otherId) {
+		int c = Double.compare(price, otherPrice);
+		return c != 0 ? c : Long.compare(id, otherId);
+	}
+
+	/** quicksort of [from, to) by (price, id), pairs are unique since ids are */
+	private static void sort(double[] prices, long[] ids, int from, int to) {
+		while (to - from > 16) {
+			int mid = (from + to) >>> 1;
+			double pivotPrice = prices[mid];
+			long pivotId = ids[mid];
+			int i = from;
+			int j = to - 1;
+			while (i <= j) {
+				while (compare(prices[i], ids[i], pivotPrice, pivotId) < 0) {
+					i++;
+				}
+				while (compare(prices[j], ids[j], pivotPrice, pivotId) > 0) {
+					j--;
+				}
+				if (i <= j) {
+					swap(prices, ids, i++, j--);
+				}
+			}
+			// recurse into the smaller side so the stack stays logarithmic
+			if (j + 1 - from < to - i) {
+				sort(prices, ids, from, j + 1);
+				from = i;
+			} else {
+				sort(prices, ids, i, to);
+				to = j + 1;
+			}
+		}
+		for (int i = from + 1; i < to; i++) {
+			for (int j = i; j > from && compare(prices[j], ids[j], prices[j - 1], ids[j - 1]) < 0; j--) {
+				swap(prices, ids, j, j - 1);
+			}
+		}
+	}
+
+	private static void swap(double[] prices, long[] ids, int i, int j) {
+		double price = prices[i];
+		prices[i] = prices[j];
+		prices[j] = price;
+		long id = ids[i];
+		ids[i] = ids[j];
+		ids[j] = id;
+	}
+}
@@ -0,0 +1,23 @@
+package com.productcatalog.app.search;
+
+/**
+ * An in-memory index of the active products, loaded from the database by
+ * {@link SearchIndexLoader} and then kept current by
+ * {@link com.productcatalog.app.event.ProductChangedEvent}.
+ */
+public interface SearchIndex {
+
+	/**
+	 * Reads the active products from the database. Changes held back since
+	 * {@link #loadLater()} are applied before it returns.
+	 */
+	void load();
+
+	/**
+	 * Marks the index as loading until {@link #load()} returns. Meanwhile changes
+	 * are held back and searches are answered from the database.
+	 */
+	void loadLater();
+
+	boolean isLoading();
+}
@@ -0,0 +1,82 @@
+package com.productcatalog.app.search;
+
+import java.util.List;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Loads the {@link SearchIndex}es. By default they are loaded once all
+ * singletons exist, before the web server accepts requests.
+ *
+ * With productcatalog.search.load-in-background=true, as in the faststart
+ * profile, the instance takes requests first. The indexes are loaded one
+ * after the other on a thread of their own once the application is ready,
+ * after the deferred repositories have been initialized, and answer from the
+ * database until then. A load that fails is retried every
+ * productcatalog.search.load-retry-ms.
+ */
+@Log4j2
+@Component
+public class SearchIndexLoader implements SmartInitializingSingleton, ApplicationListener<ApplicationReadyEvent> {
+
+	private final List<SearchIndex> indexes;
+
+	private final boolean inBackground;
+
+	private final long retryMs;
+
+	public SearchIndexLoader(List<SearchIndex> indexes,
+			@Value("${productcatalog.search.load-in-background:false}") boolean inBackground,
+			@Value("${productcatalog.search.load-retry-ms:5000}") long retryMs) {
+		this.indexes = indexes;
+		this.inBackground = inBackground;
+		this.retryMs = retryMs;
+	}
+
+	@Override
+	public void afterSingletonsInstantiated() {
+		if (inBackground) {
+			indexes.forEach(SearchIndex::loadLater);
+		} else {
+			indexes.forEach(SearchIndex::load);
+		}
+	}
+
+	@Override
+	public void onApplicationEvent(ApplicationReadyEvent event) {
+		if (!inBackground) {
+			return;
+		}
+		Thread thread = new Thread(this::loadAll, "search-index-load");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	private void loadAll() {
+		long start = System.nanoTime();
+		for (SearchIndex index : indexes) {
+			while (index.isLoading()) {
+				try {
+					index.load();
+				} catch (RuntimeException e) {
+					log.warn("Loading {} failed, retrying in {} ms - {}", index.getClass().getSimpleName(), retryMs,
+							e.getMessage());
+					try {
+						Thread.sleep(retryMs);
+					} catch (InterruptedException interrupted) {
+						Thread.currentThread().interrupt();
+						return;
+					}
+				}
+			}
+		}
+		log.info("Loaded {} search indexes in the background in {} ms", indexes.size(),
+				(System.nanoTime() - start) / 1_000_000);
+	}
+}
@@ -1,23 +1,59 @@
 package com.productcatalog.app.service;
 
 import java.time.LocalDateTime;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.springframework.http.ResponseEntity;
 
+import com.productcatalog.app.model.ApprovalQueue;
+import com.productcatalog.app.model.ApprovalQueueCriteria;
 import com.productcatalog.app.model.Product;
+import com.productcatalog.app.response.BatchReport;
+import com.productcatalog.app.response.CursorPage;
+import com.productcatalog.app.response.FacetResponse;
+import com.productcatalog.app.response.ProductView;
+import com.productcatalog.app.response.StatusMessage;
 
 public interface ProductService {
-	public ResponseEntity<Object> createProductwithApprovalCheck(Product product);
+	public ResponseEntity<StatusMessage> createProductwithApprovalCheck(Product product);
 
-	public ResponseEntity<Object> updateProductWithApprovalCheck(Long productId, Product updatedProduct);
+	public ResponseEntity<StatusMessage> updateProductWithApprovalCheck(Long productId, Product updatedProduct);
 
-	public ResponseEntity<Object> deleteProductWithApproval(Long productId);
+	public ResponseEntity<StatusMessage> updateProductWithApprovalCheck(Long productId, Product updatedProduct, Long expectedVersion);
 
-	public ResponseEntity<Object> approveProduct(Long approvalId);
+	public ResponseEntity<StatusMessage> deleteProductWithApproval(Long productId);
 
-	public ResponseEntity<Object> rejectProduct(Long approvalId);
+	public ResponseEntity<StatusMessage> approveProduct(Long approvalId);
 
-	public ResponseEntity<List<Product>> searchProductsBasedOnSearchCriteria(String productName, Double minPrice, Double maxPrice,
-			LocalDateTime minPostedDate, LocalDateTime maxPostedDate) throws Exception;
+	public ResponseEntity<StatusMessage> approveProduct(Long approvalId, Long expectedVersion);
+
+	public ResponseEntity<StatusMessage> rejectProduct(Long approvalId);
+
+	public ResponseEntity<StatusMessage> rejectProduct(Long approvalId, Long expectedVersion);
+
+	public ResponseEntity<List<ProductView>> searchProductsBasedOnSearchCriteria(String productName, Double minPrice, Double maxPrice,
+			LocalDateTime minPostedDate, LocalDateTime maxPostedDate, String fields) throws Exception;
+
+	public Product getActiveProduct(Long productId);
+
+	public List<ProductView> searchProductsByName(String query, Integer limit, String fields);
+
+	public FacetResponse getProductFacets(String productName, Double minPrice, Double maxPrice,
+			LocalDateTime minPostedDate, LocalDateTime maxPostedDate);
+
+	public CursorPage<ProductView> listActiveProducts(Integer limit, String pageToken, String fields);
+
+	public void streamActiveProducts(Consumer<Product> consumer);
+
+	public BatchReport bulkCreateProducts(Iterator<Product> products);
+
+	public BatchReport approveProducts(List<Long> approvalIds);
+
+	public BatchReport rejectProducts(List<Long> approvalIds);
+
+	public CursorPage<ApprovalQueue> listApprovalQueue(ApprovalQueueCriteria criteria, Integer limit, String pageToken);
+
+	public long countApprovalQueue(ApprovalQueueCriteria criteria);
 }
@@ -1,111 +1,323 @@
 package com.productcatalog.app.service.impl;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpStatus;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.productcatalog.app.cache.ActiveProductCache;
+import com.productcatalog.app.datasource.ReplicaLagMonitor;
+import com.productcatalog.app.datasource.ReplicaRoutingDataSource;
+import com.productcatalog.app.event.ProductChangedEvent;
+import com.productcatalog.app.event.ProductState;
+import com.productcatalog.app.exception.ConcurrentUpdateException;
+import com.productcatalog.app.exception.InvalidRequestException;
+import com.productcatalog.app.exception.PreconditionFailedException;
 import com.productcatalog.app.exception.ResourceNotFoundException;
+import com.productcatalog.app.metrics.ProductCatalogMetrics;
 import com.productcatalog.app.model.ApprovalQueue;
+import com.productcatalog.app.model.ApprovalQueueCriteria;
 import com.productcatalog.app.model.Product;
+import com.productcatalog.app.model.ProductSearchCriteria;
 import com.productcatalog.app.model.Status;
 import com.productcatalog.app.repository.ApprovalQueueRepository;
+import com.productcatalog.app.repository.ApprovalQueueSpecifications;
 import com.productcatalog.app.repository.ProductRepository;
+import com.productcatalog.app.repository.ProductSpecifications;
+import com.productcatalog.app.response.BatchItemResult;
+import com.productcatalog.app.response.BatchReport;
+import com.productcatalog.app.response.CursorPage;
+import com.productcatalog.app.response.FacetResponse;
+import com.productcatalog.app.response.PageToken;
 import com.productcatalog.app.response.ProductCatalogConstants;
+import com.productcatalog.app.response.ProductView;
 import com.productcatalog.app.response.ResponseHandler;
+import com.productcatalog.app.response.StatusMessage;
+import com.productcatalog.app.search.ProductFacets;
+import com.productcatalog.app.search.ProductNameIndex;
+import com.productcatalog.app.search.ProductPriceIndex;
 import com.productcatalog.app.service.ProductService;
 
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import lombok.extern.log4j.Log4j2;
 
 @Log4j2
 @Service
+@Timed(value = "productcatalog.service", histogram = true)
 public class ProductServiceImpl implements ProductService {
+	private static final Sort SEARCH_ORDER = Sort.by(Sort.Order.desc("postedDate"), Sort.Order.desc("id"));
+
+	private static final Comparator<ProductView> VIEW_ORDER = Comparator
+			.comparing(ProductView::postedDate, Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder()))
+			.thenComparing(ProductView::id).reversed();
+
+	/**
+	 * Price only searches go through the active product cache while they match
+	 * at most 1/n of its capacity. Loading a wider range would evict the
+	 * products other requests keep hitting, so those are read from the database.
+	 */
+	private static final int PRICE_SEARCH_CACHE_SHARE = 10;
+
 	@Autowired
 	private ProductRepository productRepository;
 
 	@Autowired
 	private ApprovalQueueRepository approvalQueueRepository;
 
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Autowired
+	private ActiveProductCache activeProductCache;
+
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private ProductCatalogMetrics metrics;
+
+	@Autowired
+	private ProductNameIndex productNameIndex;
+
+	@Autowired
+	private ProductFacets productFacets;
+
+	@Autowired
+	private ProductPriceIndex productPriceIndex;
+
+	/** only there when reads are split off to a replica */
+	@Autowired(required = false)
+	private ReplicaLagMonitor replicaLagMonitor;
 	
 
-	public ResponseEntity<Object> createProductwithApprovalCheck(Product product) {
-		String response = null;
-		if(product.getName()==null) {
-			throw new IllegalArgumentException("Product name cannot be null");
+	public ResponseEntity<StatusMessage> createProductwithApprovalCheck(Product product) {
+		try {
+			prepareNewProduct(product);
+		} catch (IllegalArgumentException e) {
+			metrics.productsRejected(1);
+			throw e;
 		}
-		if (product.getPrice()!=null) {
-			if(product.getPrice() <= ProductCatalogConstants.MAX_PRICE) {
-			if (product.getPrice() > 5000) {
-				ApprovalQueue approvalQueue = new ApprovalQueue();
-				product.setPostedDate(LocalDateTime.now());
-				approvalQueue.setName(product.getName());
-				approvalQueue.setPrice(product.getPrice());
-				approvalQueue.setPostedDate(LocalDateTime.now());
-				approvalQueue.setStatus(product.getStatus());
-				approvalQueueRepository.save(approvalQueue);
-				log.info("Creating product with price>5000, Hence added to approval queue");
-				response = "Product Added To Approval Queue as price is more than 5000";
+		if (requiresApproval(product)) {
+			approvalQueueRepository.save(newApprovalRequest(product));
+			metrics.productsQueuedForApproval(1);
+			log.info("Creating product with price>5000, Hence added to approval queue");
+			return ResponseHandler.PRODUCT_QUEUED_FOR_APPROVAL;
+		}
+		transactionTemplate.executeWithoutResult(status -> {
+			productRepository.save(product);
+			publishChange(product.getId(), null, product);
+		});
+		metrics.productsSaved(1);
+		log.info("Product Created successfully");
+		return ResponseHandler.PRODUCT_CREATED;
+	}
 
-			} else {
-				productRepository.save(product);
-				log.info("Product Created successfully");
-				response = "Product Created Successfully";
+	/**
+	 * Checks and defaults shared by the single and bulk create. The message of the
+	 * IllegalArgumentException is what the client gets back.
+	 */
+	private void prepareNewProduct(Product product) {
+		if (product.getName() == null) {
+			throw new InvalidRequestException("Product name cannot be null");
+		}
+		if (product.getPrice() != null && product.getPrice() > ProductCatalogConstants.MAX_PRICE) {
+			throw new InvalidRequestException("Product price exceeds 10,000. Hence not saved.");
+		}
+		// postedDate is part of the listing sort key, it must never be stored as null
+		if (product.getPostedDate() == null) {
+			product.setPostedDate(LocalDateTime.now());
+		}
+	}
+
+	private boolean requiresApproval(Product product) {
+		return product.getPrice() != null && product.getPrice() > ProductCatalogConstants.MIN_APPROVAL_PRICE;
+	}
+
+	private ApprovalQueue newApprovalRequest(Product product) {
+		ApprovalQueue approvalQueue = new ApprovalQueue();
+		approvalQueue.setName(product.getName());
+		approvalQueue.setPrice(product.getPrice());
+		approvalQueue.setPostedDate(LocalDateTime.now());
+		approvalQueue.setStatus(product.getStatus());
+		return approvalQueue;
+	}
+
+	/**
+	 * Creates products in chunks of BULK_CHUNK_SIZE, each chunk in its own
+	 * transaction so a large load neither holds one long transaction nor grows
+	 * one persistence context. Every item goes through the same validation and
+	 * approval routing as a single create. Reading stops at the first item that
+	 * cannot be parsed, items before it are kept.
+	 */
+	@Override
+	public BatchReport bulkCreateProducts(Iterator<Product> products) {
+		List<BatchItemResult> results = new ArrayList<>();
+		List<Product> chunk = new ArrayList<>(ProductCatalogConstants.BULK_CHUNK_SIZE);
+		BatchItemResult unreadable = null;
+		int index = 0;
+		while (true) {
+			Product product;
+			try {
+				if (!products.hasNext()) {
+					break;
+				}
+				product = products.next();
+			} catch (RuntimeException e) {
+				log.info("Bulk create stopped at unreadable item {} - {}", index, e.getMessage());
+				unreadable = BatchItemResult.rejected(index,
+						"Item could not be read, remaining items were not processed - " + e.getMessage());
+				break;
 			}
-			return ResponseHandler.generateResponse(response, HttpStatus.OK);
+			chunk.add(product);
+			index++;
+			if (chunk.size() == ProductCatalogConstants.BULK_CHUNK_SIZE) {
+				results.addAll(writeChunk(index - chunk.size(), chunk));
+				chunk.clear();
 			}
-			 else {
-					
-					throw new IllegalArgumentException("Product price exceeds 10,000. Hence not saved.");
-				
+		}
+		if (!chunk.isEmpty()) {
+			results.addAll(writeChunk(index - chunk.size(), chunk));
+		}
+		if (unreadable != null) {
+			results.add(unreadable);
+		}
+		log.info("Bulk create processed {} items", results.size());
+		return new BatchReport(results);
+	}
+
+	private List<BatchItemResult> writeChunk(int firstIndex, List<Product> chunk) {
+		BatchItemResult[] results = new BatchItemResult[chunk.size()];
+		Object[] written = new Object[chunk.size()];
+		List<Product> newProducts = new ArrayList<>();
+		List<ApprovalQueue> approvalRequests = new ArrayList<>();
+		for (int i = 0; i < chunk.size(); i++) {
+			Product product = chunk.get(i);
+			if (product == null) {
+				results[i] = BatchItemResult.rejected(firstIndex + i, "Product cannot be null");
+				continue;
+			}
+			try {
+				prepareNewProduct(product);
+			} catch (IllegalArgumentException e) {
+				results[i] = BatchItemResult.rejected(firstIndex + i, e.getMessage());
+				continue;
+			}
+			if (requiresApproval(product)) {
+				ApprovalQueue approvalQueue = newApprovalRequest(product);
+				approvalRequests.add(approvalQueue);
+				written[i] = approvalQueue;
+			} else {
+				newProducts.add(product);
+				written[i] = product;
 			}
-			
 		}
-		else {
-			productRepository.save(product);
-			log.info("Product Created successfully");
-			response = "Product Created Successfully";
-			return ResponseHandler.generateResponse(response, HttpStatus.OK);
+		try {
+			transactionTemplate.executeWithoutResult(status -> {
+				productRepository.saveAll(newProducts);
+				approvalQueueRepository.saveAll(approvalRequests);
+				newProducts.forEach(product -> publishChange(product.getId(), null, product));
+			});
+		} catch (DataAccessException | TransactionException e) {
+			log.error("Bulk create failed to save items {} to {} - {}", firstIndex, firstIndex + chunk.size() - 1,
+					e.getMessage());
+			metrics.productsRejected(chunk.size());
+			for (int i = 0; i < chunk.size(); i++) {
+				if (results[i] == null) {
+					results[i] = BatchItemResult.rejected(firstIndex + i, "Product could not be saved - " + e.getMessage());
+				}
+			}
+			return Arrays.asList(results);
 		}
-			
+		metrics.productsSaved(newProducts.size());
+		metrics.productsQueuedForApproval(approvalRequests.size());
+		metrics.productsRejected(chunk.size() - newProducts.size() - approvalRequests.size());
+		for (int i = 0; i < chunk.size(); i++) {
+			if (written[i] instanceof Product product) {
+				results[i] = BatchItemResult.created(firstIndex + i, product.getId());
+			} else if (written[i] instanceof ApprovalQueue approvalQueue) {
+				results[i] = BatchItemResult.queued(firstIndex + i, approvalQueue.getId());
+			}
 		}
+		return Arrays.asList(results);
+	}
 
-	public ResponseEntity<Object> updateProductWithApprovalCheck(Long productId, Product updatedProduct) {
+	public ResponseEntity<StatusMessage> updateProductWithApprovalCheck(Long productId, Product updatedProduct) {
+		return updateProductWithApprovalCheck(productId, updatedProduct, null);
+	}
+
+	/**
+	 * Update guarded by the product version. A concurrent update is reported as
+	 * a conflict and not retried, re-applying it would overwrite the other
+	 * writer's change. Losing the race to queue the pending request is retried,
+	 * see executeWithRetry.
+	 */
+	@Override
+	public ResponseEntity<StatusMessage> updateProductWithApprovalCheck(Long productId, Product updatedProduct,
+			Long expectedVersion) {
+		return executeWithRetry("Product " + productId, 1,
+				() -> applyUpdate(productId, updatedProduct, expectedVersion));
+	}
+
+	private ResponseEntity<StatusMessage> applyUpdate(Long productId, Product updatedProduct, Long expectedVersion) {
 		Optional<Product> productOptional = productRepository.findById(productId);
 		if (productOptional.isPresent()) {
 			Product product = productOptional.get();
+			checkVersion("Product " + productId, product.getVersion(), expectedVersion);
 			Double previousPrice = product.getPrice();
 
 			if (updatedProduct.getPrice() > 10000) {
-				throw new IllegalArgumentException("Product price exceeds 10,000. Hence not updated.");
+				throw new InvalidRequestException("Product price exceeds 10,000. Hence not updated.");
 				
 			}
 			// Check if the new price is more than 50% of the previous price
 			Double fiftyPercentOfPreviousPrice = previousPrice * 0.5;
 			if (updatedProduct.getPrice().compareTo(fiftyPercentOfPreviousPrice) > 0) {
 
-				ApprovalQueue approvalQueue = new ApprovalQueue();
-				approvalQueue.setName(updatedProduct.getName());
-				approvalQueue.setPrice(updatedProduct.getPrice());
-				approvalQueue.setPostedDate(LocalDateTime.now());
-				approvalQueue.setStatus(updatedProduct.getStatus());
-				approvalQueue.setProductId(productId);
-				approvalQueueRepository.save(approvalQueue);
+				queueChange(productId, updatedProduct.getName(), updatedProduct.getPrice(), updatedProduct.getStatus());
 				log.info("Product price updated to 50% more than previous price, hence added to approval queue");
 				productRepository.save(product);
-				return ResponseHandler.generateResponse("Product Sent for Approval as price is higher than 50% of previous value", HttpStatus.OK);
+				return ResponseHandler.UPDATE_QUEUED_FOR_APPROVAL;
 				
 			} else {
+				ProductState before = ProductState.of(product);
 				product.setName(updatedProduct.getName());
 				product.setPrice(updatedProduct.getPrice());
 				product.setStatus(updatedProduct.getStatus());
 				product.setPostedDate(LocalDateTime.now());
 				log.info("Product Saved Successfully");
 				productRepository.save(product);
-				return ResponseHandler.generateResponse("Product Updated Successfully", HttpStatus.OK);
+				publishChange(productId, before, product);
+				return ResponseHandler.PRODUCT_UPDATED;
 
 				
 			}
@@ -114,104 +326,281 @@ public class ProductServiceImpl implements ProductService {
 		}
 	}
 
-	public ResponseEntity<Object> deleteProductWithApproval(Long productId) {
+	public ResponseEntity<StatusMessage> deleteProductWithApproval(Long productId) {
+		return executeWithRetry("Product " + productId, 1, () -> applyDelete(productId));
+	}
+
+	private ResponseEntity<StatusMessage> applyDelete(Long productId) {
 		Product prod = productRepository.findById(productId)
 				.orElseThrow(() -> new ResourceNotFoundException("No Product with ID " + productId + " found!"));
-		ApprovalQueue approvalQueue = new ApprovalQueue();
+		ProductState before = ProductState.of(prod);
 		prod.setStatus(Status.INACTIVE);
-		approvalQueue.setProductId(productId);
-		approvalQueue.setName(prod.getName());
-		approvalQueue.setPrice(prod.getPrice());
-		approvalQueue.setPostedDate(LocalDateTime.now());
-		approvalQueue.setStatus(prod.getStatus());
 		log.info("Product requested to be deleted, Hence added to approval queue");
-		approvalQueueRepository.save(approvalQueue);
+		queueChange(productId, prod.getName(), prod.getPrice(), prod.getStatus());
 		productRepository.save(prod);
-		return ResponseHandler.generateResponse("Product Deleted successfully", HttpStatus.OK);
+		publishChange(productId, before, prod);
+		return ResponseHandler.PRODUCT_DELETED;
 		
 
 	}
 
-	public ResponseEntity<Object> approveProduct(Long approvalId) {
+	/**
+	 * Queues a change to an existing product, replacing the values of its
+	 * pending request when it has one, so approvers see a single request per
+	 * product holding the latest values and queued since the first change. The
+	 * replaced request gets a new version, an approval sent with the old one
+	 * fails its If-Match check, and the auto-approval rules look at it again.
+	 */
+	private void queueChange(Long productId, String name, Double price, Status status) {
+		ApprovalQueue approvalQueue = approvalQueueRepository.findPendingByProductId(productId).orElseGet(() -> {
+			ApprovalQueue request = new ApprovalQueue();
+			request.setProductId(productId);
+			return request;
+		});
+		approvalQueue.setName(name);
+		approvalQueue.setPrice(price);
+		approvalQueue.setPostedDate(LocalDateTime.now());
+		approvalQueue.setStatus(status);
+		approvalQueue.setAutoReviewedAt(null);
+		approvalQueueRepository.save(approvalQueue);
+	}
+
+	public ResponseEntity<StatusMessage> approveProduct(Long approvalId) {
+		return approveProduct(approvalId, null);
+	}
+
+	/**
+	 * Approval is retried when it races a concurrent change to the product. If
+	 * the queue entry itself was approved or rejected in the meantime the retry
+	 * no longer finds it, so an entry is never applied twice.
+	 */
+	@Override
+	public ResponseEntity<StatusMessage> approveProduct(Long approvalId, Long expectedVersion) {
 	    if (approvalId == null) {
-	        throw new IllegalArgumentException("Approval ID cannot be null");
+	        throw new InvalidRequestException("Approval ID cannot be null");
 	    }
+	    return executeWithRetry("Approval request " + approvalId, ProductCatalogConstants.MAX_APPROVAL_ATTEMPTS,
+	            () -> applyApproval(approvalId, expectedVersion));
+	}
 
+	private ResponseEntity<StatusMessage> applyApproval(Long approvalId, Long expectedVersion) {
 	    ApprovalQueue approveQueueData = approvalQueueRepository.findById(approvalId).orElseThrow(
 	            () -> new ResourceNotFoundException("No ID in Approval Queue with ID " + approvalId + " found!"));
+	    checkVersion("Approval request " + approvalId, approveQueueData.getVersion(), expectedVersion);
 
 	    Long productId = approveQueueData.getProductId();
 	    if (productId != null) {
 	        Optional<Product> productOptional = productRepository.findById(productId);
 	        if (productOptional.isPresent()) {
 	            Product product = productOptional.get();
-	            product.setName(approveQueueData.getName());
-	            product.setPrice(approveQueueData.getPrice());
-	            product.setStatus(approveQueueData.getStatus());
-	            product.setPostedDate(LocalDateTime.now());
+	            ProductState before = ProductState.of(product);
+	            applyApprovedValues(approveQueueData, product);
 	            log.info("Product approved successfully and product updated");
 	            productRepository.save(product);
+	            publishChange(productId, before, product);
 	            approvalQueueRepository.delete(approveQueueData);
-	            return ResponseHandler.generateResponse("Product approved successfully and product updated", HttpStatus.OK);
+	            return ResponseHandler.APPROVED_AND_UPDATED;
 	        }
 	    } else {
 	        Product product = new Product();
-	        product.setName(approveQueueData.getName());
-	        product.setPrice(approveQueueData.getPrice());
-	        product.setStatus(approveQueueData.getStatus());
-	        product.setPostedDate(LocalDateTime.now());
+	        applyApprovedValues(approveQueueData, product);
 	        log.info("Product approved successfully and product added");
 	        productRepository.save(product);
+	        publishChange(product.getId(), null, product);
 	        approvalQueueRepository.delete(approveQueueData);
-	        return ResponseHandler.generateResponse("Product approved successfully and product added", HttpStatus.OK);
+	        return ResponseHandler.APPROVED_AND_ADDED;
 	    }
 
 	    // If neither of the above conditions is satisfied, delete the approvalQueueData and return
 	    approvalQueueRepository.delete(approveQueueData);
-	    return ResponseHandler.generateResponse("Product approval process completed", HttpStatus.OK);
+	    return ResponseHandler.APPROVAL_COMPLETED;
+	}
+
+
+	private void applyApprovedValues(ApprovalQueue approvalQueue, Product product) {
+		product.setName(approvalQueue.getName());
+		product.setPrice(approvalQueue.getPrice());
+		product.setStatus(approvalQueue.getStatus());
+		product.setPostedDate(LocalDateTime.now());
+	}
+
+	/**
+	 * Approves many queue entries at once. The queue rows and the products they
+	 * target are each loaded with a single IN query, and every change is written
+	 * in one transaction: products through batched inserts/updates and the
+	 * queue rows through batched, version checked deletes. A batch that races
+	 * a concurrent change is retried as a whole.
+	 */
+	@Override
+	public BatchReport approveProducts(List<Long> approvalIds) {
+		validateApprovalIds(approvalIds);
+		return executeWithRetry("Approval batch", ProductCatalogConstants.MAX_APPROVAL_ATTEMPTS,
+				() -> applyBatchApproval(approvalIds));
+	}
+
+	private BatchReport applyBatchApproval(List<Long> approvalIds) {
+		Map<Long, ApprovalQueue> approvalRequests = loadApprovalRequests(approvalIds);
+		Set<Long> productIds = approvalRequests.values().stream().map(ApprovalQueue::getProductId)
+				.filter(Objects::nonNull).collect(Collectors.toSet());
+		Map<Long, Product> products = productRepository.findAllById(productIds).stream()
+				.collect(Collectors.toMap(Product::getId, Function.identity()));
+
+		BatchItemResult[] results = new BatchItemResult[approvalIds.size()];
+		Product[] approvedProducts = new Product[approvalIds.size()];
+		List<ProductState> before = new ArrayList<>();
+		List<Product> changed = new ArrayList<>();
+		List<ApprovalQueue> processed = new ArrayList<>();
+		for (int i = 0; i < approvalIds.size(); i++) {
+			ApprovalQueue approvalQueue = approvalRequests.remove(approvalIds.get(i));
+			if (approvalQueue == null) {
+				results[i] = missingApprovalRequest(i, approvalIds.get(i));
+				continue;
+			}
+			processed.add(approvalQueue);
+			Long productId = approvalQueue.getProductId();
+			Product product = productId == null ? new Product() : products.get(productId);
+			if (product == null) {
+				results[i] = BatchItemResult.approved(i, approvalQueue.getId(), productId,
+						"Product no longer exists, approval request removed");
+				continue;
+			}
+			before.add(productId == null ? null : ProductState.of(product));
+			applyApprovedValues(approvalQueue, product);
+			changed.add(product);
+			approvedProducts[i] = product;
+		}
+		productRepository.saveAll(changed);
+		approvalQueueRepository.deleteAll(processed);
+		for (int i = 0; i < changed.size(); i++) {
+			publishChange(changed.get(i).getId(), before.get(i), changed.get(i));
+		}
+		for (int i = 0; i < results.length; i++) {
+			if (results[i] == null) {
+				results[i] = BatchItemResult.approved(i, approvalIds.get(i), approvedProducts[i].getId(), null);
+			}
+		}
+		log.info("Batch approved {} approval requests", processed.size());
+		return new BatchReport(Arrays.asList(results));
 	}
 
+	public ResponseEntity<StatusMessage>rejectProduct(Long approvalId) {
+		return rejectProduct(approvalId, null);
+	}
 
-	public ResponseEntity<Object>rejectProduct(Long approvalId) {
+	@Override
+	public ResponseEntity<StatusMessage> rejectProduct(Long approvalId, Long expectedVersion) {
 		if (approvalId == null) {
-			throw new IllegalArgumentException("Approval ID cannot be null");
+			throw new InvalidRequestException("Approval ID cannot be null");
 		}
+		return executeWithRetry("Approval request " + approvalId, ProductCatalogConstants.MAX_APPROVAL_ATTEMPTS,
+				() -> applyRejection(approvalId, expectedVersion));
+	}
+
+	private ResponseEntity<StatusMessage> applyRejection(Long approvalId, Long expectedVersion) {
 		ApprovalQueue approveQueueData = approvalQueueRepository.findById(approvalId).orElseThrow(
 				() -> new ResourceNotFoundException("No ID in Approval Queue with ID " + approvalId + " found!"));
+		checkVersion("Approval request " + approvalId, approveQueueData.getVersion(), expectedVersion);
 		log.info("Product rejected. Product state unchanged");
 		approvalQueueRepository.delete(approveQueueData);
-		return ResponseHandler.generateResponse("Product Rejected Successfully", HttpStatus.OK);
+		return ResponseHandler.PRODUCT_REJECTED;
 
 
 	}
 
+	/**
+	 * Rejects many queue entries at once with one IN query to load them and
+	 * batched deletes to remove them. Products are left unchanged.
+	 */
 	@Override
-	public ResponseEntity<List<Product>> searchProductsBasedOnSearchCriteria(String productName, Double minPrice, Double maxPrice,
-			LocalDateTime minPostedDate, LocalDateTime maxPostedDate) throws Exception{
+	public BatchReport rejectProducts(List<Long> approvalIds) {
+		validateApprovalIds(approvalIds);
+		return executeWithRetry("Rejection batch", ProductCatalogConstants.MAX_APPROVAL_ATTEMPTS,
+				() -> applyBatchRejection(approvalIds));
+	}
+
+	private BatchReport applyBatchRejection(List<Long> approvalIds) {
+		Map<Long, ApprovalQueue> approvalRequests = loadApprovalRequests(approvalIds);
+		List<BatchItemResult> results = new ArrayList<>(approvalIds.size());
+		List<ApprovalQueue> processed = new ArrayList<>();
+		for (int i = 0; i < approvalIds.size(); i++) {
+			ApprovalQueue approvalQueue = approvalRequests.remove(approvalIds.get(i));
+			if (approvalQueue == null) {
+				results.add(missingApprovalRequest(i, approvalIds.get(i)));
+				continue;
+			}
+			processed.add(approvalQueue);
+			results.add(BatchItemResult.rejected(i, approvalQueue.getId(), null));
+		}
+		approvalQueueRepository.deleteAll(processed);
+		log.info("Batch rejected {} approval requests. Product state unchanged", processed.size());
+		return new BatchReport(results);
+	}
+
+	private void validateApprovalIds(List<Long> approvalIds) {
+		if (approvalIds == null || approvalIds.isEmpty()) {
+			throw new InvalidRequestException("approvalIds cannot be empty");
+		}
+		if (approvalIds.size() > ProductCatalogConstants.MAX_APPROVAL_BATCH_SIZE) {
+			throw new InvalidRequestException(
+					"At most " + ProductCatalogConstants.MAX_APPROVAL_BATCH_SIZE + " approvalIds can be processed at once");
+		}
+		if (approvalIds.stream().anyMatch(Objects::isNull)) {
+			throw new InvalidRequestException("Approval ID cannot be null");
+		}
+	}
+
+	/**
+	 * Queue rows by id, loaded with a single IN query. Rows are deleted one by
+	 * one (JDBC batched) rather than with a bulk delete so their version is
+	 * checked and an entry processed by a concurrent batch is detected.
+	 */
+	private Map<Long, ApprovalQueue> loadApprovalRequests(List<Long> approvalIds) {
+		return approvalQueueRepository.findAllById(new HashSet<>(approvalIds)).stream()
+				.collect(Collectors.toMap(ApprovalQueue::getId, Function.identity()));
+	}
+
+	/**
+	 * Unknown ids and ids repeated in the request, the first occurrence is the
+	 * one that gets processed.
+	 */
+	private BatchItemResult missingApprovalRequest(int index, Long approvalId) {
+		return BatchItemResult.notFound(index, approvalId, "No ID in Approval Queue with ID " + approvalId + " found!");
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public ResponseEntity<List<ProductView>> searchProductsBasedOnSearchCriteria(String productName, Double minPrice, Double maxPrice,
+			LocalDateTime minPostedDate, LocalDateTime maxPostedDate, String fields) throws Exception{
+		Set<String> selected = ProductView.parseFields(fields);
 		if(minPrice==null && maxPrice ==null &&  productName==null && minPostedDate==null && maxPostedDate==null) {
 			log.info("Validation successful : Fetching all active products as search criteria is empty");
-			List<Product> products =  productRepository.findProductByStatusOrderByPostedDateDesc(Status.ACTIVE);
+			Specification<Product> active = ProductSpecifications.hasStatus(Status.ACTIVE);
+			if (selected != null) {
+				return ResponseEntity.ok(productRepository.findViews(active, selected, SEARCH_ORDER, 0));
+			}
+			// only kept while the active catalog fits the list cache
+			List<ProductView> products = activeProductCache.getList("search:all", () -> ReplicaRoutingDataSource
+					.onPrimary(() -> productRepository.findViews(active, null, SEARCH_ORDER, 0)));
 			return ResponseEntity.ok(products);
 			
 			}
-		// Validations: Ensure that the maxPrice is greater than or equal to minPrice
-		else if (minPrice != null && maxPrice != null && minPrice.compareTo(maxPrice) >= 0) {
-			log.info("Validation failed :: Max Price should be greater than min price");
-			throw new IllegalArgumentException("maxPrice should be greater than or equal to minPrice");
-		}
-
-		// Validations: Ensure that the maxPostedDate is after or equal to minPostedDate
-		else if(minPostedDate != null && maxPostedDate != null && minPostedDate.isAfter(maxPostedDate)) {
-			log.info("Validation failed :: Max posted date should be after min posted date");
-			throw new IllegalArgumentException("maxPostedDate should be after or equal to minPostedDate");
-		}
-		 
 		else {
+			validateSearchRanges(minPrice, maxPrice, minPostedDate, maxPostedDate);
 			log.info("Validation successful : Fetching active products based on search criteria");
-			List<Product> products =  productRepository.findByNameEqualsIgnoreCaseOrPriceBetweenOrPostedDateBetweenAndStatus(productName, minPrice,
-					maxPrice, minPostedDate, maxPostedDate,Status.ACTIVE);
+			if (productName == null && minPostedDate == null && maxPostedDate == null
+					&& !productPriceIndex.isLoading()) {
+				long[] productIds = productPriceIndex.idsInRange(minPrice, maxPrice);
+				if (productIds.length <= activeProductCache.capacity() / PRICE_SEARCH_CACHE_SHARE) {
+					List<ProductView> products = findActiveViews(productIds, minPrice, maxPrice, selected);
+					return products.isEmpty() ? ResponseHandler.noProducts() : ResponseEntity.ok(products);
+				}
+			}
+			ProductSearchCriteria criteria = new ProductSearchCriteria(productName, minPrice, maxPrice, minPostedDate,
+					maxPostedDate);
+			List<ProductView> products = productRepository.findViews(
+					ProductSpecifications.matching(Status.ACTIVE, criteria), selected, SEARCH_ORDER, 0);
 			if(products.isEmpty()) {
-				return ResponseHandler.generateResponseForEmptyProduct("No records found", HttpStatus.NO_CONTENT);
+				return ResponseHandler.noProducts();
 			}
 			return ResponseEntity.ok(products);
 			
@@ -220,6 +609,245 @@ public class ProductServiceImpl implements ProductService {
 		
 	}
 
-	
+	/**
+	 * Price only searches, the most common storefront filter, take their ids
+	 * from the in-memory price index and the products from the active product
+	 * cache. A product deactivated after the index answered is dropped by the
+	 * cache, one repriced meanwhile by the price check here. While the index
+	 * loads they are read from the database like the other searches.
+	 */
+	private List<ProductView> findActiveViews(long[] productIds, Double minPrice, Double maxPrice,
+			Set<String> fields) {
+		List<Long> ids = new ArrayList<>(productIds.length);
+		for (long productId : productIds) {
+			ids.add(productId);
+		}
+		List<ProductView> products = new ArrayList<>(ids.size());
+		for (Product product : activeProductCache.getProducts(ids, this::findProductsOnPrimary)) {
+			Double price = product.getPrice();
+			if (price != null && (minPrice == null || price >= minPrice) && (maxPrice == null || price <= maxPrice)) {
+				products.add(ProductView.of(product));
+			}
+		}
+		products.sort(VIEW_ORDER);
+		products.replaceAll(product -> product.select(fields));
+		return products;
+	}
+
+	private void validateSearchRanges(Double minPrice, Double maxPrice, LocalDateTime minPostedDate,
+			LocalDateTime maxPostedDate) {
+		// Validations: Ensure that the maxPrice is greater than or equal to minPrice
+		if (minPrice != null && maxPrice != null && minPrice.compareTo(maxPrice) >= 0) {
+			log.info("Validation failed :: Max Price should be greater than min price");
+			throw new InvalidRequestException("maxPrice should be greater than or equal to minPrice");
+		}
+
+		// Validations: Ensure that the maxPostedDate is after or equal to minPostedDate
+		if (minPostedDate != null && maxPostedDate != null && minPostedDate.isAfter(maxPostedDate)) {
+			log.info("Validation failed :: Max posted date should be after min posted date");
+			throw new InvalidRequestException("maxPostedDate should be after or equal to minPostedDate");
+		}
+	}
+
+	/**
+	 * Same filters and validation as the product search, answered from the
+	 * in-memory facet counters.
+	 */
+	@Override
+	public FacetResponse getProductFacets(String productName, Double minPrice, Double maxPrice,
+			LocalDateTime minPostedDate, LocalDateTime maxPostedDate) {
+		validateSearchRanges(minPrice, maxPrice, minPostedDate, maxPostedDate);
+		return productFacets
+				.facets(new ProductSearchCriteria(productName, minPrice, maxPrice, minPostedDate, maxPostedDate));
+	}
+
+	@Override
+	public Product getActiveProduct(Long productId) {
+		return activeProductCache.getProduct(productId, this::findProductOnPrimary)
+				.orElseThrow(() -> new ResourceNotFoundException("No active Product with ID " + productId + " found!"));
+	}
+
+	/**
+	 * Cache entries are loaded from the primary. A lagging replica could still
+	 * return the state from before the change that just invalidated the entry,
+	 * which would then be served until the next change.
+	 */
+	private Optional<Product> findProductOnPrimary(Long productId) {
+		return ReplicaRoutingDataSource.onPrimary(() -> productRepository.findById(productId));
+	}
+
+	/** cache misses of a batch lookup, read from the primary in chunks */
+	private List<Product> findProductsOnPrimary(Set<Long> productIds) {
+		List<Long> ids = new ArrayList<>(productIds);
+		List<Product> products = new ArrayList<>(ids.size());
+		for (int from = 0; from < ids.size(); from += ProductCatalogConstants.BULK_CHUNK_SIZE) {
+			List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + ProductCatalogConstants.BULK_CHUNK_SIZE));
+			products.addAll(ReplicaRoutingDataSource.onPrimary(() -> productRepository.findAllById(chunk)));
+		}
+		return products;
+	}
+
+	/**
+	 * Ranked ids come from the in-memory name index, the products themselves
+	 * from the active product cache. A product deactivated after the index
+	 * answered is dropped by the cache.
+	 */
+	@Override
+	public List<ProductView> searchProductsByName(String query, Integer limit, String fields) {
+		Set<String> selected = ProductView.parseFields(fields);
+		int maxResults = limit == null ? ProductCatalogConstants.DEFAULT_NAME_SEARCH_LIMIT : limit;
+		if (query == null || query.isBlank()) {
+			throw new InvalidRequestException("query is mandatory");
+		}
+		if (maxResults < 1 || maxResults > ProductCatalogConstants.MAX_PAGE_SIZE) {
+			throw new InvalidRequestException("limit should be between 1 and " + ProductCatalogConstants.MAX_PAGE_SIZE);
+		}
+		List<ProductView> products = new ArrayList<>(maxResults);
+		for (Long productId : productNameIndex.search(query, maxResults)) {
+			activeProductCache.getProduct(productId, this::findProductOnPrimary)
+					.ifPresent(product -> products.add(ProductView.of(product).select(selected)));
+		}
+		return products;
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public CursorPage<ProductView> listActiveProducts(Integer limit, String pageToken, String fields) {
+		Set<String> selected = ProductView.parseFields(fields);
+		if (limit == null && pageToken == null && selected == null) {
+			// the default first page is what most clients ask for, serve it from cache
+			return activeProductCache.getList("page:first", () -> ReplicaRoutingDataSource
+					.onPrimary(() -> loadActiveProductsPage(ProductCatalogConstants.DEFAULT_PAGE_SIZE, null, null)));
+		}
+		return loadActiveProductsPage(limit == null ? ProductCatalogConstants.DEFAULT_PAGE_SIZE : limit, pageToken,
+				selected);
+	}
+
+	private CursorPage<ProductView> loadActiveProductsPage(int pageSize, String pageToken, Set<String> fields) {
+		if (pageSize < 1 || pageSize > ProductCatalogConstants.MAX_PAGE_SIZE) {
+			throw new InvalidRequestException("limit should be between 1 and " + ProductCatalogConstants.MAX_PAGE_SIZE);
+		}
+		Specification<Product> specification = ProductSpecifications.hasStatus(Status.ACTIVE);
+		if (pageToken != null) {
+			PageToken after = PageToken.decode(pageToken);
+			specification = specification.and(ProductSpecifications.postedBefore(after.getTimestamp(), after.getId()));
+		}
+		// one extra row tells us whether another page exists without a count query,
+		// the page token columns are read even when not asked for
+		Specification<Product> matching = specification;
+		Set<String> columns = ProductView.withFields(fields, "postedDate", "id");
+		// pages read from a lagging replica could put rows from before a write
+		// in the query cache, so only pages read from the primary are cached
+		List<ProductView> products = ReplicaRoutingDataSource.routesToReplica(replicaLagMonitor)
+				? productRepository.findViews(matching, columns, SEARCH_ORDER, pageSize + 1)
+				: ReplicaRoutingDataSource.onPrimary(
+						() -> productRepository.findCachedViews(matching, columns, SEARCH_ORDER, pageSize + 1));
+		if (products.size() <= pageSize) {
+			return new CursorPage<>(products, null);
+		}
+		List<ProductView> page = products.subList(0, pageSize);
+		ProductView last = page.get(pageSize - 1);
+		return new CursorPage<>(page, PageToken.encode(last.postedDate(), last.id()));
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public CursorPage<ApprovalQueue> listApprovalQueue(ApprovalQueueCriteria criteria, Integer limit, String pageToken) {
+		int pageSize = limit == null ? ProductCatalogConstants.DEFAULT_PAGE_SIZE : limit;
+		if (pageSize < 1 || pageSize > ProductCatalogConstants.MAX_PAGE_SIZE) {
+			throw new InvalidRequestException("limit should be between 1 and " + ProductCatalogConstants.MAX_PAGE_SIZE);
+		}
+		Specification<ApprovalQueue> specification = approvalQueueSpecification(criteria);
+		if (pageToken != null) {
+			PageToken after = PageToken.decode(pageToken);
+			specification = specification.and(ApprovalQueueSpecifications.after(after.getTimestamp(), after.getId()));
+		}
+		// one extra row tells us whether another page exists without a count query
+		List<ApprovalQueue> rows = approvalQueueRepository.findOldestFirst(specification, pageSize + 1);
+		if (rows.size() <= pageSize) {
+			return new CursorPage<>(rows, null);
+		}
+		List<ApprovalQueue> page = rows.subList(0, pageSize);
+		ApprovalQueue last = page.get(pageSize - 1);
+		return new CursorPage<>(page, PageToken.encode(last.getApprovalRequestDate(), last.getId()));
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public long countApprovalQueue(ApprovalQueueCriteria criteria) {
+		return approvalQueueRepository.count(approvalQueueSpecification(criteria));
+	}
+
+	private Specification<ApprovalQueue> approvalQueueSpecification(ApprovalQueueCriteria criteria) {
+		if (criteria.getMinRequestDate() != null && criteria.getMaxRequestDate() != null
+				&& criteria.getMinRequestDate().isAfter(criteria.getMaxRequestDate())) {
+			log.info("Validation failed :: Max request date should be after min request date");
+			throw new InvalidRequestException("maxRequestDate should be after or equal to minRequestDate");
+		}
+		return ApprovalQueueSpecifications.matching(criteria);
+	}
+
+	private void checkVersion(String resource, Long currentVersion, Long expectedVersion) {
+		if (expectedVersion != null && !expectedVersion.equals(currentVersion)) {
+			throw new PreconditionFailedException(
+					resource + " is at version " + currentVersion + " but If-Match expected " + expectedVersion);
+		}
+	}
+
+	/**
+	 * Runs work in its own transaction and runs it again, up to maxAttempts in
+	 * total, when it loses an optimistic lock race or a race to queue the first
+	 * pending request of a product. Every attempt reloads the rows it changes,
+	 * so a retry is applied on top of the concurrent change.
+	 *
+	 * Losing the pending request race is retried at least once whatever
+	 * maxAttempts is: the retry finds the request the other writer queued and
+	 * replaces its values, as a later change would have.
+	 */
+	private <T> T executeWithRetry(String resource, int maxAttempts, Supplier<T> work) {
+		for (int attempt = 1;; attempt++) {
+			try {
+				return transactionTemplate.execute(status -> work.get());
+			} catch (OptimisticLockingFailureException | DataIntegrityViolationException e) {
+				boolean pendingRequestConflict = e instanceof DataIntegrityViolationException;
+				if (pendingRequestConflict && !isPendingRequestConflict(e)) {
+					throw e;
+				}
+				if (attempt >= (pendingRequestConflict
+						? Math.max(maxAttempts, ProductCatalogConstants.MAX_PENDING_REQUEST_ATTEMPTS)
+						: maxAttempts)) {
+					log.info("{} was changed concurrently, giving up after {} attempt(s)", resource, attempt);
+					throw new ConcurrentUpdateException(resource + " was changed concurrently, reload it and try again");
+				}
+				log.info("{} was changed concurrently, retrying", resource);
+			}
+		}
+	}
+
+	private static boolean isPendingRequestConflict(RuntimeException e) {
+		String message = e.getMessage();
+		return message != null
+				&& message.toLowerCase().contains(ProductCatalogConstants.APPROVAL_QUEUE_PENDING_KEY);
+	}
+
+	private void publishChange(Long productId, ProductState before, Product after) {
+		eventPublisher.publishEvent(new ProductChangedEvent(productId, before, ProductState.of(after)));
+	}
+
+	/**
+	 * Hands every active product to the consumer as it is read from the cursor.
+	 * Rows are detached once consumed so the persistence context does not grow
+	 * with the size of the catalog.
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public void streamActiveProducts(Consumer<Product> consumer) {
+		try (Stream<Product> products = productRepository.streamByStatus(Status.ACTIVE)) {
+			products.forEach(product -> {
+				consumer.accept(product);
+				entityManager.detach(product);
+			});
+		}
+	}
 	
 }
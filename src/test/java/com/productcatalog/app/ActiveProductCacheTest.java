@@ -0,0 +1,109 @@
+package com.productcatalog.app;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.productcatalog.app.cache.ActiveProductCache;
+import com.productcatalog.app.config.CacheConfig;
+import com.productcatalog.app.event.ProductChangedEvent;
+import com.productcatalog.app.event.ProductState;
+import com.productcatalog.app.model.Product;
+import com.productcatalog.app.model.Status;
+
+public class ActiveProductCacheTest {
+
+    private ActiveProductCache cache;
+
+    private AtomicInteger loads;
+
+    @BeforeEach
+    public void setUp() {
+        cache = new ActiveProductCache(new CacheConfig().cacheManager(100, 10));
+        loads = new AtomicInteger();
+    }
+
+    private Optional<Product> load(Product product) {
+        loads.incrementAndGet();
+        return Optional.of(product);
+    }
+
+    @Test
+    public void testGetProduct_LoadsOnceUntilInvalidated() {
+        Product product = new Product("Test Product", 100.0, Status.ACTIVE, LocalDateTime.now());
+        product.setId(1L);
+
+        cache.getProduct(1L, id -> load(product));
+        cache.getProduct(1L, id -> load(product));
+        assertEquals(1, loads.get());
+
+        cache.onProductChanged(new ProductChangedEvent(1L, ProductState.of(product), ProductState.of(product)));
+        cache.getProduct(1L, id -> load(product));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testGetProduct_InactiveProductIsNotCached() {
+        Product product = new Product("Test Product", 100.0, Status.INACTIVE, LocalDateTime.now());
+
+        assertFalse(cache.getProduct(1L, id -> load(product)).isPresent());
+        assertFalse(cache.getProduct(1L, id -> load(product)).isPresent());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testGetProducts_LoadsOnlyTheMissingOnesInOneCall() {
+        Product cached = new Product("Lamp", 100.0, Status.ACTIVE, LocalDateTime.now());
+        cached.setId(1L);
+        Product missing = new Product("Desk", 200.0, Status.ACTIVE, LocalDateTime.now());
+        missing.setId(2L);
+        Product inactive = new Product("Chair", 300.0, Status.INACTIVE, LocalDateTime.now());
+        inactive.setId(3L);
+        cache.getProduct(1L, id -> load(cached));
+
+        List<Set<Long>> batches = new ArrayList<>();
+        List<Product> found = cache.getProducts(List.of(1L, 2L, 3L), ids -> {
+            batches.add(ids);
+            return List.of(missing, inactive);
+        });
+
+        assertEquals(Set.of(cached, missing), Set.copyOf(found));
+        assertEquals(List.of(Set.of(2L, 3L)), batches);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testGetList_InvalidatedByAnyProductChange() {
+        List<Product> first = cache.getList("search:all", () -> List.of(new Product()));
+        List<Product> second = cache.getList("search:all", List::of);
+        assertEquals(1, second.size());
+
+        cache.onProductChanged(new ProductChangedEvent(null, null, ProductState.of(new Product())));
+        List<Product> afterChange = cache.getList("search:all", List::of);
+        assertTrue(afterChange.isEmpty());
+        assertEquals(1, first.size());
+    }
+
+    @Test
+    public void testGetList_ListLargerThanTheBoundIsNotKept() {
+        List<Product> small = cache.getList("page:first", () -> List.of(new Product(), new Product()));
+        List<Product> large = new ArrayList<>();
+        for (int i = 0; i < 11; i++) {
+            large.add(new Product());
+        }
+
+        assertEquals(11, cache.<List<Product>>getList("search:all", () -> large).size());
+        assertTrue(cache.<List<Product>>getList("search:all", List::of).isEmpty());
+        assertEquals(small, cache.getList("page:first", List::of));
+    }
+}
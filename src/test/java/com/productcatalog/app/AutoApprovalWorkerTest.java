@@ -0,0 +1,105 @@
+package com.productcatalog.app;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.productcatalog.app.approval.AutoApprovalRules;
+import com.productcatalog.app.approval.AutoApprovalWorker;
+import com.productcatalog.app.metrics.ProductCatalogMetrics;
+import com.productcatalog.app.model.ApprovalQueue;
+import com.productcatalog.app.model.Product;
+import com.productcatalog.app.model.Status;
+import com.productcatalog.app.repository.ApprovalQueueRepository;
+import com.productcatalog.app.repository.ProductRepository;
+import com.productcatalog.app.service.ProductService;
+
+public class AutoApprovalWorkerTest {
+
+    private final AutoApprovalRules rules = new AutoApprovalRules(7500.0, 100.0);
+
+    private ApprovalQueueRepository approvalQueueRepository;
+
+    private ProductRepository productRepository;
+
+    private ProductService productService;
+
+    private ProductCatalogMetrics metrics;
+
+    private AutoApprovalWorker worker;
+
+    @BeforeEach
+    public void setUp() {
+        approvalQueueRepository = mock(ApprovalQueueRepository.class);
+        productRepository = mock(ProductRepository.class);
+        productService = mock(ProductService.class);
+        metrics = mock(ProductCatalogMetrics.class);
+        worker = new AutoApprovalWorker(approvalQueueRepository, productRepository, productService, metrics,
+                mock(PlatformTransactionManager.class), 7500.0, 100.0, 1, 10, 1000);
+    }
+
+    @Test
+    public void testRules_NewProductUpToMaxNewPrice() {
+        assertTrue(rules.allows(request(null, 7500.0, Status.ACTIVE), null));
+        assertFalse(rules.allows(request(null, 7500.01, Status.ACTIVE), null));
+        assertFalse(new AutoApprovalRules(null, 100.0).allows(request(null, 6000.0, Status.ACTIVE), null));
+    }
+
+    @Test
+    public void testRules_UpdateWithinIncreaseOfCurrentPrice() {
+        Product current = new Product("Lamp", 3000.0, Status.ACTIVE, LocalDateTime.now());
+
+        assertTrue(rules.allows(request(4L, 6000.0, Status.ACTIVE), current));
+        assertFalse(rules.allows(request(4L, 6000.5, Status.ACTIVE), current));
+        assertFalse(rules.allows(request(4L, 3000.0, Status.INACTIVE), current));
+        assertFalse(rules.allows(request(4L, 3000.0, Status.ACTIVE), null));
+    }
+
+    @Test
+    public void testReviewBatch_ApprovesMatchesAndMarksTheRest() {
+        ApprovalQueue newProduct = request(null, 6000.0, Status.ACTIVE);
+        newProduct.setId(1L);
+        ApprovalQueue bigIncrease = request(4L, 9000.0, Status.ACTIVE);
+        bigIncrease.setId(2L);
+        ApprovalQueue smallIncrease = request(4L, 5000.0, Status.ACTIVE);
+        smallIncrease.setId(3L);
+        Product current = new Product("Lamp", 3000.0, Status.ACTIVE, LocalDateTime.now());
+        current.setId(4L);
+        when(approvalQueueRepository.claimForAutoReview(10)).thenReturn(List.of(newProduct, bigIncrease, smallIncrease));
+        when(productRepository.findAllById(Set.of(4L))).thenReturn(List.of(current));
+
+        assertEquals(3, worker.reviewBatch());
+        verify(productService).approveProducts(List.of(1L, 3L));
+        verify(approvalQueueRepository).markAutoReviewed(eq(List.of(2L)), any(LocalDateTime.class));
+        verify(metrics).autoApprovalsApplied(2, 1);
+    }
+
+    @Test
+    public void testReviewBatch_NothingClaimed() {
+        when(approvalQueueRepository.claimForAutoReview(anyInt())).thenReturn(List.of());
+
+        assertEquals(0, worker.reviewBatch());
+        verify(productService, never()).approveProducts(anyList());
+        verify(approvalQueueRepository, never()).markAutoReviewed(any(), any());
+    }
+
+    private static ApprovalQueue request(Long productId, Double price, Status status) {
+        return new ApprovalQueue("Lamp", price, status, LocalDateTime.now(), productId);
+    }
+}
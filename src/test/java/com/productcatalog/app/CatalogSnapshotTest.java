@@ -0,0 +1,161 @@
+package com.productcatalog.app;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.productcatalog.app.export.CatalogSnapshot;
+import com.productcatalog.app.export.CatalogSnapshotExporter;
+import com.productcatalog.app.export.CatalogSnapshotWriter;
+import com.productcatalog.app.model.JobLock;
+import com.productcatalog.app.model.Status;
+import com.productcatalog.app.repository.JobLockRepository;
+import com.productcatalog.app.repository.ProductRepository;
+
+public class CatalogSnapshotTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void testSnapshot_ReadsBackWhatWasWritten() throws IOException {
+        Path file = dir.resolve("catalog.snapshot");
+        LocalDateTime posted = LocalDateTime.parse("2023-08-01T10:15:30.123456");
+        try (CatalogSnapshotWriter writer = new CatalogSnapshotWriter(file)) {
+            writer.append(3L, "Lamp", 100.5, posted, Status.ACTIVE);
+            writer.append(7L, "Tasse à café", 12.0, LocalDateTime.parse("1969-12-31T23:59:59.5"), Status.INACTIVE);
+            writer.append(9L, "Lamp", null, null, null);
+            writer.append(12L, null, 40.0, posted, Status.ACTIVE);
+            assertEquals(4, writer.finish(1_690_000_000_000L));
+        }
+
+        CatalogSnapshot snapshot = CatalogSnapshot.open(file);
+
+        assertEquals(4, snapshot.size());
+        assertEquals(1_690_000_000_000L, snapshot.exportedAt());
+        assertEquals(2, snapshot.nameCount());
+        assertEquals(7L, snapshot.id(1));
+        assertEquals("Tasse à café", snapshot.name(1));
+        assertEquals(12.0, snapshot.price(1));
+        assertEquals(LocalDateTime.parse("1969-12-31T23:59:59.5"), snapshot.postedDate(1));
+        assertEquals(Status.INACTIVE, snapshot.status(1));
+        assertEquals(posted, snapshot.postedDate(0));
+        assertEquals("Lamp", snapshot.name(2));
+        assertNull(snapshot.price(2));
+        assertNull(snapshot.postedDate(2));
+        assertNull(snapshot.status(2));
+        assertNull(snapshot.name(3));
+        assertEquals(3, snapshot.rowOf(12L));
+        assertTrue(snapshot.rowOf(8L) < 0);
+        // the work files are gone, only the snapshot is left
+        try (Stream<Path> files = Files.list(dir)) {
+            assertArrayEquals(new Object[] { file }, files.toArray());
+        }
+    }
+
+    @Test
+    public void testSnapshot_ColumnsLargerThanTheWriteBuffer() throws IOException {
+        Path file = dir.resolve("catalog.snapshot");
+        int products = 50_000;
+        String longName = "x".repeat(100_000);
+        try (CatalogSnapshotWriter writer = new CatalogSnapshotWriter(file)) {
+            writer.append(1L, longName, 1.0, null, Status.ACTIVE);
+            for (int i = 2; i <= products; i++) {
+                writer.append(i, "product-" + (i % 1000), (double) i, null, Status.ACTIVE);
+            }
+            writer.finish(0L);
+        }
+
+        CatalogSnapshot snapshot = CatalogSnapshot.open(file);
+
+        assertEquals(products, snapshot.size());
+        assertEquals(1001, snapshot.nameCount());
+        assertEquals(longName, snapshot.name(0));
+        assertEquals("product-999", snapshot.name(products - 2));
+        assertEquals((double) products, snapshot.price(products - 1));
+        assertEquals(products - 1, snapshot.rowOf(products));
+    }
+
+    @Test
+    public void testSnapshot_EmptyCatalog() throws IOException {
+        Path file = dir.resolve("catalog.snapshot");
+        try (CatalogSnapshotWriter writer = new CatalogSnapshotWriter(file)) {
+            writer.finish(0L);
+        }
+
+        CatalogSnapshot snapshot = CatalogSnapshot.open(file);
+
+        assertEquals(0, snapshot.size());
+        assertEquals(0, snapshot.nameCount());
+        assertTrue(snapshot.rowOf(1L) < 0);
+    }
+
+    @Test
+    public void testAppend_RejectsIdsOutOfOrder() throws IOException {
+        try (CatalogSnapshotWriter writer = new CatalogSnapshotWriter(dir.resolve("catalog.snapshot"))) {
+            writer.append(5L, "Lamp", 1.0, null, Status.ACTIVE);
+
+            assertThrows(IllegalArgumentException.class, () -> writer.append(5L, "Lamp", 1.0, null, Status.ACTIVE));
+        }
+        assertTrue(Files.notExists(dir.resolve("catalog.snapshot")));
+    }
+
+    @Test
+    public void testOpen_RejectsOtherFiles() throws IOException {
+        Path file = Files.write(dir.resolve("products.json"), new byte[200]);
+
+        assertThrows(IOException.class, () -> CatalogSnapshot.open(file));
+    }
+
+    @Test
+    public void testExportIfDue_OncePerCronTimeAcrossInstances() throws IOException {
+        LocalDateTime tonight = LocalDateTime.parse("2023-08-02T01:30:00");
+        JobLock lock = new JobLock(JobLock.CATALOG_EXPORT, LocalDateTime.parse("2023-08-01T01:30:00"));
+        JobLockRepository jobLockRepository = mock(JobLockRepository.class);
+        when(jobLockRepository.claim(JobLock.CATALOG_EXPORT)).thenReturn(Optional.of(lock));
+        CatalogSnapshotExporter exporter = exporter(jobLockRepository);
+
+        Path file = exporter.exportIfDue(tonight);
+        assertEquals(file, exporter.latest());
+        assertEquals(tonight, lock.getLastRunAt());
+        // a second instance firing for the same time
+        assertNull(exporter(jobLockRepository).exportIfDue(tonight));
+    }
+
+    @Test
+    public void testExportIfDue_SkipsWhileAnotherInstanceExports() throws IOException {
+        JobLockRepository jobLockRepository = mock(JobLockRepository.class);
+        when(jobLockRepository.claim(JobLock.CATALOG_EXPORT)).thenReturn(Optional.empty());
+        ProductRepository productRepository = mock(ProductRepository.class);
+        CatalogSnapshotExporter exporter = new CatalogSnapshotExporter(productRepository, jobLockRepository,
+                mock(PlatformTransactionManager.class), dir, "0 30 1 * * *", 2);
+
+        assertNull(exporter.exportIfDue(LocalDateTime.parse("2023-08-02T01:30:00")));
+        assertNull(exporter.latest());
+        verify(productRepository, never()).streamSnapshotRows();
+    }
+
+    private CatalogSnapshotExporter exporter(JobLockRepository jobLockRepository) {
+        ProductRepository productRepository = mock(ProductRepository.class);
+        when(productRepository.streamSnapshotRows()).thenReturn(Stream.empty());
+        return new CatalogSnapshotExporter(productRepository, jobLockRepository, mock(PlatformTransactionManager.class),
+                dir, "0 30 1 * * *", 2);
+    }
+}
@@ -0,0 +1,73 @@
+package com.productcatalog.app;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Method;
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.event.TransactionalApplicationListenerMethodAdapter;
+
+import com.productcatalog.app.cache.ActiveProductCache;
+import com.productcatalog.app.cache.CatalogVersion;
+import com.productcatalog.app.datasource.ReplicaLagMonitor;
+import com.productcatalog.app.event.ProductChangedEvent;
+import com.productcatalog.app.event.ProductState;
+import com.productcatalog.app.model.Product;
+import com.productcatalog.app.search.ProductFacets;
+import com.productcatalog.app.search.ProductNameIndex;
+import com.productcatalog.app.search.ProductPriceIndex;
+
+public class CatalogVersionTest {
+
+    @Test
+    public void testAdvance_SameStampOnEveryInstanceAtAPosition() {
+        Instant changedAt = Instant.parse("2023-08-01T10:00:00.250Z");
+        CatalogVersion one = new CatalogVersion();
+        CatalogVersion other = new CatalogVersion();
+        assertNotEquals(one.current().eTag(), other.current().eTag());
+
+        one.advance(7, changedAt);
+        other.advance(7, changedAt);
+
+        assertEquals(one.current(), other.current());
+        assertEquals("W/\"7\"", one.current().eTag());
+        assertEquals(Instant.parse("2023-08-01T10:00:00Z"), one.current().lastModified());
+        other.advance(6, changedAt);
+        assertEquals(7, other.current().version());
+    }
+
+    @Test
+    public void testOnProductChanged_MovesStampForwardUntilTheNextPosition() {
+        CatalogVersion catalogVersion = new CatalogVersion();
+        catalogVersion.advance(7, Instant.EPOCH);
+        CatalogVersion.Stamp before = catalogVersion.current();
+
+        catalogVersion.onProductChanged(new ProductChangedEvent(1L, null, ProductState.of(new Product())));
+        CatalogVersion.Stamp local = catalogVersion.current();
+        catalogVersion.onProductChanged(ProductChangedEvent.replayed(1L, ProductState.of(new Product())));
+
+        assertNotEquals(before.eTag(), local.eTag());
+        assertEquals(local, catalogVersion.current());
+        catalogVersion.advance(8, Instant.EPOCH);
+        assertEquals("W/\"8\"", catalogVersion.current().eTag());
+    }
+
+    @Test
+    public void testOnProductChanged_RunsAfterTheInvalidatingListeners() throws Exception {
+        int catalogVersion = listenerOrder(CatalogVersion.class);
+        for (Class<?> listener : List.of(ActiveProductCache.class, ProductNameIndex.class, ProductFacets.class,
+                ProductPriceIndex.class, ReplicaLagMonitor.class)) {
+            assertTrue(listenerOrder(listener) < catalogVersion, listener.getSimpleName() + " runs first");
+        }
+    }
+
+    /** the order the transaction synchronization of the listener method is sorted by */
+    private static int listenerOrder(Class<?> listener) throws NoSuchMethodException {
+        Method method = listener.getMethod("onProductChanged", ProductChangedEvent.class);
+        return new TransactionalApplicationListenerMethodAdapter(listener.getSimpleName(), listener, method).getOrder();
+    }
+}
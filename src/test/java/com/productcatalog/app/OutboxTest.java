@@ -0,0 +1,237 @@
+package com.productcatalog.app;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.hibernate.Cache;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.productcatalog.app.cache.CatalogVersion;
+import com.productcatalog.app.event.ProductChangedEvent;
+import com.productcatalog.app.event.ProductState;
+import com.productcatalog.app.model.JobLock;
+import com.productcatalog.app.model.Product;
+import com.productcatalog.app.model.ProductChange;
+import com.productcatalog.app.model.ProductChange.ChangeType;
+import com.productcatalog.app.model.Status;
+import com.productcatalog.app.outbox.ChangeEvent;
+import com.productcatalog.app.outbox.ChangeReplay;
+import com.productcatalog.app.outbox.ChangeSink;
+import com.productcatalog.app.outbox.ChangeStream;
+import com.productcatalog.app.outbox.FileChangeSink;
+import com.productcatalog.app.outbox.OutboxRelay;
+import com.productcatalog.app.outbox.OutboxWriter;
+import com.productcatalog.app.repository.JobLockRepository;
+import com.productcatalog.app.repository.ProductChangeRepository;
+import com.productcatalog.app.repository.ProductRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+public class OutboxTest {
+
+    private static final LocalDateTime POSTED = LocalDateTime.parse("2023-08-01T10:00:00");
+
+    @Test
+    public void testToChange_TypeFollowsBeforeAndAfter() {
+        ProductState active = ProductState.of(new Product("Lamp", 100.0, Status.ACTIVE, POSTED));
+        ProductState inactive = ProductState.of(new Product("Lamp", 100.0, Status.INACTIVE, POSTED));
+
+        ProductChange created = OutboxWriter.toChange(new ProductChangedEvent(1L, null, active));
+        assertEquals(ChangeType.CREATED, created.getType());
+        assertEquals("Lamp", created.getName());
+        assertEquals(POSTED, created.getPostedDate());
+        assertEquals(ChangeType.UPDATED, OutboxWriter.toChange(new ProductChangedEvent(1L, active, active)).getType());
+        assertEquals(ChangeType.DELETED, OutboxWriter.toChange(new ProductChangedEvent(1L, active, inactive)).getType());
+    }
+
+    @Test
+    public void testOnProductChanged_ReplayedEventsAlreadyHaveTheirRow() {
+        ProductChangeRepository repository = mock(ProductChangeRepository.class);
+        ProductState active = ProductState.of(new Product("Lamp", 100.0, Status.ACTIVE, POSTED));
+
+        new OutboxWriter(repository).onProductChanged(ProductChangedEvent.replayed(1L, active));
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    public void testRelayBatch_NumbersAfterTheLastPositionAndPublishesToEverySink() {
+        ProductChangeRepository repository = mock(ProductChangeRepository.class);
+        JobLockRepository jobLockRepository = lockHeld(true);
+        ChangeSink first = mock(ChangeSink.class);
+        ChangeSink second = mock(ChangeSink.class);
+        OutboxRelay relay = new OutboxRelay(repository, jobLockRepository, List.of(first, second),
+                mock(PlatformTransactionManager.class), 10, 24);
+        ProductChange change = change(7L, 3L);
+        ProductChange next = change(5L, 4L);
+        when(repository.findUnrelayed(any(Pageable.class))).thenReturn(List.of(next, change));
+        when(repository.findLastPosition()).thenReturn(41L);
+
+        assertEquals(2, relay.relayBatch());
+        assertEquals(42L, next.getPosition());
+        assertEquals(43L, change.getPosition());
+        verify(first).publish(List.of(ChangeEvent.of(next), ChangeEvent.of(change)));
+        verify(second).publish(List.of(ChangeEvent.of(next), ChangeEvent.of(change)));
+    }
+
+    @Test
+    public void testRelayBatch_SkipsWhileAnotherInstanceRelays() {
+        ProductChangeRepository repository = mock(ProductChangeRepository.class);
+        ChangeSink sink = mock(ChangeSink.class);
+        OutboxRelay relay = new OutboxRelay(repository, lockHeld(false), List.of(sink),
+                mock(PlatformTransactionManager.class), 10, 24);
+
+        assertEquals(0, relay.relayBatch());
+        verify(repository, never()).findUnrelayed(any());
+        verify(sink, never()).publish(any());
+    }
+
+    @Test
+    public void testRelayBatch_FailingSinkRollsBack() {
+        ProductChangeRepository repository = mock(ProductChangeRepository.class);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        ChangeSink failing = mock(ChangeSink.class);
+        OutboxRelay relay = new OutboxRelay(repository, lockHeld(true), List.of(failing), transactionManager, 10, 24);
+        when(repository.findUnrelayed(any(Pageable.class))).thenReturn(List.of(change(7L, 3L)));
+        doThrow(new IllegalStateException("sink down")).when(failing).publish(any());
+
+        relay.relay();
+        verify(transactionManager).rollback(any());
+        verify(transactionManager, never()).commit(any());
+    }
+
+    @Test
+    public void testChangesAfter_FromMemoryThenFromTheOutbox() {
+        ProductChangeRepository repository = mock(ProductChangeRepository.class);
+        CatalogVersion catalogVersion = new CatalogVersion();
+        ChangeStream stream = new ChangeStream(repository, mock(ChangeReplay.class), catalogVersion, 2, 1000, 1, 500);
+        List<ProductChange> relayed = List.of(relayed(1L, 10L, 1L), relayed(2L, 11L, 2L), relayed(3L, 12L, 3L));
+        when(repository.findRelayedAfter(eq(0L), any(Pageable.class))).thenReturn(relayed.subList(0, 2));
+        when(repository.findRelayedAfter(eq(2L), any(Pageable.class))).thenReturn(relayed.subList(2, 3));
+
+        assertEquals(3, stream.poll());
+        assertEquals(3L, stream.position());
+        assertEquals("W/\"3\"", catalogVersion.current().eTag());
+        // the last two are kept in memory
+        assertEquals(List.of(3L), positions(stream.changesAfter(2L).get()));
+        assertEquals(List.of(), stream.changesAfter(3L).get());
+        verify(repository, times(1)).findRelayedAfter(eq(2L), any(Pageable.class));
+        // the first is read back from the outbox
+        assertEquals(List.of(1L, 2L), positions(stream.changesAfter(0L).get()));
+    }
+
+    @Test
+    public void testPoll_ReadsAgainWhenTheReplayFails() {
+        ProductChangeRepository repository = mock(ProductChangeRepository.class);
+        ChangeReplay changeReplay = mock(ChangeReplay.class);
+        ChangeStream stream = new ChangeStream(repository, changeReplay, new CatalogVersion(), 2, 1000, 1, 500);
+        when(repository.findRelayedAfter(eq(0L), any(Pageable.class))).thenReturn(List.of(relayed(1L, 10L, 1L)));
+        doThrow(new IllegalStateException("database down")).doNothing().when(changeReplay).replay(any());
+
+        assertThrows(IllegalStateException.class, stream::poll);
+        assertEquals(0L, stream.position());
+        assertEquals(1, stream.poll());
+        assertEquals(1L, stream.position());
+    }
+
+    @Test
+    public void testReplay_PublishesTheCurrentStateOfEachProductOnce() {
+        ProductRepository productRepository = mock(ProductRepository.class);
+        ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+        EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+        jakarta.persistence.Cache jpaCache = mock(jakarta.persistence.Cache.class);
+        Cache cache = mock(Cache.class);
+        when(entityManagerFactory.getCache()).thenReturn(jpaCache);
+        when(jpaCache.unwrap(Cache.class)).thenReturn(cache);
+        Product renamed = new Product("Desk lamp", 120.0, Status.ACTIVE, POSTED);
+        renamed.setId(10L);
+        when(productRepository.findAllById(List.of(10L, 11L))).thenReturn(List.of(renamed));
+
+        new ChangeReplay(productRepository, eventPublisher, entityManagerFactory).replay(
+                List.of(ChangeEvent.of(relayed(1L, 10L, 1L)), ChangeEvent.of(relayed(2L, 11L, 2L)),
+                        ChangeEvent.of(relayed(3L, 10L, 3L))));
+
+        InOrder order = inOrder(cache, productRepository);
+        order.verify(cache).evictEntityData(Product.class, 10L);
+        order.verify(cache).evictQueryRegions();
+        order.verify(productRepository).findAllById(List.of(10L, 11L));
+        ArgumentCaptor<ProductChangedEvent> events = ArgumentCaptor.forClass(ProductChangedEvent.class);
+        verify(eventPublisher, times(2)).publishEvent(events.capture());
+        assertEquals(ProductChangedEvent.replayed(10L, ProductState.of(renamed)), events.getAllValues().get(0));
+        assertEquals(11L, events.getAllValues().get(1).getProductId());
+        // no longer in the catalog
+        assertNull(events.getAllValues().get(1).getAfter());
+    }
+
+    @Test
+    public void testChangesAfter_EmptyWhenTheOutboxNoLongerHasThem() {
+        ProductChangeRepository repository = mock(ProductChangeRepository.class);
+        ChangeStream stream = new ChangeStream(repository, mock(ChangeReplay.class), new CatalogVersion(), 2, 1000, 1, 500);
+        when(repository.findRelayedAfter(eq(3L), any(Pageable.class))).thenReturn(List.of(relayed(9L, 10L, 7L)));
+
+        assertTrue(stream.changesAfter(3L).isEmpty());
+    }
+
+    @Test
+    public void testFileChangeSink_AppendsOneLinePerChange(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("changes.ndjson");
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        FileChangeSink sink = new FileChangeSink(file, objectMapper);
+
+        sink.publish(List.of(ChangeEvent.of(change(1L, 10L))));
+        sink.publish(List.of(ChangeEvent.of(change(2L, 11L))));
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(2, lines.size());
+        assertEquals(11L, objectMapper.readValue(lines.get(1), ChangeEvent.class).productId());
+    }
+
+    private static ProductChange relayed(Long id, Long productId, Long position) {
+        ProductChange change = change(id, productId);
+        change.setPosition(position);
+        return change;
+    }
+
+    private static List<Long> positions(List<ChangeEvent> changes) {
+        return changes.stream().map(ChangeEvent::position).toList();
+    }
+
+    private static JobLockRepository lockHeld(boolean held) {
+        JobLockRepository jobLockRepository = mock(JobLockRepository.class);
+        when(jobLockRepository.claim(JobLock.OUTBOX_RELAY))
+                .thenReturn(held ? Optional.of(new JobLock(JobLock.OUTBOX_RELAY, null)) : Optional.empty());
+        return jobLockRepository;
+    }
+
+    private static ProductChange change(Long id, Long productId) {
+        ProductChange change = OutboxWriter.toChange(new ProductChangedEvent(productId, null,
+                ProductState.of(new Product("Lamp", 100.0, Status.ACTIVE, POSTED))));
+        change.setId(id);
+        return change;
+    }
+}
@@ -0,0 +1,85 @@
+package com.productcatalog.app;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.productcatalog.app.event.ProductChangedEvent;
+import com.productcatalog.app.event.ProductState;
+import com.productcatalog.app.model.Product;
+import com.productcatalog.app.model.ProductSearchCriteria;
+import com.productcatalog.app.model.Status;
+import com.productcatalog.app.repository.ProductRepository;
+import com.productcatalog.app.response.FacetResponse;
+import com.productcatalog.app.response.FacetResponse.DayCount;
+import com.productcatalog.app.search.ProductFacets;
+
+public class ProductFacetsTest {
+
+    private static final LocalDateTime DAY_ONE = LocalDateTime.parse("2023-08-01T10:00:00");
+
+    private static final LocalDateTime DAY_TWO = LocalDateTime.parse("2023-08-02T18:00:00");
+
+    private ProductFacets facets;
+
+    @BeforeEach
+    public void setUp() {
+        facets = new ProductFacets(mock(ProductRepository.class), mock(PlatformTransactionManager.class));
+        facets.put(1L, "Lamp", 100.0, DAY_ONE);
+        facets.put(2L, "Lamp", 450.0, DAY_ONE);
+        facets.put(3L, "Chair", 600.0, DAY_TWO);
+        facets.put(4L, "Table", 10000.0, DAY_TWO);
+    }
+
+    @Test
+    public void testFacets_WithoutFilters() {
+        FacetResponse response = facets.facets(new ProductSearchCriteria());
+
+        assertEquals(4, response.getTotal());
+        assertEquals(20, response.getPrices().size());
+        assertEquals(2, response.getPrices().get(0).getCount());
+        assertEquals(1, response.getPrices().get(1).getCount());
+        assertEquals(1, response.getPrices().get(19).getCount());
+        assertEquals(List.of(new DayCount(LocalDate.of(2023, 8, 1), 2), new DayCount(LocalDate.of(2023, 8, 2), 2)),
+                response.getPostedDates());
+    }
+
+    @Test
+    public void testFacets_RangesCutThroughBucketsAndDays() {
+        FacetResponse byPrice = facets.facets(new ProductSearchCriteria(null, 400.0, 600.0, null, null));
+        assertEquals(2, byPrice.getTotal());
+        assertEquals(1, byPrice.getPrices().get(0).getCount());
+        assertEquals(1, byPrice.getPrices().get(1).getCount());
+
+        FacetResponse byDate = facets.facets(new ProductSearchCriteria(null, null, null,
+                LocalDateTime.parse("2023-08-01T12:00:00"), LocalDateTime.parse("2023-08-02T20:00:00")));
+        assertEquals(2, byDate.getTotal());
+        assertEquals(List.of(new DayCount(LocalDate.of(2023, 8, 2), 2)), byDate.getPostedDates());
+
+        FacetResponse byName = facets.facets(new ProductSearchCriteria("LAMP", null, 200.0, null, null));
+        assertEquals(1, byName.getTotal());
+    }
+
+    @Test
+    public void testOnProductChanged_MovesAndDropsCounts() {
+        Product repriced = new Product("Lamp", 700.0, Status.ACTIVE, DAY_TWO);
+        facets.onProductChanged(new ProductChangedEvent(1L, null, ProductState.of(repriced)));
+        Product inactive = new Product("Table", 10000.0, Status.INACTIVE, DAY_TWO);
+        facets.onProductChanged(new ProductChangedEvent(4L, null, ProductState.of(inactive)));
+
+        FacetResponse response = facets.facets(new ProductSearchCriteria());
+        assertEquals(3, response.getTotal());
+        assertEquals(1, response.getPrices().get(0).getCount());
+        assertEquals(2, response.getPrices().get(1).getCount());
+        assertEquals(0, response.getPrices().get(19).getCount());
+        assertEquals(List.of(new DayCount(LocalDate.of(2023, 8, 1), 1), new DayCount(LocalDate.of(2023, 8, 2), 2)),
+                response.getPostedDates());
+    }
+}
@@ -0,0 +1,69 @@
+package com.productcatalog.app;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.productcatalog.app.event.ProductChangedEvent;
+import com.productcatalog.app.event.ProductState;
+import com.productcatalog.app.model.Product;
+import com.productcatalog.app.model.Status;
+import com.productcatalog.app.repository.ProductRepository;
+import com.productcatalog.app.search.ProductNameIndex;
+
+public class ProductNameIndexTest {
+
+    private ProductNameIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        index = new ProductNameIndex(mock(ProductRepository.class), mock(PlatformTransactionManager.class));
+        index.put(1L, "Running Shoes");
+        index.put(2L, "Red Running Shoes");
+        index.put(3L, "Shoelaces");
+        index.put(4L, "Bluetooth Speaker");
+        index.put(5L, "Café Crème Mug");
+    }
+
+    @Test
+    public void testSearch_MatchesTokenPrefixes() {
+        assertEquals(List.of(3L, 1L, 2L), index.search("shoe", 10));
+        assertEquals(List.of(1L, 2L), index.search("shoes", 10));
+    }
+
+    @Test
+    public void testSearch_AllTermsMustMatchAndLeadingMatchWins() {
+        assertEquals(List.of(2L), index.search("red sho", 10));
+        assertEquals(List.of(1L, 2L), index.search("running shoes", 10));
+        assertEquals(List.of(1L), index.search("running shoes", 1));
+    }
+
+    @Test
+    public void testSearch_ToleratesTyposAccentsAndCase() {
+        assertEquals(List.of(4L), index.search("blutooth", 10));
+        assertEquals(List.of(4L), index.search("BLEUTOOTH spekaer", 10));
+        assertEquals(List.of(5L), index.search("cafe creme", 10));
+        assertTrue(index.search("xyz", 10).isEmpty());
+        assertTrue(index.search(" - ", 10).isEmpty());
+    }
+
+    @Test
+    public void testOnProductChanged_KeepsIndexCurrent() {
+        Product renamed = new Product("Trail Boots", 100.0, Status.ACTIVE, LocalDateTime.now());
+        index.onProductChanged(new ProductChangedEvent(1L, null, ProductState.of(renamed)));
+        assertEquals(List.of(2L), index.search("running", 10));
+        assertEquals(List.of(1L), index.search("boots", 10));
+
+        Product inactive = new Product("Red Running Shoes", 100.0, Status.INACTIVE, LocalDateTime.now());
+        index.onProductChanged(new ProductChangedEvent(2L, null, ProductState.of(inactive)));
+        assertTrue(index.search("running", 10).isEmpty());
+        assertEquals(4, index.size());
+    }
+}
@@ -0,0 +1,166 @@
+package com.productcatalog.app;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.productcatalog.app.event.ProductChangedEvent;
+import com.productcatalog.app.event.ProductState;
+import com.productcatalog.app.model.Product;
+import com.productcatalog.app.model.Status;
+import com.productcatalog.app.repository.ProductRepository;
+import com.productcatalog.app.repository.ProductRepository.ProductPrice;
+import com.productcatalog.app.search.ProductPriceIndex;
+
+public class ProductPriceIndexTest {
+
+    private ProductPriceIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        index = new ProductPriceIndex(mock(ProductRepository.class), mock(PlatformTransactionManager.class));
+        index.put(1L, 100.0);
+        index.put(2L, 450.0);
+        index.put(3L, 600.0);
+        index.put(4L, 450.0);
+    }
+
+    @Test
+    public void testIdsInRange_BoundsAreInclusive() {
+        assertArrayEquals(new long[] { 2L, 4L, 3L }, index.idsInRange(450.0, 600.0));
+        assertArrayEquals(new long[] { 1L, 2L, 4L }, index.idsInRange(null, 450.0));
+        assertArrayEquals(new long[] { 3L }, index.idsInRange(500.0, null));
+        assertArrayEquals(new long[0], index.idsInRange(700.0, 800.0));
+    }
+
+    @Test
+    public void testLoad_SortsTheLoadedPrices() {
+        ProductRepository repository = mock(ProductRepository.class);
+        when(repository.streamPricesByStatus(Status.ACTIVE))
+                .thenReturn(Stream.of(price(3L, 30.0), price(5L, 10.0), price(8L, 20.0), price(9L, 10.0)));
+        ProductPriceIndex loaded = new ProductPriceIndex(repository, mock(PlatformTransactionManager.class));
+
+        loaded.load();
+        loaded.put(4L, 15.0);
+
+        assertArrayEquals(new long[] { 5L, 9L, 8L, 4L }, loaded.idsInRange(10.0, 20.0));
+        assertEquals(5, loaded.size());
+    }
+
+    @Test
+    public void testLoadLater_HoldsChangesBackUntilLoaded() {
+        ProductRepository repository = mock(ProductRepository.class);
+        when(repository.streamPricesByStatus(Status.ACTIVE))
+                .thenReturn(Stream.of(price(3L, 30.0), price(5L, 10.0), price(8L, 20.0)));
+        ProductPriceIndex loaded = new ProductPriceIndex(repository, mock(PlatformTransactionManager.class));
+
+        loaded.loadLater();
+        loaded.onProductChanged(new ProductChangedEvent(5L, null, state(25.0, Status.ACTIVE)));
+        loaded.onProductChanged(new ProductChangedEvent(8L, null, state(20.0, Status.INACTIVE)));
+        assertTrue(loaded.isLoading());
+        assertEquals(0, loaded.size());
+
+        loaded.load();
+
+        assertFalse(loaded.isLoading());
+        assertArrayEquals(new long[] { 5L, 3L }, loaded.idsInRange(null, 100.0));
+    }
+
+    @Test
+    public void testOnProductChanged_RepricesAndRemoves() {
+        index.onProductChanged(new ProductChangedEvent(2L, null, state(50.0, Status.ACTIVE)));
+        index.onProductChanged(new ProductChangedEvent(3L, null, state(600.0, Status.INACTIVE)));
+        index.onProductChanged(new ProductChangedEvent(5L, null, state(null, Status.ACTIVE)));
+
+        assertArrayEquals(new long[] { 2L, 1L }, index.idsInRange(null, 100.0));
+        assertArrayEquals(new long[] { 4L }, index.idsInRange(200.0, null));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    public void testIdsInRange_MatchesASortedMapThroughMerges() {
+        Random random = new Random(7);
+        TreeMap<Long, Double> expected = new TreeMap<>();
+        expected.put(1L, 100.0);
+        expected.put(2L, 450.0);
+        expected.put(3L, 600.0);
+        expected.put(4L, 450.0);
+        for (int i = 0; i < 50_000; i++) {
+            long id = random.nextInt(10_000);
+            if (random.nextInt(4) == 0) {
+                index.remove(id);
+                expected.remove(id);
+            } else {
+                double price = random.nextInt(1_000);
+                index.put(id, price);
+                expected.put(id, price);
+            }
+        }
+
+        assertEquals(expected.size(), index.size());
+        for (int from = 0; from < 1_000; from += 97) {
+            double min = from;
+            double max = from + 150;
+            long[] ids = index.idsInRange(min, max);
+            Arrays.sort(ids);
+            long[] matching = expected.entrySet().stream()
+                    .filter(entry -> entry.getValue() >= min && entry.getValue() <= max)
+                    .mapToLong(Map.Entry::getKey).toArray();
+            assertArrayEquals(matching, ids);
+        }
+    }
+
+    @Test
+    public void testIdsInRange_RepricesCorrectlyAfterTheCatalogShrinks() {
+        ProductPriceIndex shrinking = new ProductPriceIndex(mock(ProductRepository.class),
+                mock(PlatformTransactionManager.class));
+        for (long id = 1; id <= 5_000; id++) {
+            shrinking.put(id, (double) id);
+        }
+        for (long id = 1; id <= 2_500; id++) {
+            shrinking.remove(id);
+        }
+        for (long id = 2_501; id <= 5_000; id++) {
+            shrinking.put(id, id + 1_000.0);
+        }
+
+        assertEquals(2_500, shrinking.size());
+        long[] ids = shrinking.idsInRange(4_000.0, 4_100.0);
+        Arrays.sort(ids);
+        assertArrayEquals(LongStream.rangeClosed(3_000, 3_100).toArray(), ids);
+        assertArrayEquals(new long[] { 4_037L }, shrinking.idsInRange(5_037.0, 5_037.0));
+    }
+
+    private static ProductPrice price(Long id, Double price) {
+        return new ProductPrice() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public Double getPrice() {
+                return price;
+            }
+        };
+    }
+
+    private static ProductState state(Double price, Status status) {
+        return ProductState.of(new Product("Lamp", price, status, LocalDateTime.parse("2023-08-01T10:00:00")));
+    }
+}
@@ -3,36 +3,74 @@ package com.productcatalog.app;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.productcatalog.app.cache.ActiveProductCache;
+import com.productcatalog.app.datasource.ReplicaLagMonitor;
+import com.productcatalog.app.event.ProductChangedEvent;
+import com.productcatalog.app.exception.ConcurrentUpdateException;
+import com.productcatalog.app.exception.PreconditionFailedException;
+import com.productcatalog.app.exception.ProductCatalogException;
 import com.productcatalog.app.exception.ResourceNotFoundException;
+import com.productcatalog.app.metrics.ProductCatalogMetrics;
 import com.productcatalog.app.model.ApprovalQueue;
+import com.productcatalog.app.model.ApprovalQueueCriteria;
 import com.productcatalog.app.model.Product;
+import com.productcatalog.app.model.ProductSearchCriteria;
 import com.productcatalog.app.model.Status;
 import com.productcatalog.app.repository.ApprovalQueueRepository;
 import com.productcatalog.app.repository.ProductRepository;
+import com.productcatalog.app.response.BatchOutcome;
+import com.productcatalog.app.response.BatchReport;
+import com.productcatalog.app.response.CursorPage;
+import com.productcatalog.app.response.FacetResponse;
+import com.productcatalog.app.response.PageToken;
+import com.productcatalog.app.response.ProductView;
+import com.productcatalog.app.response.StatusMessage;
+import com.productcatalog.app.search.ProductFacets;
+import com.productcatalog.app.search.ProductNameIndex;
+import com.productcatalog.app.search.ProductPriceIndex;
 import com.productcatalog.app.service.impl.ProductServiceImpl;
 
 public class ProductServiceTest {
@@ -43,6 +81,30 @@ public class ProductServiceTest {
     @Mock
     private ApprovalQueueRepository approvalQueueRepository;
 
+    @Mock
+    private ActiveProductCache activeProductCache;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private ProductCatalogMetrics metrics;
+
+    @Mock
+    private ProductNameIndex productNameIndex;
+
+    @Mock
+    private ProductFacets productFacets;
+
+    @Mock
+    private ProductPriceIndex productPriceIndex;
+
+    @Mock
+    private ReplicaLagMonitor replicaLagMonitor;
+
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
     @InjectMocks
     private ProductServiceImpl productService;
 
@@ -63,15 +125,14 @@ public class ProductServiceTest {
         when(productRepository.findById(productId)).thenReturn(Optional.of(existingProduct));
         
         // Call the method to be tested
-        ResponseEntity<Object> responseEntity = productService.updateProductWithApprovalCheck(productId, updatedProduct);
+        ResponseEntity<StatusMessage> responseEntity = productService.updateProductWithApprovalCheck(productId, updatedProduct);
 
         // Verify that the approval queue and product repositories are called appropriately
         verify(approvalQueueRepository, times(1)).save(any(ApprovalQueue.class));
         verify(productRepository, times(1)).save(existingProduct);
 
         // Verify the response message and status code
-        Map<String, Object> responseMap = (Map<String, Object>) responseEntity.getBody();
-        String actualMessage = (String) responseMap.get("message");
+        String actualMessage = responseEntity.getBody().getMessage();
         
         
         assertEquals("Product Sent for Approval as price is higher than 50% of previous value", actualMessage);
@@ -90,14 +151,13 @@ public class ProductServiceTest {
         when(productRepository.findById(productId)).thenReturn(Optional.of(existingProduct));
         
         // Call the method to be tested
-        ResponseEntity<Object> responseEntity = productService.updateProductWithApprovalCheck(productId, updatedProduct);
+        ResponseEntity<StatusMessage> responseEntity = productService.updateProductWithApprovalCheck(productId, updatedProduct);
 
         // Verify that the product repository is called appropriately
         verify(productRepository, times(1)).save(existingProduct);
 
         // Verify the response message and status code
-        Map<String, Object> responseMap = (Map<String, Object>) responseEntity.getBody();
-        String actualMessage = (String) responseMap.get("message");
+        String actualMessage = responseEntity.getBody().getMessage();
         
         assertEquals("Product Updated Successfully", actualMessage);
         assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
@@ -149,18 +209,18 @@ public class ProductServiceTest {
         LocalDateTime maxPostedDate = LocalDateTime.parse("2023-07-01T00:00:00");
 
         // Mock the repository method call
-        List<Product> mockProducts = new ArrayList<>();
+        List<ProductView> mockProducts = new ArrayList<>();
         // Add some products to the list (you can add more for different scenarios)
-        mockProducts.add(new Product("Product A", 200.0,Status.ACTIVE, LocalDateTime.parse("2023-02-01T12:00:00")));
-        mockProducts.add(new Product("Product B", 300.0, Status.ACTIVE, LocalDateTime.parse("2023-03-15T10:30:00")));
-        Mockito.when(productRepository.findByNameEqualsIgnoreCaseOrPriceBetweenOrPostedDateBetweenAndStatus(
-               productName, minPrice, maxPrice, minPostedDate, maxPostedDate ,Status.ACTIVE)).thenReturn(mockProducts);
+        mockProducts.add(ProductView.of(new Product("Product A", 200.0,Status.ACTIVE, LocalDateTime.parse("2023-02-01T12:00:00"))));
+        mockProducts.add(ProductView.of(new Product("Product B", 300.0, Status.ACTIVE, LocalDateTime.parse("2023-03-15T10:30:00"))));
+        Mockito.when(productRepository.findViews(ArgumentMatchers.<Specification<Product>>any(), any(), any(Sort.class),
+                anyInt())).thenReturn(mockProducts);
 
         // Perform the service method call
-        ResponseEntity<List<Product>> result;
+        ResponseEntity<List<ProductView>> result;
         try {
             result = productService.searchProductsBasedOnSearchCriteria(productName, minPrice, maxPrice,
-                    minPostedDate, maxPostedDate);
+                    minPostedDate, maxPostedDate, null);
         } catch (Exception e) {
             fail("Unexpected exception occurred: " + e.getMessage());
             return; // Exit early as the test has failed
@@ -168,10 +228,76 @@ public class ProductServiceTest {
 
         // Assertions
         assertNotNull(result);
-        assertEquals(2, ((Map<String, Object>) result).size()); // Ensure the correct number of products is returned
+        assertEquals(2, result.getBody().size()); // Ensure the correct number of products is returned
         // Add more specific assertions based on your use case and test data
     }
 
+    @Test
+    public void testSearchProductsBasedOnSearchCriteria_PriceOnlyUsesPriceIndex() throws Exception {
+        Product older = new Product("Lamp", 150.0, Status.ACTIVE, LocalDateTime.parse("2023-02-01T12:00:00"));
+        older.setId(1L);
+        Product newer = new Product("Desk", 120.0, Status.ACTIVE, LocalDateTime.parse("2023-03-15T10:30:00"));
+        newer.setId(2L);
+        when(activeProductCache.capacity()).thenReturn(10000L);
+        when(productPriceIndex.idsInRange(100.0, 200.0)).thenReturn(new long[] { 2L, 1L });
+        when(activeProductCache.getProducts(eq(List.of(2L, 1L)), any())).thenReturn(List.of(older, newer));
+
+        ResponseEntity<List<ProductView>> result = productService.searchProductsBasedOnSearchCriteria(null, 100.0,
+                200.0, null, null, null);
+
+        assertEquals(List.of(ProductView.of(newer), ProductView.of(older)), result.getBody());
+        verifyNoInteractions(productRepository);
+
+        when(productPriceIndex.idsInRange(300.0, 400.0)).thenReturn(new long[0]);
+        assertEquals(HttpStatus.NO_CONTENT,
+                productService.searchProductsBasedOnSearchCriteria(null, 300.0, 400.0, null, null, null).getStatusCode());
+    }
+
+    @Test
+    public void testSearchProductsBasedOnSearchCriteria_PriceOnlySelectsFields() throws Exception {
+        Product lamp = new Product("Lamp", 150.0, Status.ACTIVE, LocalDateTime.parse("2023-03-01T10:30:00"));
+        lamp.setId(1L);
+        when(activeProductCache.capacity()).thenReturn(10000L);
+        when(productPriceIndex.idsInRange(100.0, 200.0)).thenReturn(new long[] { 1L });
+        when(activeProductCache.getProducts(eq(List.of(1L)), any())).thenReturn(List.of(lamp));
+
+        ResponseEntity<List<ProductView>> result = productService.searchProductsBasedOnSearchCriteria(null, 100.0,
+                200.0, null, null, "name,price");
+
+        assertEquals(List.of(new ProductView(null, "Lamp", 150.0, null, null, null)), result.getBody());
+    }
+
+    @Test
+    public void testSearchProductsBasedOnSearchCriteria_PriceOnlyDropsProductsRepricedOutOfRange() throws Exception {
+        Product lamp = new Product("Lamp", 150.0, Status.ACTIVE, LocalDateTime.parse("2023-03-01T10:30:00"));
+        lamp.setId(1L);
+        Product repriced = new Product("Desk", 250.0, Status.ACTIVE, LocalDateTime.parse("2023-03-02T10:30:00"));
+        repriced.setId(2L);
+        when(activeProductCache.capacity()).thenReturn(10000L);
+        when(productPriceIndex.idsInRange(100.0, 200.0)).thenReturn(new long[] { 1L, 2L });
+        when(activeProductCache.getProducts(eq(List.of(1L, 2L)), any())).thenReturn(List.of(lamp, repriced));
+
+        ResponseEntity<List<ProductView>> result = productService.searchProductsBasedOnSearchCriteria(null, 100.0,
+                200.0, null, null, null);
+
+        assertEquals(List.of(ProductView.of(lamp)), result.getBody());
+    }
+
+    @Test
+    public void testSearchProductsBasedOnSearchCriteria_WidePriceRangeBypassesTheCache() throws Exception {
+        ProductView row = new ProductView(1L, "Lamp", 150.0, Status.ACTIVE, null, null);
+        when(activeProductCache.capacity()).thenReturn(10L);
+        when(productPriceIndex.idsInRange(100.0, 200.0)).thenReturn(new long[] { 1L, 2L });
+        when(productRepository.findViews(ArgumentMatchers.<Specification<Product>>any(), eq(null), any(Sort.class), eq(0)))
+                .thenReturn(List.of(row));
+
+        ResponseEntity<List<ProductView>> result = productService.searchProductsBasedOnSearchCriteria(null, 100.0,
+                200.0, null, null, null);
+
+        assertEquals(List.of(row), result.getBody());
+        verify(activeProductCache, never()).getProducts(any(), any());
+    }
+
     @Test
     public void testSearchProductsBasedOnSearchCriteria_InvalidMinMaxPrice() {
         // Test data with invalid minPrice and maxPrice
@@ -184,7 +310,7 @@ public class ProductServiceTest {
         // Perform the service method call and expect an IllegalArgumentException
         assertThrows(IllegalArgumentException.class, () -> {
             productService.searchProductsBasedOnSearchCriteria(productName, minPrice, maxPrice,
-                    minPostedDate, maxPostedDate);
+                    minPostedDate, maxPostedDate, null);
         });
     }
 
@@ -200,7 +326,7 @@ public class ProductServiceTest {
         // Perform the service method call and expect an IllegalArgumentException
         assertThrows(IllegalArgumentException.class, () -> {
             productService.searchProductsBasedOnSearchCriteria(productName, minPrice, maxPrice,
-                    minPostedDate, maxPostedDate);
+                    minPostedDate, maxPostedDate, null);
         });
     }
     
@@ -213,14 +339,13 @@ public class ProductServiceTest {
         Product product = new Product("Test Product", 3000.0, Status.ACTIVE, LocalDateTime.now());
 
         // Call the method to be tested
-        ResponseEntity<Object> responseEntity = productService.createProductwithApprovalCheck(product);
+        ResponseEntity<StatusMessage> responseEntity = productService.createProductwithApprovalCheck(product);
 
         // Verify that the product repository is called
         verify(productRepository, times(1)).save(product);
 
         // Verify the response message and status code
-        Map<String, Object> responseMap = (Map<String, Object>) responseEntity.getBody();
-        String actualMessage = (String) responseMap.get("message");
+        String actualMessage = responseEntity.getBody().getMessage();
         
         assertEquals("Product Created Successfully", actualMessage);
         assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
@@ -232,17 +357,19 @@ public class ProductServiceTest {
         Product product = new Product("Test Product", 6000.0, Status.ACTIVE, LocalDateTime.now());
 
         // Call the method to be tested
-        ResponseEntity<Object> responseEntity = productService.createProductwithApprovalCheck(product);
+        ResponseEntity<StatusMessage> responseEntity = productService.createProductwithApprovalCheck(product);
 
         // Verify that the approval queue repository is called
         verify(approvalQueueRepository, times(1)).save(any(ApprovalQueue.class));
 
         // Verify the response message and status code
-        Map<String, Object> responseMap = (Map<String, Object>) responseEntity.getBody();
-        String actualMessage = (String) responseMap.get("message");
+        String actualMessage = responseEntity.getBody().getMessage();
         
         assertEquals("Product Added To Approval Queue as price is more than 5000", actualMessage);
         assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+
+        // nothing reached the catalog yet, so nothing to invalidate
+        verify(eventPublisher, never()).publishEvent(any());
     }
 
     @Test
@@ -273,7 +400,7 @@ public class ProductServiceTest {
         Mockito.when(productRepository.findById(productId)).thenReturn(Optional.of(product));
 
         // Call the method to be tested
-        ResponseEntity<Object> responseEntity = productService.deleteProductWithApproval(productId);
+        ResponseEntity<StatusMessage> responseEntity = productService.deleteProductWithApproval(productId);
 
         // Verify that the product repository and approval queue repository are called
         verify(productRepository, times(1)).findById(productId);
@@ -281,12 +408,18 @@ public class ProductServiceTest {
         verify(productRepository, times(1)).save(product);
 
         // Verify the response message and status code
-        Map<String, Object> responseMap = (Map<String, Object>) responseEntity.getBody();
-        String actualMessage = (String) responseMap.get("message");
+        String actualMessage = responseEntity.getBody().getMessage();
         
         assertEquals("Product Deleted successfully", actualMessage);
         assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
         assertEquals(Status.INACTIVE, product.getStatus());
+
+        // the cached copy of the product must be dropped
+        ArgumentCaptor<ProductChangedEvent> event = ArgumentCaptor.forClass(ProductChangedEvent.class);
+        verify(eventPublisher, times(1)).publishEvent(event.capture());
+        assertEquals(productId, event.getValue().getProductId());
+        assertEquals(Status.ACTIVE, event.getValue().getBefore().getStatus());
+        assertEquals(Status.INACTIVE, event.getValue().getAfter().getStatus());
     }
 
     @Test
@@ -327,7 +460,7 @@ public class ProductServiceTest {
         Mockito.when(productRepository.findById(productId)).thenReturn(Optional.of(new Product()));
 
         // Call the method to be tested
-        ResponseEntity<Object> responseEntity = productService.approveProduct(approvalId);
+        ResponseEntity<StatusMessage> responseEntity = productService.approveProduct(approvalId);
 
         // Verify that the product repository and approval queue repository are called
         verify(approvalQueueRepository, times(1)).findById(approvalId);
@@ -336,8 +469,7 @@ public class ProductServiceTest {
         verify(approvalQueueRepository, times(1)).delete(approveQueueData);
 
         // Verify the response message and status code
-        Map<String, Object> responseMap = (Map<String, Object>) responseEntity.getBody();
-        String actualMessage = (String) responseMap.get("message");
+        String actualMessage = responseEntity.getBody().getMessage();
         
         assertEquals("Product approved successfully and product updated", actualMessage);
         assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
@@ -357,7 +489,7 @@ public class ProductServiceTest {
         Mockito.when(approvalQueueRepository.findById(approvalId)).thenReturn(Optional.of(approveQueueData));
 
         // Call the method to be tested
-        ResponseEntity<Object> responseEntity = productService.approveProduct(approvalId);
+        ResponseEntity<StatusMessage> responseEntity = productService.approveProduct(approvalId);
 
         // Verify that the product repository and approval queue repository are called
         verify(approvalQueueRepository, times(1)).findById(approvalId);
@@ -365,8 +497,7 @@ public class ProductServiceTest {
         verify(approvalQueueRepository, times(1)).delete(approveQueueData);
 
         // Verify the response message and status code
-        Map<String, Object> responseMap = (Map<String, Object>) responseEntity.getBody();
-        String actualMessage = (String) responseMap.get("message");
+        String actualMessage = responseEntity.getBody().getMessage();
         
         assertEquals("Product approved successfully and product added", actualMessage);
         assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
@@ -429,7 +560,7 @@ public class ProductServiceTest {
         Mockito.when(approvalQueueRepository.findById(approvalId)).thenReturn(Optional.of(approveQueueData));
 
         // Call the method to be tested
-        ResponseEntity<Object> responseEntity = productService.rejectProduct(approvalId);
+        ResponseEntity<StatusMessage> responseEntity = productService.rejectProduct(approvalId);
 
         // Verify that the approval queue repository is called and the product state is unchanged
         verify(approvalQueueRepository, times(1)).findById(approvalId);
@@ -470,4 +601,462 @@ public class ProductServiceTest {
         verify(approvalQueueRepository, never()).delete(any(ApprovalQueue.class));
     }
     
+
+    // test cases for keyset paginated listing
+
+    @Test
+    public void testListActiveProducts_FirstPageHasNextPageToken() {
+        Product newest = new Product("Product A", 100.0, Status.ACTIVE, LocalDateTime.parse("2023-03-01T12:00:00"));
+        newest.setId(3L);
+        Product middle = new Product("Product B", 200.0, Status.ACTIVE, LocalDateTime.parse("2023-02-01T12:00:00"));
+        middle.setId(2L);
+        Product oldest = new Product("Product C", 300.0, Status.ACTIVE, LocalDateTime.parse("2023-01-01T12:00:00"));
+        oldest.setId(1L);
+
+        // limit + 1 rows are requested, the extra row only signals that another page exists
+        when(productRepository.findCachedViews(ArgumentMatchers.<Specification<Product>>any(), eq(null), any(Sort.class),
+                eq(3)))
+                .thenReturn(List.of(ProductView.of(newest), ProductView.of(middle), ProductView.of(oldest)));
+
+        CursorPage<ProductView> page = productService.listActiveProducts(2, null, null);
+
+        assertEquals(List.of(ProductView.of(newest), ProductView.of(middle)), page.getItems());
+        PageToken token = PageToken.decode(page.getNextPageToken());
+        assertEquals(middle.getPostedDate(), token.getTimestamp());
+        assertEquals(2L, token.getId());
+    }
+
+    @Test
+    public void testListActiveProducts_PageTokenSeeksPastLastRow() {
+        LocalDateTime lastPostedDate = LocalDateTime.parse("2023-02-01T12:00:00");
+        Product oldest = new Product("Product C", 300.0, Status.ACTIVE, LocalDateTime.parse("2023-01-01T12:00:00"));
+        oldest.setId(1L);
+
+        when(productRepository.findCachedViews(ArgumentMatchers.<Specification<Product>>any(), eq(null), any(Sort.class),
+                eq(3)))
+                .thenReturn(List.of(ProductView.of(oldest)));
+
+        CursorPage<ProductView> page = productService.listActiveProducts(2, PageToken.encode(lastPostedDate, 2L),
+                null);
+
+        assertEquals(List.of(ProductView.of(oldest)), page.getItems());
+        assertNull(page.getNextPageToken());
+    }
+
+    @Test
+    public void testListActiveProducts_FieldsSelectColumnsPlusPageTokenColumns() {
+        ProductView row = new ProductView(3L, "Product A", null, null, LocalDateTime.parse("2023-03-01T12:00:00"),
+                null);
+        when(productRepository.findCachedViews(ArgumentMatchers.<Specification<Product>>any(), any(), any(Sort.class), eq(2)))
+                .thenReturn(List.of(row));
+
+        CursorPage<ProductView> page = productService.listActiveProducts(1, null, "name");
+
+        assertEquals(List.of(row), page.getItems());
+        verify(productRepository).findCachedViews(ArgumentMatchers.<Specification<Product>>any(),
+                eq(Set.of("name", "postedDate", "id")), any(Sort.class), eq(2));
+        verifyNoInteractions(activeProductCache);
+    }
+
+    @Test
+    public void testListActiveProducts_PagesFromTheReplicaAreNotCached() {
+        ProductView row = new ProductView(3L, "Product A", null, null, LocalDateTime.parse("2023-03-01T12:00:00"),
+                null);
+        when(replicaLagMonitor.isReplicaUsable()).thenReturn(true);
+        when(productRepository.findViews(ArgumentMatchers.<Specification<Product>>any(), any(), any(Sort.class), eq(2)))
+                .thenReturn(List.of(row));
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        try {
+            assertEquals(List.of(row), productService.listActiveProducts(1, null, "name").getItems());
+        } finally {
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        }
+        verify(productRepository, never()).findCachedViews(any(), any(), any(), anyInt());
+
+        // the same page while the replica lags goes to the primary and the query cache
+        when(replicaLagMonitor.isReplicaUsable()).thenReturn(false);
+        when(productRepository.findCachedViews(ArgumentMatchers.<Specification<Product>>any(), any(), any(Sort.class), eq(2)))
+                .thenReturn(List.of(row));
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        try {
+            assertEquals(List.of(row), productService.listActiveProducts(1, null, "name").getItems());
+        } finally {
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        }
+    }
+
+    @Test
+    public void testListActiveProducts_InvalidPageToken() {
+        assertThrows(IllegalArgumentException.class, () -> productService.listActiveProducts(10, "not-a-token", null));
+        assertThrows(IllegalArgumentException.class, () -> productService.listActiveProducts(0, null, null));
+        assertThrows(IllegalArgumentException.class, () -> productService.listActiveProducts(10, null, "id,cost"));
+    }
+
+    @Test
+    public void testClientErrors_CarryNoStackTrace() {
+        when(productRepository.findById(1L)).thenReturn(Optional.empty());
+
+        IllegalArgumentException invalid = assertThrows(IllegalArgumentException.class,
+                () -> productService.listActiveProducts(0, null, null));
+        ResourceNotFoundException notFound = assertThrows(ResourceNotFoundException.class,
+                () -> productService.deleteProductWithApproval(1L));
+
+        assertEquals(0, invalid.getStackTrace().length);
+        assertEquals(0, notFound.getStackTrace().length);
+        assertEquals("No Product with ID 1 found!", notFound.getMessage());
+    }
+
+    @Test
+    public void testClientError_KeepsStatusAndCauseWithoutStackTrace() {
+        IllegalStateException cause = new IllegalStateException("unexpected token");
+
+        ProductCatalogException error = ProductCatalogException.clientError(400, "Bulk Create Product Failed", cause);
+
+        assertEquals(400, error.getStatus());
+        assertEquals(cause, error.getCause());
+        assertEquals(0, error.getStackTrace().length);
+        assertThrows(IllegalArgumentException.class, () -> ProductCatalogException.clientError(500, "failed", cause));
+    }
+
+    // bulk create test cases
+
+    @Test
+    public void testBulkCreateProducts_RoutesEachItem() {
+        List<Product> products = new ArrayList<>();
+        products.add(new Product("Cheap Product", 3000.0, Status.ACTIVE, null));
+        products.add(new Product("Expensive Product", 6000.0, Status.ACTIVE, LocalDateTime.now()));
+        products.add(new Product("Too Expensive Product", 12000.0, Status.ACTIVE, LocalDateTime.now()));
+        products.add(new Product(null, 100.0, Status.ACTIVE, LocalDateTime.now()));
+
+        when(productRepository.saveAll(any())).thenAnswer(invocation -> {
+            List<Product> saved = invocation.getArgument(0);
+            saved.forEach(product -> product.setId(10L));
+            return saved;
+        });
+        when(approvalQueueRepository.saveAll(any())).thenAnswer(invocation -> {
+            List<ApprovalQueue> saved = invocation.getArgument(0);
+            saved.forEach(approvalQueue -> approvalQueue.setId(20L));
+            return saved;
+        });
+
+        BatchReport report = productService.bulkCreateProducts(products.iterator());
+
+        assertEquals(4, report.getItems().size());
+        assertEquals(BatchOutcome.CREATED, report.getItems().get(0).getOutcome());
+        assertEquals(10L, report.getItems().get(0).getProductId());
+        assertNotNull(products.get(0).getPostedDate());
+        assertEquals(BatchOutcome.QUEUED_FOR_APPROVAL, report.getItems().get(1).getOutcome());
+        assertEquals(20L, report.getItems().get(1).getApprovalId());
+        assertEquals(BatchOutcome.REJECTED, report.getItems().get(2).getOutcome());
+        assertEquals("Product price exceeds 10,000. Hence not saved.", report.getItems().get(2).getMessage());
+        assertEquals(BatchOutcome.REJECTED, report.getItems().get(3).getOutcome());
+        assertEquals(2, report.getSummary().get(BatchOutcome.REJECTED));
+
+        // one transaction for the whole chunk and one event for the created product
+        verify(transactionTemplate, times(1)).executeWithoutResult(any());
+        verify(metrics).productsSaved(1);
+        verify(metrics).productsQueuedForApproval(1);
+        verify(metrics).productsRejected(2);
+        verify(eventPublisher, times(1)).publishEvent(any(ProductChangedEvent.class));
+    }
+
+    @Test
+    public void testBulkCreateProducts_StopsAtUnreadableItem() {
+        Product product = new Product("Cheap Product", 3000.0, Status.ACTIVE, LocalDateTime.now());
+        Iterator<Product> products = new Iterator<>() {
+            private boolean read;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Product next() {
+                if (read) {
+                    throw new IllegalStateException("Unexpected character");
+                }
+                read = true;
+                return product;
+            }
+        };
+        when(productRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        BatchReport report = productService.bulkCreateProducts(products);
+
+        assertEquals(2, report.getItems().size());
+        assertEquals(BatchOutcome.CREATED, report.getItems().get(0).getOutcome());
+        assertEquals(BatchOutcome.REJECTED, report.getItems().get(1).getOutcome());
+        assertEquals(1, report.getItems().get(1).getIndex());
+    }
+
+    // batch approve and reject test cases
+
+    @Test
+    public void testApproveProducts_LoadsWithInQueriesAndReportsEachId() {
+        ApprovalQueue update = new ApprovalQueue("Updated Product", 8000.0, Status.ACTIVE, LocalDateTime.now(), 5L);
+        update.setId(1L);
+        ApprovalQueue create = new ApprovalQueue("New Product", 7000.0, Status.ACTIVE, LocalDateTime.now(), null);
+        create.setId(2L);
+        Product existing = new Product("Existing Product", 5000.0, Status.ACTIVE, LocalDateTime.now());
+        existing.setId(5L);
+
+        when(approvalQueueRepository.findAllById(any())).thenReturn(List.of(update, create));
+        when(productRepository.findAllById(any())).thenReturn(List.of(existing));
+        when(productRepository.saveAll(any())).thenAnswer(invocation -> {
+            List<Product> saved = invocation.getArgument(0);
+            saved.stream().filter(product -> product.getId() == null).forEach(product -> product.setId(6L));
+            return saved;
+        });
+
+        BatchReport report = productService.approveProducts(List.of(1L, 2L, 3L));
+
+        assertEquals(BatchOutcome.APPROVED, report.getItems().get(0).getOutcome());
+        assertEquals(5L, report.getItems().get(0).getProductId());
+        assertEquals("Updated Product", existing.getName());
+        assertEquals(BatchOutcome.APPROVED, report.getItems().get(1).getOutcome());
+        assertEquals(6L, report.getItems().get(1).getProductId());
+        assertEquals(BatchOutcome.NOT_FOUND, report.getItems().get(2).getOutcome());
+        assertEquals(3L, report.getItems().get(2).getApprovalId());
+
+        verify(approvalQueueRepository, times(1)).findAllById(any());
+        verify(productRepository, times(1)).findAllById(any());
+        verify(approvalQueueRepository, times(1)).deleteAll(List.of(update, create));
+        verify(productRepository, never()).findById(anyLong());
+        verify(eventPublisher, times(2)).publishEvent(any(ProductChangedEvent.class));
+    }
+
+    @Test
+    public void testRejectProducts_DeletesFoundRequestsOnly() {
+        ApprovalQueue request = new ApprovalQueue("Product", 8000.0, Status.ACTIVE, LocalDateTime.now(), 5L);
+        request.setId(1L);
+        when(approvalQueueRepository.findAllById(any())).thenReturn(List.of(request));
+
+        BatchReport report = productService.rejectProducts(List.of(1L, 1L, 9L));
+
+        assertEquals(BatchOutcome.REJECTED, report.getItems().get(0).getOutcome());
+        assertEquals(BatchOutcome.NOT_FOUND, report.getItems().get(1).getOutcome());
+        assertEquals(BatchOutcome.NOT_FOUND, report.getItems().get(2).getOutcome());
+        verify(approvalQueueRepository, times(1)).deleteAll(List.of(request));
+        verify(productRepository, never()).saveAll(any());
+    }
+
+    @Test
+    public void testApproveProducts_RejectsEmptyAndOversizedBatches() {
+        assertThrows(IllegalArgumentException.class, () -> productService.approveProducts(List.of()));
+        List<Long> tooMany = new ArrayList<>();
+        for (long id = 0; id <= 1000; id++) {
+            tooMany.add(id);
+        }
+        assertThrows(IllegalArgumentException.class, () -> productService.rejectProducts(tooMany));
+        verify(approvalQueueRepository, never()).findAllById(any());
+    }
+
+    // approval queue listing test cases
+
+    @Test
+    public void testListApprovalQueue_ReturnsTokenForNextPage() {
+        ApprovalQueue oldest = new ApprovalQueue("Product A", 6000.0, Status.ACTIVE, LocalDateTime.now(), null);
+        oldest.setId(1L);
+        oldest.setApprovalRequestDate(LocalDateTime.parse("2023-01-01T12:00:00"));
+        ApprovalQueue middle = new ApprovalQueue("Product B", 7000.0, Status.ACTIVE, LocalDateTime.now(), null);
+        middle.setId(2L);
+        middle.setApprovalRequestDate(LocalDateTime.parse("2023-02-01T12:00:00"));
+        ApprovalQueue newest = new ApprovalQueue("Product C", 8000.0, Status.ACTIVE, LocalDateTime.now(), null);
+        newest.setId(3L);
+
+        when(approvalQueueRepository.findOldestFirst(any(), eq(3))).thenReturn(List.of(oldest, middle, newest));
+
+        CursorPage<ApprovalQueue> page = productService
+                .listApprovalQueue(new ApprovalQueueCriteria("PENDING", null, null, null), 2, null);
+
+        assertEquals(List.of(oldest, middle), page.getItems());
+        PageToken token = PageToken.decode(page.getNextPageToken());
+        assertEquals(middle.getApprovalRequestDate(), token.getTimestamp());
+        assertEquals(2L, token.getId());
+        verify(approvalQueueRepository, never()).findAll();
+    }
+
+    @Test
+    public void testCountApprovalQueue_InvalidDateRange() {
+        ApprovalQueueCriteria criteria = new ApprovalQueueCriteria("PENDING", null,
+                LocalDateTime.parse("2023-02-01T12:00:00"), LocalDateTime.parse("2023-01-01T12:00:00"));
+
+        assertThrows(IllegalArgumentException.class, () -> productService.countApprovalQueue(criteria));
+        verify(approvalQueueRepository, never()).count(ArgumentMatchers.<Specification<ApprovalQueue>>any());
+    }
+
+    // optimistic locking test cases
+
+    @Test
+    public void testUpdateProductWithApprovalCheck_StaleIfMatch() {
+        Product product = new Product("Existing Product", 100.0, Status.ACTIVE, LocalDateTime.now());
+        product.setVersion(4L);
+        when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+
+        Product updatedProduct = new Product("Updated Product", 40.0, Status.ACTIVE, LocalDateTime.now());
+
+        assertThrows(PreconditionFailedException.class,
+                () -> productService.updateProductWithApprovalCheck(1L, updatedProduct, 3L));
+        verify(productRepository, never()).save(any(Product.class));
+        assertEquals("Existing Product", product.getName());
+    }
+
+    @Test
+    public void testApproveProduct_RetriesAfterOptimisticLockConflict() {
+        ApprovalQueue approvalQueue = new ApprovalQueue("Product", 8000.0, Status.ACTIVE, LocalDateTime.now(), 5L);
+        approvalQueue.setId(1L);
+        Product product = new Product("Product", 5000.0, Status.ACTIVE, LocalDateTime.now());
+        product.setId(5L);
+
+        when(approvalQueueRepository.findById(1L)).thenReturn(Optional.of(approvalQueue));
+        when(productRepository.findById(5L)).thenReturn(Optional.of(product));
+        when(productRepository.save(product))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Product.class, 5L))
+                .thenReturn(product);
+
+        ResponseEntity<StatusMessage> responseEntity = productService.approveProduct(1L);
+
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        verify(approvalQueueRepository, times(2)).findById(1L);
+        verify(approvalQueueRepository, times(1)).delete(approvalQueue);
+    }
+
+    @Test
+    public void testApproveProduct_GivesUpAfterRepeatedConflicts() {
+        ApprovalQueue approvalQueue = new ApprovalQueue("Product", 8000.0, Status.ACTIVE, LocalDateTime.now(), null);
+        approvalQueue.setId(1L);
+
+        when(approvalQueueRepository.findById(1L)).thenReturn(Optional.of(approvalQueue));
+        when(productRepository.save(any(Product.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Product.class, 5L));
+
+        assertThrows(ConcurrentUpdateException.class, () -> productService.approveProduct(1L));
+        verify(approvalQueueRepository, times(3)).findById(1L);
+        verify(approvalQueueRepository, never()).delete(any(ApprovalQueue.class));
+    }
+
+    @Test
+    public void testUpdateProductWithApprovalCheck_ReplacesThePendingRequest() {
+        Product existingProduct = new Product("Lamp", 5000.0, Status.ACTIVE, LocalDateTime.parse("2023-02-01T12:00:00"));
+        LocalDateTime requestedAt = LocalDateTime.parse("2023-02-02T12:00:00");
+        ApprovalQueue pending = new ApprovalQueue("Lamp", 8000.0, Status.ACTIVE, requestedAt, 1L);
+        pending.setId(7L);
+        pending.setApprovalRequestDate(requestedAt);
+        pending.setAutoReviewedAt(requestedAt);
+
+        when(productRepository.findById(1L)).thenReturn(Optional.of(existingProduct));
+        when(approvalQueueRepository.findPendingByProductId(1L)).thenReturn(Optional.of(pending));
+
+        ResponseEntity<StatusMessage> responseEntity = productService.updateProductWithApprovalCheck(1L,
+                new Product("Desk Lamp", 9000.0, Status.ACTIVE, LocalDateTime.now()));
+
+        assertEquals("Product Sent for Approval as price is higher than 50% of previous value",
+                responseEntity.getBody().getMessage());
+        ArgumentCaptor<ApprovalQueue> saved = ArgumentCaptor.forClass(ApprovalQueue.class);
+        verify(approvalQueueRepository, times(1)).save(saved.capture());
+        assertSame(pending, saved.getValue());
+        assertEquals(7L, pending.getId());
+        assertEquals("Desk Lamp", pending.getName());
+        assertEquals(9000.0, pending.getPrice());
+        assertEquals(requestedAt, pending.getApprovalRequestDate());
+        assertNull(pending.getAutoReviewedAt());
+    }
+
+    @Test
+    public void testDeleteProductWithApproval_ReplacesThePendingRequest() {
+        Product product = new Product("Lamp", 1000.0, Status.ACTIVE, LocalDateTime.now());
+        ApprovalQueue pending = new ApprovalQueue("Lamp", 1600.0, Status.ACTIVE, LocalDateTime.now(), 1L);
+
+        when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+        when(approvalQueueRepository.findPendingByProductId(1L)).thenReturn(Optional.of(pending));
+
+        productService.deleteProductWithApproval(1L);
+
+        verify(approvalQueueRepository, times(1)).save(pending);
+        assertEquals(Status.INACTIVE, pending.getStatus());
+        assertEquals(1000.0, pending.getPrice());
+    }
+
+    @Test
+    public void testUpdateProductWithApprovalCheck_LostRaceForThePendingRequestIsAConflict() {
+        when(productRepository.findById(1L))
+                .thenReturn(Optional.of(new Product("Lamp", 5000.0, Status.ACTIVE, LocalDateTime.now())));
+        when(approvalQueueRepository.save(any(ApprovalQueue.class))).thenThrow(new DataIntegrityViolationException(
+                "could not execute statement; constraint [PUBLIC.UK_APPROVAL_QUEUE_PENDING_PRODUCT_INDEX_C]"));
+
+        assertThrows(ConcurrentUpdateException.class, () -> productService.updateProductWithApprovalCheck(1L,
+                new Product("Lamp", 9000.0, Status.ACTIVE, LocalDateTime.now())));
+    }
+
+    @Test
+    public void testUpdateProductWithApprovalCheck_LostRaceForThePendingRequestIsRetried() {
+        ApprovalQueue queuedMeanwhile = new ApprovalQueue("Lamp", 8000.0, Status.ACTIVE, LocalDateTime.now(), 1L);
+        when(productRepository.findById(1L))
+                .thenReturn(Optional.of(new Product("Lamp", 5000.0, Status.ACTIVE, LocalDateTime.now())));
+        when(approvalQueueRepository.findPendingByProductId(1L)).thenReturn(Optional.empty())
+                .thenReturn(Optional.of(queuedMeanwhile));
+        when(approvalQueueRepository.save(any(ApprovalQueue.class))).thenThrow(new DataIntegrityViolationException(
+                "could not execute statement; constraint [PUBLIC.UK_APPROVAL_QUEUE_PENDING_PRODUCT_INDEX_C]"))
+                .thenReturn(queuedMeanwhile);
+
+        ResponseEntity<StatusMessage> responseEntity = productService.updateProductWithApprovalCheck(1L,
+                new Product("Lamp", 9000.0, Status.ACTIVE, LocalDateTime.now()));
+
+        assertEquals("Product Sent for Approval as price is higher than 50% of previous value",
+                responseEntity.getBody().getMessage());
+        verify(approvalQueueRepository, times(2)).save(any(ApprovalQueue.class));
+        assertEquals(9000.0, queuedMeanwhile.getPrice());
+    }
+
+    @Test
+    public void testUpdateProductWithApprovalCheck_OtherIntegrityViolationsAreNotConflicts() {
+        when(productRepository.findById(1L))
+                .thenReturn(Optional.of(new Product("Lamp", 5000.0, Status.ACTIVE, LocalDateTime.now())));
+        when(approvalQueueRepository.save(any(ApprovalQueue.class)))
+                .thenThrow(new DataIntegrityViolationException("NULL not allowed for column \"NAME\""));
+
+        assertThrows(DataIntegrityViolationException.class, () -> productService.updateProductWithApprovalCheck(1L,
+                new Product(null, 9000.0, Status.ACTIVE, LocalDateTime.now())));
+    }
+
+    @Test
+    public void testSearchProductsByName_KeepsIndexOrderAndSkipsInactive() {
+        Product first = new Product("Running Shoes", 100.0, Status.ACTIVE, LocalDateTime.now());
+        Product second = new Product("Red Running Shoes", 100.0, Status.ACTIVE, LocalDateTime.now());
+        when(productNameIndex.search("running", 20)).thenReturn(List.of(7L, 3L, 9L));
+        when(activeProductCache.getProduct(eq(7L), any())).thenReturn(Optional.of(first));
+        when(activeProductCache.getProduct(eq(3L), any())).thenReturn(Optional.of(second));
+        when(activeProductCache.getProduct(eq(9L), any())).thenReturn(Optional.empty());
+
+        assertEquals(List.of(ProductView.of(first), ProductView.of(second)),
+                productService.searchProductsByName("running", null, null));
+        assertThrows(IllegalArgumentException.class, () -> productService.searchProductsByName(" ", null, null));
+    }
+
+    @Test
+    public void testSearchProductsByName_ReturnsOnlyTheSelectedFields() {
+        Product product = new Product("Running Shoes", 100.0, Status.ACTIVE, LocalDateTime.now());
+        product.setId(7L);
+        when(productNameIndex.search("running", 20)).thenReturn(List.of(7L));
+        when(activeProductCache.getProduct(eq(7L), any())).thenReturn(Optional.of(product));
+
+        List<ProductView> products = productService.searchProductsByName("running", null, "id,name");
+
+        assertEquals(List.of(new ProductView(7L, "Running Shoes", null, null, null, null)), products);
+        assertThrows(IllegalArgumentException.class, () -> productService.searchProductsByName("running", null, "cost"));
+    }
+
+    @Test
+    public void testGetProductFacets_ValidatesRangesAndDelegates() {
+        FacetResponse facets = new FacetResponse(0, List.of(), List.of());
+        when(productFacets.facets(any(ProductSearchCriteria.class))).thenReturn(facets);
+
+        assertEquals(facets, productService.getProductFacets("Lamp", 10.0, 20.0, null, null));
+        verify(productFacets).facets(new ProductSearchCriteria("Lamp", 10.0, 20.0, null, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> productService.getProductFacets(null, 20.0, 10.0, null, null));
+        verifyNoMoreInteractions(productFacets);
+    }
+
 }
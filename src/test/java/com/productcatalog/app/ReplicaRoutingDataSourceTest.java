@@ -0,0 +1,100 @@
+package com.productcatalog.app;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.productcatalog.app.datasource.ReplicaLagMonitor;
+import com.productcatalog.app.datasource.ReplicaRoutingDataSource;
+import com.productcatalog.app.datasource.ReplicaRoutingDataSource.Route;
+
+public class ReplicaRoutingDataSourceTest {
+
+    private ReplicaLagMonitor lagMonitor;
+
+    private ReplicaRoutingDataSource routing;
+
+    private Connection primaryConnection;
+
+    private Connection replicaConnection;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        lagMonitor = mock(ReplicaLagMonitor.class);
+        DataSource primary = mock(DataSource.class);
+        DataSource replica = mock(DataSource.class);
+        primaryConnection = mock(Connection.class);
+        replicaConnection = mock(Connection.class);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replica.getConnection()).thenReturn(replicaConnection);
+
+        routing = new ReplicaRoutingDataSource(lagMonitor);
+        routing.setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        routing.afterPropertiesSet();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    public void testReadOnlyTransaction_UsesReplicaWhileInSync() throws Exception {
+        when(lagMonitor.isReplicaUsable()).thenReturn(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertSame(replicaConnection, routing.getConnection());
+    }
+
+    @Test
+    public void testReadOnlyTransaction_FallsBackToPrimaryWhenReplicaLags() throws Exception {
+        when(lagMonitor.isReplicaUsable()).thenReturn(false);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertSame(primaryConnection, routing.getConnection());
+    }
+
+    @Test
+    public void testWritesAndPinnedReads_UsePrimary() throws Exception {
+        when(lagMonitor.isReplicaUsable()).thenReturn(true);
+
+        assertSame(primaryConnection, routing.getConnection());
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertSame(primaryConnection, ReplicaRoutingDataSource.onPrimary(this::connection));
+        assertSame(replicaConnection, routing.getConnection());
+    }
+
+    @Test
+    public void testRoutesToReplica_MatchesTheConnectionsHandedOut() {
+        when(lagMonitor.isReplicaUsable()).thenReturn(true);
+        assertFalse(ReplicaRoutingDataSource.routesToReplica(lagMonitor));
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertTrue(ReplicaRoutingDataSource.routesToReplica(lagMonitor));
+        assertFalse(ReplicaRoutingDataSource.onPrimary(() -> ReplicaRoutingDataSource.routesToReplica(lagMonitor)));
+        // without a replica
+        assertFalse(ReplicaRoutingDataSource.routesToReplica(null));
+    }
+
+    private Connection connection() {
+        try {
+            return routing.getConnection();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}